@@ -1,5 +1,6 @@
 package com.jamieswhiteshirt.clothesline;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.jamieswhiteshirt.clothesline.api.*;
 import com.jamieswhiteshirt.clothesline.common.*;
 import com.jamieswhiteshirt.clothesline.common.capability.*;
@@ -7,6 +8,7 @@ import com.jamieswhiteshirt.clothesline.common.impl.*;
 import com.jamieswhiteshirt.clothesline.common.network.message.SetConnectorPosMessage;
 import com.jamieswhiteshirt.clothesline.common.tileentity.TileEntityClotheslineAnchor;
 import com.jamieswhiteshirt.clothesline.hooks.api.MayPlaceBlockEvent;
+import com.jamieswhiteshirt.clothesline.internal.IAnchorScheduler;
 import com.jamieswhiteshirt.clothesline.internal.IConnector;
 import com.jamieswhiteshirt.clothesline.internal.INetworkProvider;
 import com.jamieswhiteshirt.clothesline.internal.INetworkCollectionTracker;
@@ -25,11 +27,15 @@ import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.SoundEvent;
 import net.minecraft.util.math.AxisAlignedBB;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.config.Config;
+import net.minecraftforge.common.config.ConfigManager;
 import net.minecraftforge.common.capabilities.CapabilityInject;
 import net.minecraftforge.common.capabilities.CapabilityManager;
 import net.minecraftforge.event.AttachCapabilitiesEvent;
@@ -37,6 +43,8 @@ import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.event.world.ChunkWatchEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.client.event.ConfigChangedEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.common.Mod.EventHandler;
 import net.minecraftforge.fml.common.SidedProxy;
@@ -50,10 +58,16 @@ import net.minecraftforge.fml.common.registry.GameRegistry;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
+import java.util.function.ToLongFunction;
 
 @Mod(
     modid = Clothesline.MODID,
@@ -72,6 +86,8 @@ public class Clothesline {
     public static final Capability<IConnector> CONNECTOR_CAPABILITY = Util.nonNullInjected();
     @CapabilityInject(IWorldEventDispatcher.class)
     public static final Capability<IWorldEventDispatcher> WORLD_EVENT_DISPATCHER_CAPABILITY = Util.nonNullInjected();
+    @CapabilityInject(IAnchorScheduler.class)
+    public static final Capability<IAnchorScheduler> ANCHOR_SCHEDULER_CAPABILITY = Util.nonNullInjected();
 
     @Mod.Instance
     public static Clothesline instance;
@@ -92,6 +108,9 @@ public class Clothesline {
     };
 
     public SimpleNetworkWrapper networkChannel;
+    private ExecutorService topologyRebuildExecutor;
+    private ExecutorService networkSaveExecutor;
+    private ForkJoinPool networkUpdatePool;
 
     @EventHandler
     public void preInit(FMLPreInitializationEvent event) {
@@ -99,8 +118,21 @@ public class Clothesline {
         CapabilityManager.INSTANCE.register(INetworkManager.class, new DummyStorage<>(), new DummyFactory<>());
         CapabilityManager.INSTANCE.register(IConnector.class, new ConnectorStorage(), Connector::new);
         CapabilityManager.INSTANCE.register(IWorldEventDispatcher.class, new DummyStorage<>(), new DummyFactory<>());
+        CapabilityManager.INSTANCE.register(IAnchorScheduler.class, new DummyStorage<>(), new DummyFactory<>());
 
         networkChannel = proxy.createNetworkChannel();
+        topologyRebuildExecutor = Executors.newFixedThreadPool(
+            ClotheslineConfig.topologyRebuildThreads,
+            new ThreadFactoryBuilder().setNameFormat("Clothesline Topology Rebuild #%d").setDaemon(true).build()
+        );
+        networkSaveExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Clothesline Network Save").setDaemon(true).build()
+        );
+        networkUpdatePool = new ForkJoinPool(ClotheslineConfig.networkUpdateThreads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Clothesline Network Update #" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
         proxy.preInit(event);
     }
 
@@ -115,6 +147,13 @@ public class Clothesline {
         logger.warn("This version is NOT supported by the author.");
     }
 
+    @SubscribeEvent
+    public void onConfigChanged(ConfigChangedEvent.OnConfigChangedEvent event) {
+        if (MODID.equals(event.getModID())) {
+            ConfigManager.sync(MODID, Config.Type.INSTANCE);
+        }
+    }
+
     @SubscribeEvent
     public void registerBlocks(RegistryEvent.Register<Block> event) {
         ClotheslineBlocks.registerBlocks(event);
@@ -147,13 +186,20 @@ public class Clothesline {
                 }
             };
 
+            String saveFolder = world.provider.getSaveFolder();
+            File dimensionDirectory = saveFolder != null ? new File(world.getSaveHandler().getWorldDirectory(), saveFolder) : world.getSaveHandler().getWorldDirectory();
+            NetworkShardStorage storage = new NetworkShardStorage(new File(dimensionDirectory, "data/" + MODID), networkSaveExecutor);
+
             NetworkCollection networks = new NetworkCollection();
-            INetworkProvider provider = new NetworkProvider(networks, isChunkLoaded);
-            ServerNetworkManager manager = new ServerNetworkManager((WorldServer) world, networks, provider);
-            INetworkCollectionTracker<EntityPlayerMP> tracker = new NetworkCollectionTracker<>(networks, getWatchingPlayers, new PlayerNetworkMessenger(networkChannel));
+            INetworkProvider provider = new NetworkProvider(networks, isChunkLoaded, storage);
+            PlayerNetworkMessenger messenger = new PlayerNetworkMessenger(networkChannel);
+            ToLongFunction<EntityPlayerMP> getPlayerChunk = player -> ChunkPos.asLong(MathHelper.floor(player.posX) >> 4, MathHelper.floor(player.posZ) >> 4);
+            INetworkCollectionTracker<EntityPlayerMP> tracker = new NetworkCollectionTracker<>(networks, getWatchingPlayers, getPlayerChunk, messenger);
+            ServerNetworkManager manager = new ServerNetworkManager((WorldServer) world, networks, provider, topologyRebuildExecutor, networkUpdatePool, tracker::isWatched);
+            IAnchorScheduler scheduler = new AnchorScheduler(networks);
             MinecraftForge.EVENT_BUS.post(new NetworkManagerCreatedEvent(world, manager));
 
-            event.addCapability(new ResourceLocation(MODID, "networks"), new ServerCapabilityProvider(manager, provider, tracker));
+            event.addCapability(new ResourceLocation(MODID, "networks"), new ServerCapabilityProvider(manager, provider, tracker, scheduler, storage, messenger));
         }
     }
 
@@ -183,6 +229,14 @@ public class Clothesline {
         }
     }
 
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event) {
+        IWorldEventDispatcher eventDispatcher = event.getWorld().getCapability(WORLD_EVENT_DISPATCHER_CAPABILITY, null);
+        if (eventDispatcher != null) {
+            eventDispatcher.onUnload();
+        }
+    }
+
     @SubscribeEvent
     public void onMayPlaceBlock(MayPlaceBlockEvent event) {
         AxisAlignedBB blockAabb = event.getState().getCollisionBoundingBox(event.getWorld(), event.getPos());
@@ -195,7 +249,7 @@ public class Clothesline {
                 boolean intersects = manager.getNetworks().getEdges()
                     .values(box::intersectsClosed)
                     .anyMatch(networkEdge -> {
-                        Line line = networkEdge.getPathEdge().getLine();
+                        Line line = networkEdge.getLine();
                         return aabb.calculateIntercept(line.getFromVec(), line.getToVec()) != null;
                     });
                 if (intersects) {
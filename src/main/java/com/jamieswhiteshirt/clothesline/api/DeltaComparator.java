@@ -6,6 +6,10 @@ import java.util.Comparator;
 
 /**
  * Compares Vec3i by XZ angle, then XZ length, then Y.
+ *
+ * The order is also encoded in a pair of primitive sort keys, {@link #getAngleKey(Vec3i)} and
+ * {@link #getLengthKey(Vec3i)}, for vectors with X and Z on (-2^26, 2^26). Comparing the angle keys, then the length
+ * keys is equivalent to comparing the vectors.
  */
 public class DeltaComparator implements Comparator<Vec3i> {
     private static DeltaComparator ourInstance = new DeltaComparator();
@@ -17,6 +21,79 @@ public class DeltaComparator implements Comparator<Vec3i> {
     private DeltaComparator() {
     }
 
+    private static final int FRACTION_HALF_BITS = 27;
+    private static final int MAX_HORIZONTAL = 1 << 26;
+
+    /**
+     * Returns floor(numerator * 2^54 / denominator) for 0 <= numerator < denominator <= 2^27 without overflowing.
+     */
+    private static long fraction(long numerator, long denominator) {
+        long high = (numerator << FRACTION_HALF_BITS) / denominator;
+        long remainder = (numerator << FRACTION_HALF_BITS) % denominator;
+        long low = (remainder << FRACTION_HALF_BITS) / denominator;
+        return (high << FRACTION_HALF_BITS) | low;
+    }
+
+    /**
+     * Returns the primary sort key of the vector, an exact encoding of its XZ angle. Vectors on the Y axis have the
+     * lowest key. Otherwise the key is the quadrant of the XZ angle followed by the "diamond angle" within the
+     * quadrant, a rational of denominator |x| + |z| which is floored to 54 bits. Two distinct such rationals differ by
+     * at least 2^-54, so the flooring preserves their order.
+     * @param delta the vector, with X and Z on (-2^26, 2^26)
+     * @return the primary sort key of the vector
+     */
+    public static long getAngleKey(Vec3i delta) {
+        int x = delta.getX();
+        int z = delta.getZ();
+        if (x <= -MAX_HORIZONTAL || x >= MAX_HORIZONTAL || z <= -MAX_HORIZONTAL || z >= MAX_HORIZONTAL) {
+            throw new IllegalArgumentException("Vector is out of range: " + delta);
+        }
+
+        if (x == 0 && z == 0) return -1L;
+
+        long quadrant;
+        long numerator;
+        long denominator;
+        if (x > 0 && z >= 0) {
+            quadrant = 0;
+            numerator = z;
+            denominator = (long) x + z;
+        } else if (x <= 0 && z > 0) {
+            quadrant = 1;
+            numerator = -x;
+            denominator = (long) z - x;
+        } else if (x < 0) {
+            quadrant = 2;
+            numerator = -z;
+            denominator = -(long) x - z;
+        } else {
+            quadrant = 3;
+            numerator = x;
+            denominator = (long) x - z;
+        }
+        return (quadrant << (2 * FRACTION_HALF_BITS)) | fraction(numerator, denominator);
+    }
+
+    /**
+     * Returns the secondary sort key of the vector, the XZ length (as |x| + |z|, which orders vectors of equal XZ
+     * angle by length) followed by Y.
+     * @param delta the vector, with X and Z on (-2^26, 2^26)
+     * @return the secondary sort key of the vector
+     */
+    public static long getLengthKey(Vec3i delta) {
+        long length = (long) Math.abs(delta.getX()) + Math.abs(delta.getZ());
+        return (length << 32) | ((delta.getY() ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Compares two vectors by their sort keys. Equivalent to {@link #compare(Vec3i, Vec3i)} on the vectors.
+     */
+    public static int compareKeys(long angleKeyA, long lengthKeyA, long angleKeyB, long lengthKeyB) {
+        int comp = Long.compare(angleKeyA, angleKeyB);
+        if (comp != 0) return comp;
+        return Long.compare(lengthKeyA, lengthKeyB);
+    }
+
     @Override
     public int compare(Vec3i a, Vec3i b) {
         // Are the XZ angle and XZ length the same? If so, compare Y
@@ -37,7 +114,7 @@ public class DeltaComparator implements Comparator<Vec3i> {
         if (comp != 0) return comp;
 
         // Do the vectors have different XZ angles?
-        comp = Integer.compare(b.getX() * a.getZ(), a.getX() * b.getZ());
+        comp = Long.compare((long) b.getX() * a.getZ(), (long) a.getX() * b.getZ());
         if (comp != 0) return comp;
 
         // Do the vectors have different XZ lengths?
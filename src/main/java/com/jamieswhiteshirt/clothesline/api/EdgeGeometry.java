@@ -0,0 +1,161 @@
+package com.jamieswhiteshirt.clothesline.api;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+/**
+ * Immutable geometry of a path edge that only depends on the structure of the network. Computed once when the edge is
+ * indexed so that rendering and raytracing only have to account for the shift and momentum of the network.
+ */
+public final class EdgeGeometry {
+    private static final Vec3d UP = new Vec3d(0.0D, 1.0D, 0.0D);
+
+    private final BlockPos fromPos;
+    private final BlockPos toPos;
+    private final Vec3d fromVec;
+    private final Vec3d right;
+    private final Vec3d up;
+    private final Vec3d forward;
+    private final float angleY;
+    private final float fromAngleDiff;
+    private final float toAngleDiff;
+
+    public EdgeGeometry(BlockPos fromPos, BlockPos toPos, Vec3d fromVec, Vec3d right, Vec3d up, Vec3d forward, float angleY, float fromAngleDiff, float toAngleDiff) {
+        this.fromPos = fromPos;
+        this.toPos = toPos;
+        this.fromVec = fromVec;
+        this.right = right;
+        this.up = up;
+        this.forward = forward;
+        this.angleY = angleY;
+        this.fromAngleDiff = fromAngleDiff;
+        this.toAngleDiff = toAngleDiff;
+    }
+
+    /**
+     * Returns the position of the node the edge starts at. Used as the light sample position at the start of the edge.
+     * @return the position of the node the edge starts at
+     */
+    public BlockPos getFromPos() {
+        return fromPos;
+    }
+
+    /**
+     * Returns the position of the node the edge ends at. Used as the light sample position at the end of the edge.
+     * @return the position of the node the edge ends at
+     */
+    public BlockPos getToPos() {
+        return toPos;
+    }
+
+    public Vec3d getFromVec() {
+        return fromVec;
+    }
+
+    public Vec3d getToVec() {
+        return fromVec.add(forward);
+    }
+
+    /**
+     * Returns the normal vector facing right of the edge on the Y plane.
+     * @return the normal vector facing right of the edge on the Y plane
+     */
+    public Vec3d getRight() {
+        return right;
+    }
+
+    /**
+     * Returns the normal vector facing up from the edge on the plane of the right normal.
+     * @return the normal vector facing up from the edge
+     */
+    public Vec3d getUp() {
+        return up;
+    }
+
+    /**
+     * Returns the vector from the start of the edge to the end of the edge.
+     * @return the vector from the start of the edge to the end of the edge
+     */
+    public Vec3d getForward() {
+        return forward;
+    }
+
+    /**
+     * Returns the global XZ angle of the edge in degrees, on [0, 360).
+     * @return the global XZ angle of the edge in degrees
+     */
+    public float getAngleY() {
+        return angleY;
+    }
+
+    /**
+     * Returns the XZ angle in degrees between the previous edge in the path and this edge, on [0, 360).
+     * @return the XZ angle in degrees between the previous edge in the path and this edge
+     */
+    public float getFromAngleDiff() {
+        return fromAngleDiff;
+    }
+
+    /**
+     * Returns the XZ angle in degrees between this edge and the next edge in the path, on [0, 360).
+     * @return the XZ angle in degrees between this edge and the next edge in the path
+     */
+    public float getToAngleDiff() {
+        return toAngleDiff;
+    }
+
+    private static float floorModAngle(float angle) {
+        if (angle >= 0.0F) {
+            return angle % 360.0F;
+        } else {
+            return 360.0F + (angle % 360.0F);
+        }
+    }
+
+    private static float calculateGlobalAngleY(BlockPos delta) {
+        return floorModAngle((float)Math.toDegrees(Math.atan2(delta.getZ(), delta.getX())));
+    }
+
+    /**
+     * Creates the geometry of the path edge at the specified index of the path edges of the graph. The previous and
+     * next path edges "wrap around" the path edges.
+     * @param graph the graph
+     * @param index the index of the path edge
+     * @return the geometry of the path edge
+     */
+    public static EdgeGeometry create(PackedGraph graph, int index) {
+        int edgeCount = graph.getEdgeCount();
+        BlockPos fromPos = graph.getNodePos(graph.getEdgeFromNode(index));
+        BlockPos toPos = graph.getNodePos(graph.getEdgeToNode(index));
+        Vec3d from = Utility.midVec(fromPos);
+        Vec3d forward = Utility.midVec(toPos).subtract(from);
+
+        // The normal vector facing from the from pos to the to pos
+        Vec3d forwardNormal = forward.normalize();
+        // The normal vector facing right to the forward normal (on the y plane)
+        Vec3d rightNormal = forwardNormal.crossProduct(UP).normalize();
+        if (rightNormal.equals(Vec3d.ZERO)) {
+            // We are looking straight up or down so the right normal is undefined
+            // Let it be x if we are looking straight up or -x if we are looking straight down
+            rightNormal = new Vec3d(Math.signum(forward.y), 0.0D, 0.0D);
+        }
+        // The normal vector facing up from the forward normal (on the right normal plane)
+        Vec3d upNormal = rightNormal.crossProduct(forwardNormal);
+
+        float fromAngleY = calculateGlobalAngleY(graph.getEdgeDelta(Math.floorMod(index - 1, edgeCount)));
+        float angleY = calculateGlobalAngleY(toPos.subtract(fromPos));
+        float toAngleY = calculateGlobalAngleY(graph.getEdgeDelta(Math.floorMod(index + 1, edgeCount)));
+
+        return new EdgeGeometry(
+            fromPos,
+            toPos,
+            from,
+            rightNormal,
+            upNormal,
+            forward,
+            angleY,
+            floorModAngle(fromAngleY - angleY),
+            floorModAngle(angleY - toAngleY)
+        );
+    }
+}
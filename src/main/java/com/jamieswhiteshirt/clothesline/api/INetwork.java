@@ -4,6 +4,7 @@ import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.EnumHand;
 import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.items.IItemHandler;
 
 import java.util.UUID;
 
@@ -97,6 +98,30 @@ public interface INetwork {
      */
     void setAttachment(int attachmentKey, ItemStack stack);
 
+    /**
+     * Returns an item handler for the whole clothesline network, with slots along the path in attachment key order.
+     * The item handler is created once and remains valid for as long as the clothesline network exists.
+     * @return an item handler for the whole clothesline network
+     */
+    IItemHandler getItemHandler();
+
+    /**
+     * Sets the rotational offset of the clothesline network in attachment units.
+     *
+     * Notifies event listeners with {@link INetworkListener#onMotionChanged(INetwork)}
+     * @see INetworkState#setShift(int)
+     */
+    void setShift(int shift);
+
+    /**
+     * Sets the rotational momentum of the clothesline network in attachment units per tick. Setting the momentum of the
+     * state directly does not notify event listeners, so networks at rest may not be updated.
+     *
+     * Notifies event listeners with {@link INetworkListener#onMotionChanged(INetwork)}
+     * @see INetworkState#setMomentum(int)
+     */
+    void setMomentum(int momentum);
+
     /**
      * Adds an event listener that will be notified when the state of the clothesline network changes or when attached
      * items change. The event listener is bound by a key which must be unique for the clothesline network. If an
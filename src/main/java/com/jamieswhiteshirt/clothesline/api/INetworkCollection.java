@@ -5,6 +5,7 @@ import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -34,6 +35,31 @@ public interface INetworkCollection {
     @Nullable
     INetwork getByUuid(UUID uuid);
 
+    /**
+     * Returns the active clothesline networks, which are the clothesline networks that must be updated each tick. A
+     * clothesline network is added when it is added to the collection in motion, set in motion with
+     * {@link INetwork#setShift(int)} or {@link INetwork#setMomentum(int)}, or with {@link #activate(INetwork)}. It is
+     * removed with {@link #removeNetworksAtRest()}. This collection must not be modified.
+     * @see INetworkState#isInMotion()
+     * @return the active clothesline networks
+     */
+    Collection<INetwork> getActiveValues();
+
+    /**
+     * Adds the clothesline network to the active clothesline networks.
+     * @see #getActiveValues()
+     * @param network the clothesline network
+     */
+    void activate(INetwork network);
+
+    /**
+     * Removes clothesline networks that are no longer in motion or are simulated lazily from the active clothesline
+     * networks.
+     * @see #getActiveValues()
+     * @see INetworkState#simulateLazily(java.util.function.LongSupplier, long)
+     */
+    void removeNetworksAtRest();
+
     /**
      * Adds the clothesline network to the collection of clothesline networks.
      *
@@ -1,9 +1,19 @@
 package com.jamieswhiteshirt.clothesline.api;
 
+import net.minecraft.util.math.Vec3d;
+
 public interface INetworkEdge {
     INetwork getNetwork();
 
-    Path.Edge getPathEdge();
+    Line getLine();
 
     int getIndex();
+
+    int getFromOffset();
+
+    int getToOffset();
+
+    Vec3d getPositionForOffset(int offset);
+
+    EdgeGeometry getGeometry();
 }
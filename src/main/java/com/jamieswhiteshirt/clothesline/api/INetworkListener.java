@@ -4,4 +4,12 @@ import net.minecraft.item.ItemStack;
 
 public interface INetworkListener {
     void onAttachmentChanged(INetwork network, int attachmentKey, ItemStack previousStack, ItemStack newStack);
+
+    /**
+     * Called when the shift or momentum of the network is set with {@link INetwork#setShift(int)} or
+     * {@link INetwork#setMomentum(int)}.
+     * @param network the network
+     */
+    default void onMotionChanged(INetwork network) {
+    }
 }
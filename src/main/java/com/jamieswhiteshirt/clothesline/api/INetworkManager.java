@@ -20,6 +20,23 @@ public interface INetworkManager {
      */
     void update();
 
+    /**
+     * Completes all pending changes to the structure of clothesline networks that are computed off the server thread,
+     * waiting for them if necessary. Called before the networks are saved.
+     */
+    void flushRebuilds();
+
+    /**
+     * Sets the constant power with which the anchor at the specified position drives its clothesline network. The
+     * power of all anchors in a network is accumulated and applied to the network once per update, so the result does
+     * not depend on the order in which the anchors are updated.
+     *
+     * A power of 0 removes the anchor as a source of power.
+     * @param pos the anchor position
+     * @param power the power
+     */
+    void setPower(BlockPos pos, int power);
+
     /**
      * Attempts to connect two nodes into the same clothesline network. Returns true if the nodes exist and they are not
      * already connected, false otherwise.
@@ -1,7 +1,16 @@
 package com.jamieswhiteshirt.clothesline.api;
 
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3i;
+
 public interface INetworkNode {
     INetwork getNetwork();
 
-    Path.Node getPathNode();
+    int getIndex();
+
+    BlockPos getPos();
+
+    int getBaseRotation();
+
+    int getOffsetForDelta(Vec3i delta);
 }
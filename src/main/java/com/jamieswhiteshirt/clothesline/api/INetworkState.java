@@ -5,6 +5,7 @@ import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.item.ItemStack;
 
 import java.util.List;
+import java.util.function.LongSupplier;
 
 /**
  * The state of an {@link INetwork}.
@@ -19,14 +20,22 @@ public interface INetworkState {
     int MAX_MOMENTUM = 30;
 
     /**
-     * Returns the tree, a canonical representation of the structure of the clothesline network.
+     * Returns the compact representation of the structure of the clothesline network, from which the tree and the
+     * path are materialized.
+     * @return the compact representation of the structure of the clothesline network
+     */
+    PackedGraph getGraph();
+
+    /**
+     * Returns the tree, a canonical representation of the structure of the clothesline network. The tree is
+     * materialized from {@link #getGraph()} on every call, prefer reading the graph directly.
      * @return the tree
      */
     Tree getTree();
 
     /**
      * Returns the path through the structure of the clothesline network. This structure is not canonical, it derived
-     * from the tree.
+     * from the tree. The path is materialized from {@link #getGraph()} on every call, prefer reading the graph directly.
      * @return the path through the structure of the clothesline network
      */
     Path getPath();
@@ -52,6 +61,16 @@ public interface INetworkState {
      */
     List<MutableSortedIntMap.Entry<ItemStack>> getAttachmentsInRange(int minAttachmentKey, int maxAttachmentKey);
 
+    /**
+     * Returns a list of nonempty attachments that have passed the specified offset by moving from
+     * {@link #getPreviousShift()} to {@link #getShift()}. An attachment passes the offset if it is at the offset after
+     * moving but not before. If the clothesline network has moved at least a full rotation, all attachments have
+     * passed the offset.
+     * @param offset the offset
+     * @return a list of nonempty attachments that have passed the offset
+     */
+    List<MutableSortedIntMap.Entry<ItemStack>> getAttachmentsPassingOffset(int offset);
+
     /**
      * Get the attached ItemStack in the specified attachment slot.
      * @param attachmentKey the attachment slot
@@ -71,6 +90,28 @@ public interface INetworkState {
      */
     void update();
 
+    /**
+     * Stops the need to update the network state each tick. Instead, the network state is simulated in closed form
+     * for the ticks the clock has advanced by whenever the shift or momentum is read or written. As updates are
+     * deterministic, the result is exactly the same as updating the network state each tick.
+     * @param clock the clock returning the current tick
+     * @param tick the tick up to which the network state has been updated
+     */
+    void simulateLazily(LongSupplier clock, long tick);
+
+    /**
+     * Simulates the ticks the clock has advanced by and resumes the need to update the network state each tick.
+     * @see #simulateLazily(LongSupplier, long)
+     */
+    void simulateEagerly();
+
+    /**
+     * Returns true if the network state is simulated lazily.
+     * @see #simulateLazily(LongSupplier, long)
+     * @return true if the network state is simulated lazily
+     */
+    boolean isSimulatedLazily();
+
     /**
      * Returns the current rotational offset of the clothesline network in attachment units per tick.
      * @return the current rotational offset of the clothesline network in attachment units per tick
@@ -121,12 +162,35 @@ public interface INetworkState {
      */
     double getMomentum(float partialTicks);
 
+    /**
+     * Returns the version of the clothesline network state. The version changes whenever the state is mutated, which
+     * includes attachment changes, rotation and changes in momentum. States that are derived from a snapshot of this
+     * state may only replace it if the version has not changed in the meantime.
+     * @return the version of the clothesline network state
+     */
+    int getVersion();
+
+    /**
+     * Returns the version of the attachments of the clothesline network state. Unlike {@link #getVersion()}, it only
+     * changes when an attachment is set or removed. Together with the identity of the state, which determines its
+     * structure, it identifies the contents of the network regardless of its motion.
+     * @return the version of the attachments of the clothesline network state
+     */
+    int getAttachmentsVersion();
+
     /**
      * Returns the length of the path in attachment units.
      * @return the length of the path in attachment units
      */
     int getPathLength();
 
+    /**
+     * Returns true if the clothesline network is in motion, that is if it has momentum or has moved since the previous
+     * update. Networks that are not in motion do not change when updated.
+     * @return true if the clothesline network is in motion
+     */
+    boolean isInMotion();
+
     /**
      * Returns the attachment slot of the traversal position based on the current shift of the clothesline network.
      * @param offset the traversal position
@@ -0,0 +1,363 @@
+package com.jamieswhiteshirt.clothesline.api;
+
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.math.Vec3i;
+
+import java.util.*;
+
+/**
+ * Compact immutable representation of the structure of a clothesline network, from which the equivalent {@link Tree}
+ * and {@link Path} can be materialized.
+ *
+ * Nodes are indexed in preorder of the tree, the root being node 0. The subtree of node v is the range of nodes
+ * [v, subtreeEnd(v)). Positions are packed with {@link BlockPos#toLong()}.
+ *
+ * Path edges are indexed in traversal order. Every non-root node v has a path edge from its parent to v (entering
+ * the subtree) and a path edge from v to its parent (exiting the subtree). The path edges of each node are stored in
+ * compressed sparse row form, ordered by {@link DeltaComparator}.
+ */
+public final class PackedGraph {
+    private final long[] positions;
+    private final int[] baseRotations;
+    private final int[] parents;
+    private final int[] subtreeEnds;
+    private final int[] enterEdges;
+    private final int[] offsets;
+    private final int[] edgeNodes;
+    private final int[] nodeEdgeStarts;
+    private final int[] nodeEdges;
+
+    private PackedGraph(long[] positions, int[] baseRotations, int[] parents, int[] subtreeEnds, int[] enterEdges, int[] offsets, int[] edgeNodes, int[] nodeEdgeStarts, int[] nodeEdges) {
+        this.positions = positions;
+        this.baseRotations = baseRotations;
+        this.parents = parents;
+        this.subtreeEnds = subtreeEnds;
+        this.enterEdges = enterEdges;
+        this.offsets = offsets;
+        this.edgeNodes = edgeNodes;
+        this.nodeEdgeStarts = nodeEdgeStarts;
+        this.nodeEdges = nodeEdges;
+    }
+
+    private static final class Builder {
+        private final long[] positions;
+        private final int[] baseRotations;
+        private final int[] parents;
+        private final int[] subtreeEnds;
+        private final int[] enterEdges;
+        private final int[] offsets;
+        private final int[] edgeNodes;
+        private int nodeCount = 0;
+        private int edgeCount = 0;
+
+        private Builder(int numNodes) {
+            int numEdges = 2 * (numNodes - 1);
+            positions = new long[numNodes];
+            baseRotations = new int[numNodes];
+            parents = new int[numNodes];
+            subtreeEnds = new int[numNodes];
+            enterEdges = new int[numNodes];
+            offsets = new int[numEdges + 1];
+            edgeNodes = new int[numEdges];
+        }
+
+        private void putEdge(int edgeNode, int length) {
+            edgeNodes[edgeCount] = edgeNode;
+            offsets[edgeCount + 1] = offsets[edgeCount] + length;
+            edgeCount++;
+        }
+
+        private void putTree(Tree tree, int parent, int enterEdge) {
+            int node = nodeCount++;
+            positions[node] = tree.getPos().toLong();
+            baseRotations[node] = tree.getBaseRotation();
+            parents[node] = parent;
+            enterEdges[node] = enterEdge;
+            for (Tree.Edge edge : tree.getEdges()) {
+                int child = nodeCount;
+                int childEnterEdge = edgeCount;
+                putEdge(child, edge.getLength());
+                putTree(edge.getTree(), node, childEnterEdge);
+                putEdge(~child, edge.getLength());
+            }
+            subtreeEnds[node] = nodeCount;
+        }
+
+        private PackedGraph build() {
+            int numNodes = positions.length;
+            int numEdges = edgeNodes.length;
+
+            // Count the path edges leaving each node, then lay them out in compressed sparse row form
+            int[] nodeEdgeStarts = new int[numNodes + 1];
+            for (int i = 0; i < numEdges; i++) {
+                nodeEdgeStarts[edgeFromNode(parents, edgeNodes[i]) + 1]++;
+            }
+            for (int v = 0; v < numNodes; v++) {
+                nodeEdgeStarts[v + 1] += nodeEdgeStarts[v];
+            }
+            int[] nodeEdges = new int[numEdges];
+            int[] fill = Arrays.copyOf(nodeEdgeStarts, numNodes);
+            for (int i = 0; i < numEdges; i++) {
+                nodeEdges[fill[edgeFromNode(parents, edgeNodes[i])]++] = i;
+            }
+
+            PackedGraph graph = new PackedGraph(positions, baseRotations, parents, subtreeEnds, enterEdges, offsets, edgeNodes, nodeEdgeStarts, nodeEdges);
+            for (int v = 0; v < numNodes; v++) {
+                graph.sortNodeEdges(v);
+            }
+            return graph;
+        }
+    }
+
+    private static int countNodes(Tree tree) {
+        int count = 1;
+        for (Tree.Edge edge : tree.getEdges()) {
+            count += countNodes(edge.getTree());
+        }
+        return count;
+    }
+
+    private static int edgeFromNode(int[] parents, int edgeNode) {
+        return edgeNode >= 0 ? parents[edgeNode] : ~edgeNode;
+    }
+
+    private static int edgeToNode(int[] parents, int edgeNode) {
+        return edgeNode >= 0 ? edgeNode : parents[~edgeNode];
+    }
+
+    public static PackedGraph fromTree(Tree tree) {
+        Builder builder = new Builder(countNodes(tree));
+        builder.putTree(tree, -1, -1);
+        return builder.build();
+    }
+
+    private void sortNodeEdges(int node) {
+        // Insertion sort, nodes have few edges
+        int start = nodeEdgeStarts[node];
+        int end = nodeEdgeStarts[node + 1];
+        long[] angleKeys = new long[end - start];
+        long[] lengthKeys = new long[end - start];
+        for (int i = start; i < end; i++) {
+            BlockPos delta = getEdgeDelta(nodeEdges[i]);
+            angleKeys[i - start] = DeltaComparator.getAngleKey(delta);
+            lengthKeys[i - start] = DeltaComparator.getLengthKey(delta);
+        }
+        for (int i = start + 1; i < end; i++) {
+            int edge = nodeEdges[i];
+            long angleKey = angleKeys[i - start];
+            long lengthKey = lengthKeys[i - start];
+            int j = i - 1;
+            while (j >= start && DeltaComparator.compareKeys(angleKeys[j - start], lengthKeys[j - start], angleKey, lengthKey) > 0) {
+                nodeEdges[j + 1] = nodeEdges[j];
+                angleKeys[j + 1 - start] = angleKeys[j - start];
+                lengthKeys[j + 1 - start] = lengthKeys[j - start];
+                j--;
+            }
+            nodeEdges[j + 1] = edge;
+            angleKeys[j + 1 - start] = angleKey;
+            lengthKeys[j + 1 - start] = lengthKey;
+        }
+    }
+
+    public int getNodeCount() {
+        return positions.length;
+    }
+
+    public long getNodePosLong(int node) {
+        return positions[node];
+    }
+
+    public BlockPos getNodePos(int node) {
+        return BlockPos.fromLong(positions[node]);
+    }
+
+    public int getNodeBaseRotation(int node) {
+        return baseRotations[node];
+    }
+
+    /**
+     * Returns the parent of the node in the tree, or -1 if the node is the root.
+     * @param node the node
+     * @return the parent of the node in the tree, or -1 if the node is the root
+     */
+    public int getNodeParent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * Returns the end of the subtree of the node in preorder, exclusive.
+     * @param node the node
+     * @return the end of the subtree of the node in preorder, exclusive
+     */
+    public int getSubtreeEnd(int node) {
+        return subtreeEnds[node];
+    }
+
+    /**
+     * Returns the path edge from the parent of the node to the node, or -1 if the node is the root.
+     * @param node the node
+     * @return the path edge from the parent of the node to the node, or -1 if the node is the root
+     */
+    public int getNodeEnterEdge(int node) {
+        return enterEdges[node];
+    }
+
+    public int getNodeEdgeCount(int node) {
+        return nodeEdgeStarts[node + 1] - nodeEdgeStarts[node];
+    }
+
+    /**
+     * Returns the path edge at the specified index of the path edges leaving the node, ordered by
+     * {@link DeltaComparator}.
+     * @param node the node
+     * @param index the index of the path edge among the path edges leaving the node
+     * @return the path edge
+     */
+    public int getNodeEdge(int node, int index) {
+        return nodeEdges[nodeEdgeStarts[node] + index];
+    }
+
+    /**
+     * Returns the offset at which the first path edge leaving the node ordered after the delta starts, wrapping around to
+     * the first path edge leaving the node. Equivalent to {@link Path.Node#getOffsetForDelta(Vec3i)}.
+     * @param node the node, which must have path edges
+     * @param delta the delta
+     * @return the offset at which the path edge starts
+     */
+    public int getNodeOffsetForDelta(int node, Vec3i delta) {
+        long angleKey = DeltaComparator.getAngleKey(delta);
+        long lengthKey = DeltaComparator.getLengthKey(delta);
+        int start = nodeEdgeStarts[node];
+        int end = nodeEdgeStarts[node + 1];
+        // Nodes have few edges, so the sort keys are computed as needed rather than stored
+        int left = start;
+        int right = end;
+        while (left < right) {
+            int mid = (left + right) / 2;
+            BlockPos edgeDelta = getEdgeDelta(nodeEdges[mid]);
+            int comparison = DeltaComparator.compareKeys(DeltaComparator.getAngleKey(edgeDelta), DeltaComparator.getLengthKey(edgeDelta), angleKey, lengthKey);
+            if (comparison > 0) {
+                right = mid;
+            } else {
+                left = mid + 1;
+            }
+        }
+        return offsets[nodeEdges[start + (left - start) % (end - start)]];
+    }
+
+    public int getEdgeCount() {
+        return edgeNodes.length;
+    }
+
+    public int getEdgeFromNode(int edge) {
+        return edgeFromNode(parents, edgeNodes[edge]);
+    }
+
+    public int getEdgeToNode(int edge) {
+        return edgeToNode(parents, edgeNodes[edge]);
+    }
+
+    public int getEdgeFromOffset(int edge) {
+        return offsets[edge];
+    }
+
+    public int getEdgeToOffset(int edge) {
+        return offsets[edge + 1];
+    }
+
+    public BlockPos getEdgeDelta(int edge) {
+        return getNodePos(getEdgeToNode(edge)).subtract(getNodePos(getEdgeFromNode(edge)));
+    }
+
+    public int getLength() {
+        return offsets[offsets.length - 1];
+    }
+
+    public boolean isEmpty() {
+        return edgeNodes.length == 0;
+    }
+
+    /**
+     * Returns the index of the path edge spanning the offset.
+     * @param offset the offset, on [0, {@link #getLength()})
+     * @return the index of the path edge spanning the offset
+     */
+    public int getEdgeForOffset(int offset) {
+        int left = 0;
+        int right = edgeNodes.length;
+        while (left < right) {
+            int mid = (left + right) / 2;
+            if (offset < offsets[mid]) {
+                right = mid;
+            } else if (offset >= offsets[mid + 1]) {
+                left = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return left;
+    }
+
+    public Vec3d getPositionForOffset(int offset) {
+        int edge = getEdgeForOffset(offset);
+        double scalar = (double)(offset - offsets[edge]) / (offsets[edge + 1] - offsets[edge]);
+        Vec3d fromVec = Utility.midVec(getNodePos(getEdgeFromNode(edge)));
+        Vec3d toVec = Utility.midVec(getNodePos(getEdgeToNode(edge)));
+        return fromVec.scale(1.0D - scalar).add(toVec.scale(scalar));
+    }
+
+    private Tree toTree(int node) {
+        BlockPos pos = getNodePos(node);
+        int end = subtreeEnds[node];
+        ArrayList<Tree.Edge> edges = new ArrayList<>();
+        for (int child = node + 1; child < end; child = subtreeEnds[child]) {
+            int enterEdge = enterEdges[child];
+            Tree childTree = toTree(child);
+            edges.add(new Tree.Edge(childTree.getPos().subtract(pos), offsets[enterEdge + 1] - offsets[enterEdge], offsets[enterEdge], childTree));
+        }
+        int minOffset, maxOffset;
+        if (node == 0) {
+            minOffset = offsets[0];
+            maxOffset = offsets[offsets.length - 1];
+        } else {
+            // The exit edge follows the enter edge and both path edges of every node in the subtree
+            int enterEdge = enterEdges[node];
+            minOffset = offsets[enterEdge + 1];
+            maxOffset = offsets[enterEdge + 2 * (end - node) - 1];
+        }
+        return new Tree(pos, edges, minOffset, maxOffset, baseRotations[node]);
+    }
+
+    /**
+     * Materializes the tree of the structure.
+     * @return the tree
+     */
+    public Tree toTree() {
+        return toTree(0);
+    }
+
+    /**
+     * Materializes the path through the structure.
+     * @return the path
+     */
+    public Path toPath() {
+        List<Path.Edge> edges = new ArrayList<>(edgeNodes.length);
+        for (int i = 0; i < edgeNodes.length; i++) {
+            BlockPos fromPos = getNodePos(getEdgeFromNode(i));
+            BlockPos toPos = getNodePos(getEdgeToNode(i));
+            edges.add(new Path.Edge(toPos.subtract(fromPos), new Line(fromPos, toPos), offsets[i], offsets[i + 1]));
+        }
+        Map<BlockPos, Path.Node> nodes = new HashMap<>();
+        for (int v = 0; v < positions.length; v++) {
+            BlockPos pos = getNodePos(v);
+            int numNodeEdges = getNodeEdgeCount(v);
+            List<Path.Edge> nodeEdges = new ArrayList<>(numNodeEdges);
+            for (int i = 0; i < numNodeEdges; i++) {
+                nodeEdges.add(edges.get(getNodeEdge(v, i)));
+            }
+            nodes.put(pos, new Path.Node(pos, nodeEdges, baseRotations[v]));
+        }
+        return new Path(nodes, edges);
+    }
+}
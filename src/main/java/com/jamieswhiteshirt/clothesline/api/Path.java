@@ -14,11 +14,21 @@ public final class Path {
         private final BlockPos pos;
         private final List<Edge> edges;
         private final int baseRotation;
+        /**
+         * The angle and length sort keys of the edge deltas, interleaved. See {@link DeltaComparator#getAngleKey(Vec3i)}.
+         */
+        private final long[] sortKeys;
 
         public Node(BlockPos pos, List<Edge> edges, int baseRotation) {
             this.pos = pos;
             this.edges = edges;
             this.baseRotation = baseRotation;
+            this.sortKeys = new long[edges.size() * 2];
+            for (int i = 0; i < edges.size(); i++) {
+                BlockPos delta = edges.get(i).delta;
+                sortKeys[i * 2] = DeltaComparator.getAngleKey(delta);
+                sortKeys[i * 2 + 1] = DeltaComparator.getLengthKey(delta);
+            }
         }
 
         public BlockPos getPos() {
@@ -33,10 +43,10 @@ public final class Path {
             return baseRotation;
         }
 
-        private int flooredEdgeIndex(Vec3i delta, int left, int right) {
+        private int flooredEdgeIndex(long angleKey, long lengthKey, int left, int right) {
             while (left < right) {
                 int mid = (left + right) / 2;
-                int comparison = DeltaComparator.getInstance().compare(edges.get(mid).delta, delta);
+                int comparison = DeltaComparator.compareKeys(sortKeys[mid * 2], sortKeys[mid * 2 + 1], angleKey, lengthKey);
                 if (comparison > 0) {
                     right = mid;
                 } else {
@@ -47,7 +57,7 @@ public final class Path {
         }
 
         private int flooredEdgeIndex(Vec3i delta) {
-            return flooredEdgeIndex(delta, 0, edges.size());
+            return flooredEdgeIndex(DeltaComparator.getAngleKey(delta), DeltaComparator.getLengthKey(delta), 0, edges.size());
         }
 
         public int getOffsetForDelta(Vec3i delta) {
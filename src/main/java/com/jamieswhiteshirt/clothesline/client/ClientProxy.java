@@ -16,6 +16,7 @@ import com.jamieswhiteshirt.clothesline.common.ClotheslineBlocks;
 import com.jamieswhiteshirt.clothesline.common.ClotheslineItems;
 import com.jamieswhiteshirt.clothesline.common.CommonProxy;
 import com.jamieswhiteshirt.clothesline.common.block.BlockClotheslineAnchor;
+import com.jamieswhiteshirt.clothesline.common.impl.AnchorScheduler;
 import com.jamieswhiteshirt.clothesline.common.impl.NetworkCollection;
 import com.jamieswhiteshirt.clothesline.common.item.ItemConnector;
 import com.jamieswhiteshirt.clothesline.common.network.message.*;
@@ -82,8 +83,9 @@ public class ClientProxy extends CommonProxy {
         networkChannel.registerMessage(new SetAttachmentMessageHandler(), SetAttachmentMessage.class, 3, Side.CLIENT);
         networkChannel.registerMessage(new RemoveAttachmentMessageHandler(), RemoveAttachmentMessage.class, 4, Side.CLIENT);
         networkChannel.registerMessage(new SetConnectorPosMessageHandler(), SetConnectorPosMessage.class, 10, Side.CLIENT);
-        networkChannel.registerMessage(new UpdateNetworkMessageHandler(), UpdateNetworkMessage.class, 11, Side.CLIENT);
         networkChannel.registerMessage(new SetAnchorHasCrankMessageHandler(), SetAnchorHasCrankMessage.class, 12, Side.CLIENT);
+        networkChannel.registerMessage(new BatchNetworkMessageHandler(), BatchNetworkMessage.class, 13, Side.CLIENT);
+        networkChannel.registerMessage(new AddNetworkByHashMessageHandler(), AddNetworkByHashMessage.class, 14, Side.CLIENT);
         return networkChannel;
     }
 
@@ -110,9 +112,11 @@ public class ClientProxy extends CommonProxy {
     public void attachWorldCapabilities(AttachCapabilitiesEvent<World> event) {
         World world = event.getObject();
         if (world instanceof WorldClient) {
-            ClientNetworkManager manager = new ClientNetworkManager((WorldClient) world, new NetworkCollection());
+            NetworkCollection networks = new NetworkCollection();
+            ClientNetworkManager manager = new ClientNetworkManager((WorldClient) world, networks);
+            AnchorScheduler scheduler = new AnchorScheduler(networks);
             MinecraftForge.EVENT_BUS.post(new NetworkManagerCreatedEvent(world, manager));
-            event.addCapability(new ResourceLocation(Clothesline.MODID, "networks"), new ClientCapabilityProvider(manager));
+            event.addCapability(new ResourceLocation(Clothesline.MODID, "networks"), new ClientCapabilityProvider(manager, scheduler));
         }
     }
 
@@ -383,7 +387,6 @@ public class ClientProxy extends CommonProxy {
 
     @Nullable
     private NetworkRaytraceHit raytraceEdge(Ray viewRay, INetworkEdge edge, double maxDistanceSq, float partialTicks) {
-        Path.Edge pathEdge = edge.getPathEdge();
         LineProjection projection = LineProjection.create(edge);
         NetworkRaytraceHit hit = null;
 
@@ -405,15 +408,15 @@ public class ClientProxy extends CommonProxy {
             if (nearDelta.lengthSquared() < (1.0D / 16.0D) * (1.0D / 16.0D)) {
                 double rayLengthSquared = (viewNear.subtract(viewRay.from)).lengthSquared();
                 if (rayLengthSquared < maxDistanceSq) {
-                    double offset = pathEdge.getFromOffset() * (1.0D - edgeDeltaScalar) + pathEdge.getToOffset() * edgeDeltaScalar;
+                    double offset = edge.getFromOffset() * (1.0D - edgeDeltaScalar) + edge.getToOffset() * edgeDeltaScalar;
                     hit = new EdgeRaytraceHit(rayLengthSquared, edge, offset);
                 }
             }
         }
 
         INetworkState state = edge.getNetwork().getState();
-        double fromAttachmentKey = state.offsetToAttachmentKey(pathEdge.getFromOffset(), partialTicks);
-        double toAttachmentKey = state.offsetToAttachmentKey(pathEdge.getToOffset(), partialTicks);
+        double fromAttachmentKey = state.offsetToAttachmentKey(edge.getFromOffset(), partialTicks);
+        double toAttachmentKey = state.offsetToAttachmentKey(edge.getToOffset(), partialTicks);
         List<MutableSortedIntMap.Entry<ItemStack>> attachments = state.getAttachmentsInRange((int) fromAttachmentKey, (int) toAttachmentKey);
         if (!attachments.isEmpty()) {
             Vector4f lFrom = new Vector4f();
@@ -492,7 +495,7 @@ public class ClientProxy extends CommonProxy {
                         "",
                         "Network ID: " + network.getId(),
                         "Path index: " + edge.getIndex(),
-                        "Span: " + edge.getPathEdge().getFromOffset() + " to " + edge.getPathEdge().getToOffset()
+                        "Span: " + edge.getFromOffset() + " to " + edge.getToOffset()
                     ));
 
                     if (hit instanceof EdgeRaytraceHit) {
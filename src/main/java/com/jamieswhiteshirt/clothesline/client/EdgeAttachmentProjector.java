@@ -1,9 +1,8 @@
 package com.jamieswhiteshirt.clothesline.client;
 
+import com.jamieswhiteshirt.clothesline.api.EdgeGeometry;
 import com.jamieswhiteshirt.clothesline.api.INetworkEdge;
-import com.jamieswhiteshirt.clothesline.api.Path;
 import com.jamieswhiteshirt.clothesline.api.AttachmentUnit;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.Vec3d;
 import net.minecraftforge.fml.relauncher.Side;
@@ -11,8 +10,6 @@ import net.minecraftforge.fml.relauncher.SideOnly;
 import org.lwjgl.util.vector.Matrix4f;
 import org.lwjgl.util.vector.Vector3f;
 
-import java.util.List;
-
 @SideOnly(Side.CLIENT)
 public final class EdgeAttachmentProjector {
     private final int fromOffset;
@@ -31,42 +28,19 @@ public final class EdgeAttachmentProjector {
         this.toAngleDiff = toAngleDiff;
     }
 
-    private static float floorModAngle(float angle) {
-        if (angle >= 0.0F) {
-            return angle % 360.0F;
-        } else {
-            return 360.0F + (angle % 360.0F);
-        }
-    }
-
-    private static float calculateGlobalAngleY(BlockPos delta) {
-        return floorModAngle((float)Math.toDegrees(Math.atan2(delta.getZ(), delta.getX())));
-    }
-
-
-    private static float angleBetween(Path.Edge a, Path.Edge b) {
-        float angleA = calculateGlobalAngleY(a.getDelta());
-        float angleB = calculateGlobalAngleY(b.getDelta());
-        return floorModAngle(angleA - angleB);
-    }
-
-    public static EdgeAttachmentProjector build(Path.Edge fromPathEdge, Path.Edge pathEdge, Path.Edge toPathEdge, LineProjection projection) {
+    public static EdgeAttachmentProjector build(EdgeGeometry geometry, int fromOffset, int toOffset) {
         return new EdgeAttachmentProjector(
-            pathEdge.getFromOffset(),
-            pathEdge.getToOffset(),
-            projection,
-            calculateGlobalAngleY(pathEdge.getDelta()),
-            angleBetween(fromPathEdge, pathEdge),
-            angleBetween(pathEdge, toPathEdge)
+            fromOffset,
+            toOffset,
+            LineProjection.create(geometry),
+            geometry.getAngleY(),
+            geometry.getFromAngleDiff(),
+            geometry.getToAngleDiff()
         );
     }
 
     public static EdgeAttachmentProjector build(INetworkEdge edge) {
-        int index = edge.getIndex();
-        List<Path.Edge> edges = edge.getNetwork().getState().getPath().getEdges();
-        Path.Edge fromPathEdge = edges.get(Math.floorMod(index - 1, edges.size()));
-        Path.Edge toPathEdge = edges.get(Math.floorMod(index + 1, edges.size()));
-        return EdgeAttachmentProjector.build(fromPathEdge, edge.getPathEdge(), toPathEdge, LineProjection.create(edge));
+        return build(edge.getGeometry(), edge.getFromOffset(), edge.getToOffset());
     }
 
     private float calculateSwingAngle(double momentum, double offset) {
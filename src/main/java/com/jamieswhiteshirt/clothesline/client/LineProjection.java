@@ -1,5 +1,6 @@
 package com.jamieswhiteshirt.clothesline.client;
 
+import com.jamieswhiteshirt.clothesline.api.EdgeGeometry;
 import com.jamieswhiteshirt.clothesline.api.INetworkEdge;
 import com.jamieswhiteshirt.clothesline.api.Line;
 import net.minecraft.util.math.Vec3d;
@@ -50,7 +51,11 @@ public final class LineProjection {
         return new LineProjection(from, rightNormal, upNormal, forward);
     }
 
+    public static LineProjection create(EdgeGeometry geometry) {
+        return new LineProjection(geometry.getFromVec(), geometry.getRight(), geometry.getUp(), geometry.getForward());
+    }
+
     public static LineProjection create(INetworkEdge edge) {
-        return create(edge.getPathEdge().getLine());
+        return create(edge.getGeometry());
     }
 }
@@ -16,16 +16,18 @@ public class SoundNetworkCollectionListener implements INetworkCollectionListene
     private final SoundHandler soundHandler = Minecraft.getMinecraft().getSoundHandler();
 
     private void listenTo(INetworkState state) {
-        for (Path.Node node : state.getPath().getNodes().values()) {
-            ClotheslineRopeSound sound = new ClotheslineRopeSound(state, node);
-            anchorSounds.put(node.getPos(), sound);
+        PackedGraph graph = state.getGraph();
+        for (int i = 0; i < graph.getNodeCount(); i++) {
+            ClotheslineRopeSound sound = new ClotheslineRopeSound(state, i);
+            anchorSounds.put(graph.getNodePos(i), sound);
             soundHandler.playSound(sound);
         }
     }
 
     private void unlistenTo(INetworkState state) {
-        for (BlockPos pos : state.getPath().getNodes().keySet()) {
-            ClotheslineRopeSound sound = anchorSounds.remove(pos);
+        PackedGraph graph = state.getGraph();
+        for (int i = 0; i < graph.getNodeCount(); i++) {
+            ClotheslineRopeSound sound = anchorSounds.remove(graph.getNodePos(i));
             if (sound != null) {
                 soundHandler.stopSound(sound);
             }
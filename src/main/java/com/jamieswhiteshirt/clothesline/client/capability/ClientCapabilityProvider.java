@@ -2,6 +2,7 @@ package com.jamieswhiteshirt.clothesline.client.capability;
 
 import com.jamieswhiteshirt.clothesline.Clothesline;
 import com.jamieswhiteshirt.clothesline.client.impl.ClientNetworkManager;
+import com.jamieswhiteshirt.clothesline.internal.IAnchorScheduler;
 import com.jamieswhiteshirt.clothesline.internal.IWorldEventDispatcher;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.util.EnumFacing;
@@ -17,10 +18,12 @@ import javax.annotation.Nullable;
 @SideOnly(Side.CLIENT)
 public class ClientCapabilityProvider implements ICapabilityProvider {
     private final ClientNetworkManager manager;
+    private final IAnchorScheduler scheduler;
     private final IWorldEventDispatcher eventDispatcher = new IWorldEventDispatcher() {
         @Override
         public void onTick() {
             manager.update();
+            scheduler.update();
         }
 
         @Override
@@ -31,6 +34,10 @@ public class ClientCapabilityProvider implements ICapabilityProvider {
         public void onPlayerUnWatchChunk(EntityPlayerMP player, Chunk chunk) {
         }
 
+        @Override
+        public void onPlayerRequestNetwork(EntityPlayerMP player, int networkId) {
+        }
+
         @Override
         public void onChunkLoaded(int x, int z) {
         }
@@ -38,15 +45,20 @@ public class ClientCapabilityProvider implements ICapabilityProvider {
         @Override
         public void onChunkUnloaded(int x, int z) {
         }
+
+        @Override
+        public void onUnload() {
+        }
     };
 
-    public ClientCapabilityProvider(ClientNetworkManager manager) {
+    public ClientCapabilityProvider(ClientNetworkManager manager, IAnchorScheduler scheduler) {
         this.manager = manager;
+        this.scheduler = scheduler;
     }
 
     @Override
     public boolean hasCapability(@Nonnull Capability<?> capability, @Nullable EnumFacing facing) {
-        return capability == Clothesline.NETWORK_MANAGER_CAPABILITY || capability == Clothesline.WORLD_EVENT_DISPATCHER_CAPABILITY;
+        return capability == Clothesline.NETWORK_MANAGER_CAPABILITY || capability == Clothesline.WORLD_EVENT_DISPATCHER_CAPABILITY || capability == Clothesline.ANCHOR_SCHEDULER_CAPABILITY;
     }
 
     @Nullable
@@ -56,6 +68,8 @@ public class ClientCapabilityProvider implements ICapabilityProvider {
             return Clothesline.NETWORK_MANAGER_CAPABILITY.cast(manager);
         } else if (capability == Clothesline.WORLD_EVENT_DISPATCHER_CAPABILITY) {
             return Clothesline.WORLD_EVENT_DISPATCHER_CAPABILITY.cast(eventDispatcher);
+        } else if (capability == Clothesline.ANCHOR_SCHEDULER_CAPABILITY) {
+            return Clothesline.ANCHOR_SCHEDULER_CAPABILITY.cast(scheduler);
         }
         return null;
     }
@@ -1,15 +1,98 @@
 package com.jamieswhiteshirt.clothesline.client.impl;
 
 import com.jamieswhiteshirt.clothesline.api.*;
+import com.jamieswhiteshirt.clothesline.Clothesline;
+import com.jamieswhiteshirt.clothesline.common.ClotheslineConfig;
 import com.jamieswhiteshirt.clothesline.common.impl.NetworkManager;
+import com.jamieswhiteshirt.clothesline.common.util.BasicNetworkState;
+import com.jamieswhiteshirt.clothesline.common.util.BasicPersistentNetwork;
+import com.jamieswhiteshirt.clothesline.common.util.NetworkContentHash;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
 import net.minecraft.client.multiplayer.WorldClient;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
+import javax.annotation.Nullable;
+import java.util.UUID;
+
 @SideOnly(Side.CLIENT)
 public final class ClientNetworkManager extends NetworkManager {
+    private static final ResourceLocation MOTION_KEY = new ResourceLocation(Clothesline.MODID, "motion");
+    private static final ResourceLocation CACHE_KEY = new ResourceLocation(Clothesline.MODID, "cache");
+
+    private final Int2IntMap motionTicks = new Int2IntOpenHashMap();
+    // Recently removed networks by content hash, least recently removed first
+    private final Long2ObjectLinkedOpenHashMap<BasicPersistentNetwork> cachedNetworks = new Long2ObjectLinkedOpenHashMap<>();
+
     public ClientNetworkManager(WorldClient world, INetworkCollection networks) {
         super(world, networks);
+        networks.addEventListener(MOTION_KEY, new INetworkCollectionListener() {
+            @Override
+            public void onNetworkAdded(INetworkCollection networks, INetwork network) {
+            }
+
+            @Override
+            public void onNetworkRemoved(INetworkCollection networks, INetwork network) {
+                motionTicks.remove(network.getId());
+            }
+        });
+        networks.addEventListener(CACHE_KEY, new INetworkCollectionListener() {
+            @Override
+            public void onNetworkAdded(INetworkCollection networks, INetwork network) {
+            }
+
+            @Override
+            public void onNetworkRemoved(INetworkCollection networks, INetwork network) {
+                cacheNetwork(network);
+            }
+        });
+    }
+
+    private void cacheNetwork(INetwork network) {
+        if (ClotheslineConfig.clientNetworkCacheSize > 0) {
+            BasicNetworkState state = BasicNetworkState.fromAbsolute(network.getState());
+            cachedNetworks.putAndMoveToLast(NetworkContentHash.of(state), new BasicPersistentNetwork(network.getUuid(), state));
+            while (cachedNetworks.size() > ClotheslineConfig.clientNetworkCacheSize) {
+                cachedNetworks.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Removes a network from the cache of recently removed networks and returns it, if a network with the specified
+     * content hash and UUID is cached.
+     * @param contentHash the content hash of the network
+     * @param uuid the UUID of the network
+     * @return the cached network, or null if it is not cached
+     */
+    @Nullable
+    public BasicPersistentNetwork takeCachedNetwork(long contentHash, UUID uuid) {
+        BasicPersistentNetwork network = cachedNetworks.get(contentHash);
+        if (network != null && network.getUuid().equals(uuid)) {
+            cachedNetworks.remove(contentHash);
+            return network;
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if motion sent by the server on the specified tick is not older than the motion last applied to the
+     * network, and records the tick if so. Networks are simulated on the client between motion updates.
+     * @param network the network
+     * @param tick the tick the server sent the motion on
+     * @return true if the motion should be applied
+     */
+    public boolean acceptMotion(INetwork network, int tick) {
+        int id = network.getId();
+        if (motionTicks.containsKey(id) && tick - motionTicks.get(id) < 0) {
+            return false;
+        }
+        motionTicks.put(id, tick);
+        return true;
     }
 
     @Override
@@ -21,6 +104,6 @@ public final class ClientNetworkManager extends NetworkManager {
     }
 
     @Override
-    protected void dropItems(INetworkState state, boolean dropClotheslines) {
+    protected void dropItems(@Nullable EntityLivingBase entity, INetworkState state, boolean dropClotheslines) {
     }
 }
@@ -0,0 +1,44 @@
+package com.jamieswhiteshirt.clothesline.client.network.messagehandler;
+
+import com.jamieswhiteshirt.clothesline.Clothesline;
+import com.jamieswhiteshirt.clothesline.api.INetworkManager;
+import com.jamieswhiteshirt.clothesline.client.impl.ClientNetworkManager;
+import com.jamieswhiteshirt.clothesline.common.network.message.AddNetworkByHashMessage;
+import com.jamieswhiteshirt.clothesline.common.network.message.RequestNetworkMessage;
+import com.jamieswhiteshirt.clothesline.common.util.BasicNetwork;
+import com.jamieswhiteshirt.clothesline.common.util.BasicNetworkState;
+import com.jamieswhiteshirt.clothesline.common.util.BasicPersistentNetwork;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.WorldClient;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import javax.annotation.Nullable;
+
+@SideOnly(Side.CLIENT)
+public class AddNetworkByHashMessageHandler implements IMessageHandler<AddNetworkByHashMessage, IMessage> {
+    @Override
+    @Nullable
+    public IMessage onMessage(AddNetworkByHashMessage message, MessageContext ctx) {
+        Minecraft.getMinecraft().addScheduledTask(() -> {
+            WorldClient world = Minecraft.getMinecraft().world;
+            if (world != null) {
+                INetworkManager manager = world.getCapability(Clothesline.NETWORK_MANAGER_CAPABILITY, null);
+                if (manager instanceof ClientNetworkManager) {
+                    BasicPersistentNetwork cached = ((ClientNetworkManager) manager).takeCachedNetwork(message.contentHash, message.networkUuid);
+                    if (cached != null) {
+                        BasicNetworkState cachedState = cached.getState();
+                        BasicNetworkState state = new BasicNetworkState(message.shift, message.momentum, cachedState.getTree(), cachedState.getAttachments());
+                        manager.getNetworks().add(new BasicNetwork(message.networkId, new BasicPersistentNetwork(cached.getUuid(), state)).toAbsolute());
+                    } else {
+                        Clothesline.instance.networkChannel.sendToServer(new RequestNetworkMessage(message.networkId));
+                    }
+                }
+            }
+        });
+        return null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.jamieswhiteshirt.clothesline.client.network.messagehandler;
+
+import com.jamieswhiteshirt.clothesline.Clothesline;
+import com.jamieswhiteshirt.clothesline.api.INetwork;
+import com.jamieswhiteshirt.clothesline.api.INetworkManager;
+import com.jamieswhiteshirt.clothesline.client.impl.ClientNetworkManager;
+import com.jamieswhiteshirt.clothesline.common.network.message.BatchNetworkMessage;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.WorldClient;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import javax.annotation.Nullable;
+
+@SideOnly(Side.CLIENT)
+public class BatchNetworkMessageHandler implements IMessageHandler<BatchNetworkMessage, IMessage> {
+    @Override
+    @Nullable
+    public IMessage onMessage(BatchNetworkMessage message, MessageContext ctx) {
+        Minecraft.getMinecraft().addScheduledTask(() -> {
+            WorldClient world = Minecraft.getMinecraft().world;
+            if (world != null) {
+                INetworkManager manager = world.getCapability(Clothesline.NETWORK_MANAGER_CAPABILITY, null);
+                if (manager instanceof ClientNetworkManager) {
+                    for (BatchNetworkMessage.Update update : message.updates) {
+                        INetwork network = manager.getNetworks().getById(update.networkId);
+                        if (network != null) {
+                            apply((ClientNetworkManager) manager, network, update);
+                        }
+                    }
+                }
+            }
+        });
+        return null;
+    }
+
+    private void apply(ClientNetworkManager manager, INetwork network, BatchNetworkMessage.Update update) {
+        switch (update.type) {
+            case BatchNetworkMessage.MOTION:
+                if (manager.acceptMotion(network, update.tick)) {
+                    network.setShift(update.shift);
+                    network.setMomentum(update.momentum);
+                }
+                break;
+            case BatchNetworkMessage.SET_ATTACHMENT:
+            case BatchNetworkMessage.REMOVE_ATTACHMENT:
+                network.setAttachment(update.attachmentKey, update.stack);
+                break;
+        }
+    }
+}
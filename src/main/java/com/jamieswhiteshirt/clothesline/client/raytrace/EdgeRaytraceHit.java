@@ -32,7 +32,7 @@ public class EdgeRaytraceHit extends NetworkRaytraceHit {
         int offset = (int) Math.round(this.offset);
         INetwork network = edge.getNetwork();
         int attachmentKey = network.getState().offsetToAttachmentKey(offset);
-        Vec3d pos = edge.getPathEdge().getPositionForOffset(offset);
+        Vec3d pos = edge.getPositionForOffset(offset);
         player.world.playSound(player, pos.x, pos.y, pos.z, SoundEvents.ENTITY_LEASHKNOT_BREAK, SoundCategory.BLOCKS, 1.0F, 1.0F);
         Clothesline.instance.networkChannel.sendToServer(new HitNetworkMessage(network.getId(), attachmentKey, offset));
         return true;
@@ -106,12 +106,11 @@ public final class RenderClotheslineNetwork {
     }
 
     private void renderEdge(IBlockAccess world, INetworkEdge edge, double x, double y, double z, BufferBuilder bufferBuilder, float partialTicks) {
-        Path.Edge ge = edge.getPathEdge();
-        Line line = ge.getLine();
-        int combinedLightFrom = world.getCombinedLight(line.getFromPos(), 0);
-        int combinedLightTo = world.getCombinedLight(line.getToPos(), 0);
+        EdgeGeometry geometry = edge.getGeometry();
+        int combinedLightFrom = world.getCombinedLight(geometry.getFromPos(), 0);
+        int combinedLightTo = world.getCombinedLight(geometry.getToPos(), 0);
         double shift = edge.getNetwork().getState().getShift(partialTicks);
-        renderEdge(ge.getFromOffset() - shift, ge.getToOffset() - shift, combinedLightFrom, combinedLightTo, LineProjection.create(edge), bufferBuilder, x, y, z);
+        renderEdge(edge.getFromOffset() - shift, edge.getToOffset() - shift, combinedLightFrom, combinedLightTo, LineProjection.create(geometry), bufferBuilder, x, y, z);
     }
 
     public void buildAndDrawEdgeQuads(Consumer<BufferBuilder> consumer) {
@@ -153,10 +152,9 @@ public final class RenderClotheslineNetwork {
         FloatBuffer l2wBuffer = GLAllocation.createDirectFloatBuffer(16);
 
         edges.forEach(edge -> {
-            Path.Edge pathEdge = edge.getPathEdge();
             INetworkState state = edge.getNetwork().getState();
-            double fromAttachmentKey = state.offsetToAttachmentKey(pathEdge.getFromOffset(), partialTicks);
-            double toAttachmentKey = state.offsetToAttachmentKey(pathEdge.getToOffset(), partialTicks);
+            double fromAttachmentKey = state.offsetToAttachmentKey(edge.getFromOffset(), partialTicks);
+            double toAttachmentKey = state.offsetToAttachmentKey(edge.getToOffset(), partialTicks);
 
             List<MutableSortedIntMap.Entry<ItemStack>> attachments = state.getAttachmentsInRange((int) fromAttachmentKey, (int) toAttachmentKey);
             if (!attachments.isEmpty()) {
@@ -225,11 +223,12 @@ public final class RenderClotheslineNetwork {
             .values(box -> camera.isBoundingBoxInFrustum(new AxisAlignedBB(box.x1(), box.y1(), box.z1(), box.x2(), box.y2(), box.z2())));
 
         edges.forEach(edge -> {
-            Path.Edge pathEdge = edge.getPathEdge();
-            BlockPos nodePos = pathEdge.getLine().getFromPos();
-            INetworkNode node = nodesMap.get(nodePos);
-            Path.Node pathNode = node.getPathNode();
-            int nodeIndex = pathNode.getEdges().indexOf(pathEdge);
+            INetworkNode node = nodesMap.get(edge.getLine().getFromPos());
+            PackedGraph graph = node.getNetwork().getState().getGraph();
+            int nodeIndex = 0;
+            while (graph.getNodeEdge(node.getIndex(), nodeIndex) != edge.getIndex()) {
+                nodeIndex++;
+            }
             Vec3d pos = LineProjection.create(edge).projectRUF(-0.125D, 0.125D, 0.5D);
             debugRenderText("L" + nodeIndex + " G" + edge.getIndex(), pos.x - x, pos.y - y, pos.z - z, yaw, pitch, fontRenderer);
         });
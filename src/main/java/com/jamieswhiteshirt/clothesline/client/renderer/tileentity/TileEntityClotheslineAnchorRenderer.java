@@ -34,7 +34,7 @@ public class TileEntityClotheslineAnchorRenderer extends TileEntitySpecialRender
         if (node != null) {
             INetwork network = node.getNetwork();
             float shift = network.getState().getShift() * partialTicks + network.getState().getPreviousShift() * (1.0F - partialTicks);
-            crankRotation = -(node.getPathNode().getBaseRotation() + shift) * 360.0F / AttachmentUnit.UNITS_PER_BLOCK;
+            crankRotation = -(node.getBaseRotation() + shift) * 360.0F / AttachmentUnit.UNITS_PER_BLOCK;
         }
         GlStateManager.pushMatrix();
         GlStateManager.translate(x + 0.5D, y + 0.5D, z + 0.5D);
@@ -47,7 +47,7 @@ public class TileEntityClotheslineAnchorRenderer extends TileEntitySpecialRender
         GlStateManager.pushMatrix();
         GlStateManager.scale(2.0D, 2.0D, 2.0D);
         renderItem.renderItem(new ItemStack(ClotheslineItems.CLOTHESLINE_ANCHOR, 1, 1), ItemCameraTransforms.TransformType.FIXED);
-        if (node != null && !node.getNetwork().getState().getTree().isEmpty()) {
+        if (node != null && !node.getNetwork().getState().getGraph().isEmpty()) {
             renderItem.renderItem(new ItemStack(ClotheslineItems.CLOTHESLINE_ANCHOR, 1, 2), ItemCameraTransforms.TransformType.FIXED);
         }
         GlStateManager.popMatrix();
@@ -0,0 +1,94 @@
+package com.jamieswhiteshirt.clothesline.common;
+
+import com.jamieswhiteshirt.clothesline.Clothesline;
+import net.minecraftforge.common.config.Config;
+
+@Config(modid = Clothesline.MODID)
+public final class ClotheslineConfig {
+    @Config.Comment({
+        "Whether changes to the structure of large clothesline networks are computed off the server thread.",
+        "The change is applied on a later tick if the affected networks have not changed in the meantime."
+    })
+    public static boolean asyncTopologyRebuild = true;
+
+    @Config.Comment("The minimum number of edges in the affected clothesline networks for a change to be computed off the server thread.")
+    @Config.RangeInt(min = 0)
+    public static int asyncTopologyRebuildMinEdges = 512;
+
+    @Config.Comment("The number of threads computing changes to the structure of clothesline networks.")
+    @Config.RangeInt(min = 1, max = 16)
+    @Config.RequiresMcRestart
+    public static int topologyRebuildThreads = 1;
+
+    @Config.Comment("Whether clothesline networks are always updated on the server thread.")
+    public static boolean forceSerialNetworkUpdates = false;
+
+    @Config.Comment("The minimum number of clothesline networks in motion for the networks to be updated in parallel.")
+    @Config.RangeInt(min = 0)
+    public static int parallelNetworkUpdateMinNetworks = 1024;
+
+    @Config.Comment("The number of threads updating clothesline networks in parallel.")
+    @Config.RangeInt(min = 1, max = 64)
+    @Config.RequiresMcRestart
+    public static int networkUpdateThreads = 2;
+
+    @Config.Comment({
+        "The number of ticks a clothesline network must stay unloaded before only its saved form is kept in memory.",
+        "The network is decoded again when one of its chunks is loaded."
+    })
+    @Config.RangeInt(min = 1)
+    public static int unloadedNetworkCompactionTicks = 6000;
+
+    @Config.Comment({
+        "The number of ticks between corrections of clothesline networks in motion sent to watching players.",
+        "Players simulate the motion themselves, so corrections are only needed to recover from drift."
+    })
+    @Config.RangeInt(min = 1)
+    public static int networkReconciliationInterval = 40;
+
+    @Config.Comment({
+        "The distance in chunks from a clothesline network within which watching players receive every update.",
+        "The distance is measured to the nearest chunk the network spans."
+    })
+    @Config.RangeInt(min = 0)
+    public static int nearWatcherDistance = 2;
+
+    @Config.Comment({
+        "The distance in chunks from a clothesline network beyond which watching players only receive attachment changes.",
+        "Players between the near and the far distance receive motion updates at a reduced rate."
+    })
+    @Config.RangeInt(min = 0)
+    public static int farWatcherDistance = 6;
+
+    @Config.Comment("The minimum number of ticks between motion updates of clothesline networks sent to players at mid distance.")
+    @Config.RangeInt(min = 1)
+    public static int midWatcherUpdateInterval = 10;
+
+    @Config.Comment("The number of ticks between attachment changes of clothesline networks sent to far players, which are combined in the meantime.")
+    @Config.RangeInt(min = 1)
+    public static int farWatcherUpdateInterval = 40;
+
+    @Config.Comment({
+        "The number of recently removed clothesline networks kept by the client.",
+        "A cached network is added again without receiving it from the server if it has not changed."
+    })
+    @Config.RangeInt(min = 0)
+    public static int clientNetworkCacheSize = 64;
+
+    @Config.Comment("Whether the items dropped by breaking a clothesline network are given to the player breaking it if they fit.")
+    public static boolean dropsIntoBreakerInventory = false;
+
+    @Config.Comment("The size in blocks of the cells in which equal items dropped by breaking a clothesline network are merged.")
+    @Config.RangeInt(min = 1, max = 16)
+    public static int dropClusterSize = 2;
+
+    @Config.Comment({
+        "The number of item entities spawned by breaking a clothesline network above which the items are merged in larger cells.",
+        "Items are never voided, so this may still be exceeded by many distinct items."
+    })
+    @Config.RangeInt(min = 1)
+    public static int maxDropEntities = 64;
+
+    private ClotheslineConfig() {
+    }
+}
@@ -4,10 +4,12 @@ import com.jamieswhiteshirt.clothesline.Clothesline;
 import com.jamieswhiteshirt.clothesline.common.network.message.StopUsingItemOnMessage;
 import com.jamieswhiteshirt.clothesline.common.network.message.HitAttachmentMessage;
 import com.jamieswhiteshirt.clothesline.common.network.message.HitNetworkMessage;
+import com.jamieswhiteshirt.clothesline.common.network.message.RequestNetworkMessage;
 import com.jamieswhiteshirt.clothesline.common.network.message.TryUseItemOnNetworkMessage;
 import com.jamieswhiteshirt.clothesline.common.network.messagehandler.StopUsingItemOnMessageHandler;
 import com.jamieswhiteshirt.clothesline.common.network.messagehandler.HitAttachmentMessageHandler;
 import com.jamieswhiteshirt.clothesline.common.network.messagehandler.HitNetworkMessageHandler;
+import com.jamieswhiteshirt.clothesline.common.network.messagehandler.RequestNetworkMessageHandler;
 import com.jamieswhiteshirt.clothesline.common.network.messagehandler.TryUseItemOnNetworkMessageHandler;
 import net.minecraftforge.fml.common.event.FMLInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
@@ -22,6 +24,7 @@ public abstract class CommonProxy {
         networkChannel.registerMessage(new TryUseItemOnNetworkMessageHandler(), TryUseItemOnNetworkMessage.class, 7, Side.SERVER);
         networkChannel.registerMessage(new HitAttachmentMessageHandler(), HitAttachmentMessage.class, 8, Side.SERVER);
         networkChannel.registerMessage(new StopUsingItemOnMessageHandler(), StopUsingItemOnMessage.class, 9, Side.SERVER);
+        networkChannel.registerMessage(new RequestNetworkMessageHandler(), RequestNetworkMessage.class, 15, Side.SERVER);
         return networkChannel;
     }
 
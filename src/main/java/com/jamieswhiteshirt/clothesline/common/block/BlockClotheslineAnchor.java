@@ -100,6 +100,11 @@ public class BlockClotheslineAnchor extends BlockDirectional {
         if (!canPlaceBlockOnSide(world, pos, state.getValue(FACING))) {
             dropBlockAsItem(world, pos, state, 0);
             world.setBlockToAir(pos);
+        } else {
+            TileEntityClotheslineAnchor tileEntity = getTileEntity(world, pos);
+            if (tileEntity != null) {
+                tileEntity.refreshNeighbour();
+            }
         }
     }
 
@@ -2,8 +2,11 @@ package com.jamieswhiteshirt.clothesline.common.capability;
 
 import com.jamieswhiteshirt.clothesline.Clothesline;
 import com.jamieswhiteshirt.clothesline.api.INetworkManager;
+import com.jamieswhiteshirt.clothesline.common.impl.NetworkShardStorage;
+import com.jamieswhiteshirt.clothesline.common.impl.PlayerNetworkMessenger;
 import com.jamieswhiteshirt.clothesline.common.util.BasicPersistentNetwork;
 import com.jamieswhiteshirt.clothesline.common.util.NBTSerialization;
+import com.jamieswhiteshirt.clothesline.internal.IAnchorScheduler;
 import com.jamieswhiteshirt.clothesline.internal.INetworkCollectionTracker;
 import com.jamieswhiteshirt.clothesline.internal.INetworkProvider;
 import com.jamieswhiteshirt.clothesline.internal.IWorldEventDispatcher;
@@ -18,17 +21,25 @@ import net.minecraftforge.common.capabilities.ICapabilitySerializable;
 import net.minecraftforge.common.util.Constants;
 
 import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.stream.Collectors;
 
 public class ServerCapabilityProvider implements ICapabilitySerializable<NBTBase> {
     private final INetworkManager manager;
     private final INetworkProvider provider;
     private final INetworkCollectionTracker<EntityPlayerMP> tracker;
+    private final IAnchorScheduler scheduler;
+    private final NetworkShardStorage storage;
+    private final PlayerNetworkMessenger messenger;
     private final IWorldEventDispatcher eventDispatcher = new IWorldEventDispatcher() {
         @Override
         public void onTick() {
             manager.update();
             tracker.update();
+            scheduler.update();
+            provider.update();
+            // Everything that changed during the world tick is sent in one message per player
+            messenger.flush();
         }
 
         @Override
@@ -41,6 +52,11 @@ public class ServerCapabilityProvider implements ICapabilitySerializable<NBTBase
             tracker.onUnWatchChunk(player, chunk.x, chunk.z);
         }
 
+        @Override
+        public void onPlayerRequestNetwork(EntityPlayerMP player, int networkId) {
+            tracker.onNetworkRequested(player, networkId);
+        }
+
         @Override
         public void onChunkLoaded(int x, int z) {
             provider.onChunkLoaded(x, z);
@@ -50,17 +66,28 @@ public class ServerCapabilityProvider implements ICapabilitySerializable<NBTBase
         public void onChunkUnloaded(int x, int z) {
             provider.onChunkUnloaded(x, z);
         }
+
+        @Override
+        public void onUnload() {
+            // Rebuilds are flushed before every save, this only completes any that are still computing
+            manager.flushRebuilds();
+            // The world has been saved for the last time, so its shards must be written before it is gone
+            storage.flush();
+        }
     };
 
-    public ServerCapabilityProvider(INetworkManager manager, INetworkProvider provider, INetworkCollectionTracker<EntityPlayerMP> tracker) {
+    public ServerCapabilityProvider(INetworkManager manager, INetworkProvider provider, INetworkCollectionTracker<EntityPlayerMP> tracker, IAnchorScheduler scheduler, NetworkShardStorage storage, PlayerNetworkMessenger messenger) {
         this.manager = manager;
         this.provider = provider;
         this.tracker = tracker;
+        this.scheduler = scheduler;
+        this.storage = storage;
+        this.messenger = messenger;
     }
 
     @Override
     public boolean hasCapability(Capability<?> capability, @Nullable EnumFacing facing) {
-        return capability == Clothesline.NETWORK_MANAGER_CAPABILITY || capability == Clothesline.WORLD_EVENT_DISPATCHER_CAPABILITY;
+        return capability == Clothesline.NETWORK_MANAGER_CAPABILITY || capability == Clothesline.WORLD_EVENT_DISPATCHER_CAPABILITY || capability == Clothesline.ANCHOR_SCHEDULER_CAPABILITY;
     }
 
     @Nullable
@@ -70,6 +97,8 @@ public class ServerCapabilityProvider implements ICapabilitySerializable<NBTBase
             return Clothesline.NETWORK_MANAGER_CAPABILITY.cast(manager);
         } else if (capability == Clothesline.WORLD_EVENT_DISPATCHER_CAPABILITY) {
             return Clothesline.WORLD_EVENT_DISPATCHER_CAPABILITY.cast(eventDispatcher);
+        } else if (capability == Clothesline.ANCHOR_SCHEDULER_CAPABILITY) {
+            return Clothesline.ANCHOR_SCHEDULER_CAPABILITY.cast(scheduler);
         }
         return null;
     }
@@ -94,32 +123,42 @@ public class ServerCapabilityProvider implements ICapabilitySerializable<NBTBase
             version = compound.getInteger("Version");
         }
 
-        if (version < 0 || version > 0) {
-            Clothesline.logger.error("Invalid save data. Expected Version <= 0, found " + version + ". Discarding save data.");
+        if (version < 0 || version > 1) {
+            Clothesline.logger.error("Invalid save data. Expected Version <= 1, found " + version + ". Discarding save data.");
             return;
         }
 
-        if (!compound.hasKey("Networks", Constants.NBT.TAG_LIST)) {
-            Clothesline.logger.error("Invalid save data. Expected list of Networks, found none. Discarding save data.");
-            return;
-        }
+        if (version == 0) {
+            if (!compound.hasKey("Networks", Constants.NBT.TAG_LIST)) {
+                Clothesline.logger.error("Invalid save data. Expected list of Networks, found none. Discarding save data.");
+                return;
+            }
+
+            // All networks are loaded and written to their shards on the next save
+            Clothesline.logger.info("Migrating clothesline networks from Version 0 save data to region shards.");
+            NBTTagList networks = compound.getTagList("Networks", Constants.NBT.TAG_COMPOUND);
+            provider.reset(NBTSerialization.readPersistentNetworks(networks).stream()
+                .map(BasicPersistentNetwork::toAbsolute)
+                .collect(Collectors.toList()));
+        } else {
+            if (!compound.hasKey("Shards", Constants.NBT.TAG_LIST)) {
+                Clothesline.logger.error("Invalid save data. Expected list of Shards, found none. Discarding save data.");
+                return;
+            }
 
-        NBTTagList networks = compound.getTagList("Networks", Constants.NBT.TAG_COMPOUND);
-        provider.reset(NBTSerialization.readPersistentNetworks(networks).stream()
-            .map(BasicPersistentNetwork::toAbsolute)
-            .collect(Collectors.toList()));
+            provider.reset(Collections.emptyList());
+            storage.readIndex(compound.getTagList("Shards", Constants.NBT.TAG_COMPOUND));
+        }
     }
 
     @Override
     public NBTTagCompound serializeNBT() {
         NBTTagCompound compound = new NBTTagCompound();
-        compound.setInteger("Version", 0);
-        compound.setTag(
-            "Networks",
-            NBTSerialization.writePersistentNetworks(provider.getNetworks().stream()
-                .map(BasicPersistentNetwork::fromAbsolute)
-                .collect(Collectors.toList()))
-        );
+        // Networks being rebuilt off the server thread must be saved in their rebuilt form
+        manager.flushRebuilds();
+        provider.save();
+        compound.setInteger("Version", 1);
+        compound.setTag("Shards", storage.writeIndex());
         return compound;
     }
 }
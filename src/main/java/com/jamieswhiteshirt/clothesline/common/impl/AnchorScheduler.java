@@ -0,0 +1,119 @@
+package com.jamieswhiteshirt.clothesline.common.impl;
+
+import com.jamieswhiteshirt.clothesline.api.INetwork;
+import com.jamieswhiteshirt.clothesline.api.INetworkCollection;
+import com.jamieswhiteshirt.clothesline.api.INetworkCollectionListener;
+import com.jamieswhiteshirt.clothesline.api.INetworkNode;
+import com.jamieswhiteshirt.clothesline.api.INetworkState;
+import com.jamieswhiteshirt.clothesline.api.PackedGraph;
+import com.jamieswhiteshirt.clothesline.api.util.MutableSortedIntMap;
+import com.jamieswhiteshirt.clothesline.common.tileentity.TileEntityClotheslineAnchor;
+import com.jamieswhiteshirt.clothesline.internal.IAnchorScheduler;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.*;
+
+/**
+ * Keeps the network nodes of loaded anchors up to date as networks are added and removed, and updates the anchors that
+ * have work to do each tick. Anchors that do nothing are never updated.
+ *
+ * Each tick, the attachments that have passed the scheduled anchors are computed once per moving network and delivered
+ * to the anchors, so the work done scales with the number of attachments passing anchors.
+ */
+public final class AnchorScheduler implements IAnchorScheduler {
+    private static final ResourceLocation LISTENER_KEY = new ResourceLocation("clothesline", "anchors");
+
+    private final INetworkCollection networks;
+    private final Long2ObjectMap<TileEntityClotheslineAnchor> anchors = new Long2ObjectOpenHashMap<>();
+    private final Set<TileEntityClotheslineAnchor> scheduled = new LinkedHashSet<>();
+    private final List<TileEntityClotheslineAnchor> updating = new ArrayList<>();
+    private final Map<INetwork, List<TileEntityClotheslineAnchor>> anchorsByNetwork = new LinkedHashMap<>();
+
+    public AnchorScheduler(INetworkCollection networks) {
+        this.networks = networks;
+
+        networks.addEventListener(LISTENER_KEY, new INetworkCollectionListener() {
+            @Override
+            public void onNetworkAdded(INetworkCollection networks, INetwork network) {
+                PackedGraph graph = network.getState().getGraph();
+                for (int i = 0; i < graph.getNodeCount(); i++) {
+                    TileEntityClotheslineAnchor anchor = anchors.get(graph.getNodePosLong(i));
+                    if (anchor != null) {
+                        anchor.setNetworkNode(networks.getNodes().get(graph.getNodePos(i)));
+                    }
+                }
+            }
+
+            @Override
+            public void onNetworkRemoved(INetworkCollection networks, INetwork network) {
+                PackedGraph graph = network.getState().getGraph();
+                for (int i = 0; i < graph.getNodeCount(); i++) {
+                    TileEntityClotheslineAnchor anchor = anchors.get(graph.getNodePosLong(i));
+                    if (anchor != null) {
+                        INetworkNode node = anchor.getNetworkNode();
+                        if (node != null && node.getNetwork() == network) {
+                            anchor.setNetworkNode(null);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public void load(TileEntityClotheslineAnchor anchor) {
+        BlockPos pos = anchor.getPos();
+        anchors.put(pos.toLong(), anchor);
+        anchor.setNetworkNode(networks.getNodes().get(pos));
+    }
+
+    @Override
+    public void unload(TileEntityClotheslineAnchor anchor) {
+        anchors.remove(anchor.getPos().toLong(), anchor);
+        scheduled.remove(anchor);
+        anchor.setNetworkNode(null);
+    }
+
+    @Override
+    public void setScheduled(TileEntityClotheslineAnchor anchor, boolean scheduled) {
+        if (scheduled) {
+            this.scheduled.add(anchor);
+        } else {
+            this.scheduled.remove(anchor);
+        }
+    }
+
+    @Override
+    public void update() {
+        if (scheduled.isEmpty()) return;
+        // Anchors may be scheduled or unscheduled while updating
+        updating.addAll(scheduled);
+        for (TileEntityClotheslineAnchor anchor : updating) {
+            if (!anchor.isInvalid() && anchor.update()) {
+                INetworkNode node = anchor.getNetworkNode();
+                if (node != null) {
+                    anchorsByNetwork.computeIfAbsent(node.getNetwork(), network -> new ArrayList<>()).add(anchor);
+                }
+            }
+        }
+        updating.clear();
+
+        for (Map.Entry<INetwork, List<TileEntityClotheslineAnchor>> entry : anchorsByNetwork.entrySet()) {
+            INetwork network = entry.getKey();
+            INetworkState state = network.getState();
+            if (state.getShift() == state.getPreviousShift() || state.getAttachments().entries().isEmpty()) continue;
+            for (TileEntityClotheslineAnchor anchor : entry.getValue()) {
+                List<MutableSortedIntMap.Entry<ItemStack>> passing = state.getAttachmentsPassingOffset(anchor.getAttachmentOffset());
+                if (!passing.isEmpty()) {
+                    // The anchor may remove the attachments
+                    anchor.onAttachmentsPassed(network, new ArrayList<>(passing));
+                }
+            }
+        }
+        anchorsByNetwork.clear();
+    }
+}
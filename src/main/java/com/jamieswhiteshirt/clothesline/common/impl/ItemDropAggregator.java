@@ -0,0 +1,183 @@
+package com.jamieswhiteshirt.clothesline.common.impl;
+
+import net.minecraft.entity.item.EntityItem;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Collects the items dropped when a network is broken and spawns them as few item entities as possible. Equal stacks
+ * are merged up to their max stack size within cubic cells of the world, and each merged stack spawns at the position
+ * of its first item, which may be far from the others once cells are coarsened. If this exceeds the entity cap, the
+ * cells are coarsened to chunks, and then to a single cell. Items are never voided, so the cap may still be exceeded by
+ * many distinct items.
+ */
+public final class ItemDropAggregator {
+    public static final class Drop {
+        private final Vec3d pos;
+        private final ItemStack stack;
+
+        private Drop(Vec3d pos, ItemStack stack) {
+            this.pos = pos;
+            this.stack = stack;
+        }
+
+        public Vec3d getPos() {
+            return pos;
+        }
+
+        public ItemStack getStack() {
+            return stack;
+        }
+    }
+
+    private static final class StackKey {
+        private final ItemStack stack;
+
+        private StackKey(ItemStack stack) {
+            this.stack = stack;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ItemStack other = ((StackKey) o).stack;
+            return ItemStack.areItemsEqual(stack, other) && ItemStack.areItemStackTagsEqual(stack, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(stack.getItem(), stack.getMetadata(), stack.getTagCompound());
+        }
+    }
+
+    private static final class Cell {
+        private final List<Drop> stacks = new ArrayList<>();
+        /**
+         * The stack below its max stack size of each kind of item, which is the only one items can be merged into.
+         */
+        private final Map<StackKey, Drop> partialStacks = new HashMap<>();
+
+        private void add(Drop drop) {
+            ItemStack remaining = drop.stack.copy();
+            StackKey key = new StackKey(remaining);
+            Drop partial = partialStacks.get(key);
+            if (partial != null && ItemHandlerHelper.canItemStacksStack(partial.stack, remaining)) {
+                ItemStack stack = partial.stack;
+                int transferred = Math.min(remaining.getCount(), stack.getMaxStackSize() - stack.getCount());
+                stack.grow(transferred);
+                remaining.shrink(transferred);
+                if (stack.getCount() >= stack.getMaxStackSize()) {
+                    partialStacks.remove(key);
+                }
+                if (remaining.isEmpty()) return;
+            }
+            Drop merged = new Drop(drop.pos, remaining);
+            stacks.add(merged);
+            if (remaining.getCount() < remaining.getMaxStackSize()) {
+                partialStacks.put(key, merged);
+            }
+        }
+    }
+
+    private static final int CHUNK_CELL_SIZE = 16;
+
+    private List<Drop> drops = new ArrayList<>();
+
+    public void add(Vec3d pos, ItemStack stack) {
+        if (!stack.isEmpty()) {
+            drops.add(new Drop(pos, stack));
+        }
+    }
+
+    private static BlockPos getCellKey(Vec3d pos, int cellSize) {
+        return new BlockPos(
+            MathHelper.floor(pos.x / cellSize),
+            MathHelper.floor(pos.y / cellSize),
+            MathHelper.floor(pos.z / cellSize)
+        );
+    }
+
+    private static Map<BlockPos, Cell> cluster(List<Drop> drops, int cellSize) {
+        Map<BlockPos, Cell> cells = new LinkedHashMap<>();
+        for (Drop drop : drops) {
+            BlockPos key = cellSize > 0 ? getCellKey(drop.pos, cellSize) : BlockPos.ORIGIN;
+            cells.computeIfAbsent(key, k -> new Cell()).add(drop);
+        }
+        return cells;
+    }
+
+    private static int countStacks(Map<BlockPos, Cell> cells) {
+        return cells.values().stream().mapToInt(cell -> cell.stacks.size()).sum();
+    }
+
+    /**
+     * Gives the collected items to the player. Items that do not fit in the inventory of the player remain collected.
+     * @param player the player
+     */
+    public void giveTo(EntityPlayer player) {
+        List<Drop> remaining = new ArrayList<>(drops.size());
+        for (Drop drop : drops) {
+            ItemStack stack = drop.stack.copy();
+            player.inventory.addItemStackToInventory(stack);
+            if (!stack.isEmpty()) {
+                remaining.add(new Drop(drop.pos, stack));
+            }
+        }
+        drops = remaining;
+    }
+
+    /**
+     * Merges the collected items.
+     * @param cellSize the size in blocks of the cells the items are merged in
+     * @param maxEntities the maximum number of merged stacks if the items can be merged further
+     * @return the merged stacks and where to spawn them
+     */
+    public List<Drop> merge(int cellSize, int maxEntities) {
+        Map<BlockPos, Cell> cells = cluster(drops, cellSize);
+        if (countStacks(cells) > maxEntities && cellSize < CHUNK_CELL_SIZE) {
+            cells = cluster(drops, CHUNK_CELL_SIZE);
+        }
+        if (countStacks(cells) > maxEntities) {
+            cells = cluster(drops, 0);
+        }
+
+        List<Drop> merged = new ArrayList<>();
+        for (Cell cell : cells.values()) {
+            merged.addAll(cell.stacks);
+        }
+        return merged;
+    }
+
+    /**
+     * Spawns the collected items.
+     * @param world the world to spawn the items in
+     * @param player the player the items are given to before spawning what does not fit, or null
+     * @param cellSize the size in blocks of the cells the items are merged in
+     * @param maxEntities the maximum number of item entities to spawn if the items can be merged further
+     */
+    public void spawn(World world, @Nullable EntityPlayer player, int cellSize, int maxEntities) {
+        if (player != null) {
+            giveTo(player);
+        }
+
+        for (Drop drop : merge(cellSize, maxEntities)) {
+            EntityItem entityitem = new EntityItem(world, drop.pos.x, drop.pos.y, drop.pos.z, drop.stack);
+            entityitem.setDefaultPickupDelay();
+            world.spawnEntity(entityitem);
+        }
+    }
+}
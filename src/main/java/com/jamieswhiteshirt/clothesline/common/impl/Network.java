@@ -9,14 +9,20 @@ import net.minecraft.util.EnumHand;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
+import net.minecraftforge.items.IItemHandler;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 public final class Network implements INetwork {
+    private static final ResourceLocation INVENTORY_LISTENER_KEY = new ResourceLocation("clothesline", "inventory");
+
     private final int id;
     private final UUID uuid;
     private final INetworkState state;
     private final Map<ResourceLocation, INetworkListener> eventListeners = new TreeMap<>();
+    @Nullable
+    private NetworkInventory inventory;
 
     public Network(int id, PersistentNetwork persistentNetwork) {
         this.id = id;
@@ -63,7 +69,7 @@ public final class Network implements INetwork {
             setAttachment(attachmentKey, ItemStack.EMPTY);
             World world = player.world;
             if (!world.isRemote && world.getGameRules().getBoolean("doTileDrops")) {
-                Vec3d pos = state.getPath().getPositionForOffset(state.attachmentKeyToOffset(attachmentKey));
+                Vec3d pos = state.getGraph().getPositionForOffset(state.attachmentKeyToOffset(attachmentKey));
                 EntityItem entityitem = new EntityItem(world, pos.x, pos.y - 0.5D, pos.z, stack);
                 entityitem.setDefaultPickupDelay();
                 world.spawnEntity(entityitem);
@@ -111,6 +117,33 @@ public final class Network implements INetwork {
         }
     }
 
+    @Override
+    public IItemHandler getItemHandler() {
+        if (inventory == null) {
+            inventory = new NetworkInventory(this);
+            addEventListener(INVENTORY_LISTENER_KEY, inventory);
+        }
+        return inventory;
+    }
+
+    @Override
+    public void setShift(int shift) {
+        state.setShift(shift);
+
+        for (INetworkListener eventListener : eventListeners.values()) {
+            eventListener.onMotionChanged(this);
+        }
+    }
+
+    @Override
+    public void setMomentum(int momentum) {
+        state.setMomentum(momentum);
+
+        for (INetworkListener eventListener : eventListeners.values()) {
+            eventListener.onMotionChanged(this);
+        }
+    }
+
     @Override
     public void addEventListener(ResourceLocation key, INetworkListener eventListener) {
         eventListeners.put(key, eventListener);
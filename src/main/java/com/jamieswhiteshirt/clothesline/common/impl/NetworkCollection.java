@@ -9,6 +9,7 @@ import com.jamieswhiteshirt.rtree3i.ConfigurationBuilder;
 import com.jamieswhiteshirt.rtree3i.RTreeMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.item.ItemStack;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
@@ -18,6 +19,7 @@ import java.util.*;
 
 public final class NetworkCollection implements INetworkCollection {
     private static final Configuration configuration = new ConfigurationBuilder().star().build();
+    private static final ResourceLocation ACTIVE_LISTENER_KEY = new ResourceLocation("clothesline", "active");
 
     private static <E> RTreeMap<Line, E> createEdgesMap() {
         return RTreeMap.create(configuration, Line::getBox);
@@ -31,6 +33,18 @@ public final class NetworkCollection implements INetworkCollection {
     private final List<INetwork> values = new ArrayList<>();
     private final Int2ObjectMap<INetwork> byId = new Int2ObjectOpenHashMap<>();
     private final Map<UUID, INetwork> byUuid = new HashMap<>();
+    private final Set<INetwork> activeValues = new LinkedHashSet<>();
+    private final Collection<INetwork> unmodifiableActiveValues = Collections.unmodifiableCollection(activeValues);
+    private final INetworkListener activeListener = new INetworkListener() {
+        @Override
+        public void onAttachmentChanged(INetwork network, int attachmentKey, ItemStack previousStack, ItemStack newStack) {
+        }
+
+        @Override
+        public void onMotionChanged(INetwork network) {
+            activeValues.add(network);
+        }
+    };
     private RTreeMap<Line, INetworkEdge> edges = createEdgesMap();
     private RTreeMap<BlockPos, INetworkNode> nodes = createNodesMap();
     private final SetMultimap<Long, INetwork> chunkSpanMap = MultimapBuilder.hashKeys().linkedHashSetValues().build();
@@ -41,6 +55,23 @@ public final class NetworkCollection implements INetworkCollection {
         return values;
     }
 
+    @Override
+    public Collection<INetwork> getActiveValues() {
+        return unmodifiableActiveValues;
+    }
+
+    @Override
+    public void activate(INetwork network) {
+        if (byId.get(network.getId()) == network) {
+            activeValues.add(network);
+        }
+    }
+
+    @Override
+    public void removeNetworksAtRest() {
+        activeValues.removeIf(network -> network.getState().isSimulatedLazily() || !network.getState().isInMotion());
+    }
+
     @Nullable
     @Override
     public INetwork getById(int id) {
@@ -53,18 +84,28 @@ public final class NetworkCollection implements INetworkCollection {
         return byUuid.get(uuid);
     }
 
+    private static Line getEdgeLine(PackedGraph graph, int edge) {
+        return new Line(graph.getNodePos(graph.getEdgeFromNode(edge)), graph.getNodePos(graph.getEdgeToNode(edge)));
+    }
+
     @Override
     public void add(INetwork network) {
         values.add(network);
         byId.put(network.getId(), network);
         byUuid.put(network.getUuid(), network);
+        network.addEventListener(ACTIVE_LISTENER_KEY, activeListener);
+        if (network.getState().isInMotion()) {
+            activeValues.add(network);
+        }
 
-        for (Path.Node pathNode : network.getState().getPath().getNodes().values()) {
-            nodes = nodes.put(pathNode.getPos(), new NetworkNode(network, pathNode));
+        PackedGraph graph = network.getState().getGraph();
+        for (int i = 0; i < graph.getNodeCount(); i++) {
+            BlockPos pos = graph.getNodePos(i);
+            nodes = nodes.put(pos, new NetworkNode(network, i, pos));
         }
-        int i = 0;
-        for (Path.Edge pathEdge : network.getState().getPath().getEdges()) {
-            edges = edges.put(pathEdge.getLine(), new NetworkEdge(network, pathEdge, i++));
+        for (int i = 0; i < graph.getEdgeCount(); i++) {
+            Line line = getEdgeLine(graph, i);
+            edges = edges.put(line, new NetworkEdge(network, i, line, EdgeGeometry.create(graph, i)));
         }
 
         for (long position : network.getState().getChunkSpan()) {
@@ -81,12 +122,15 @@ public final class NetworkCollection implements INetworkCollection {
         values.remove(network);
         byId.remove(network.getId());
         byUuid.remove(network.getUuid());
+        network.removeEventListener(ACTIVE_LISTENER_KEY);
+        activeValues.remove(network);
 
-        for (BlockPos pos : network.getState().getPath().getNodes().keySet()) {
-            nodes = nodes.remove(pos);
+        PackedGraph graph = network.getState().getGraph();
+        for (int i = 0; i < graph.getNodeCount(); i++) {
+            nodes = nodes.remove(graph.getNodePos(i));
         }
-        for (Path.Edge pathEdge : network.getState().getPath().getEdges()) {
-            edges = edges.remove(pathEdge.getLine());
+        for (int i = 0; i < graph.getEdgeCount(); i++) {
+            edges = edges.remove(getEdgeLine(graph, i));
         }
 
         for (long position : network.getState().getChunkSpan()) {
@@ -5,32 +5,62 @@ import com.jamieswhiteshirt.clothesline.internal.INetworkCollectionTracker;
 import com.jamieswhiteshirt.clothesline.internal.INetworkMessenger;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.ChunkPos;
 
-import java.util.Collection;
+import java.util.*;
 import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
 
+/**
+ * Tracks which watchers watch which networks. Chunk watch events are buffered per watcher and processed together once
+ * per tick, so each network is resolved once no matter how many of its chunks were watched, and the networks a watcher
+ * starts watching are sent to it ordered by distance.
+ */
 public final class NetworkCollectionTracker<T> implements INetworkCollectionTracker<T> {
     private static final ResourceLocation LISTENER_KEY = new ResourceLocation("clothesline", "watcher");
+    // The number of ticks between reassignments of watchers to tiers by their distance to the networks they watch
+    private static final int TIER_UPDATE_INTERVAL = 10;
 
     private final INetworkCollection networks;
     private final BiFunction<Integer, Integer, Collection<T>> getChunkWatchers;
+    private final ToLongFunction<T> getWatcherChunk;
     private final INetworkMessenger<T> messenger;
     private final Int2ObjectMap<NetworkTracker<T>> networkTrackers = new Int2ObjectOpenHashMap<>();
+    // Net number of times each chunk was watched (positive) or unwatched (negative) by each watcher since last processed
+    private final Map<T, Long2IntMap> pendingChunks = new LinkedHashMap<>();
+    private int tick = 0;
 
-    public NetworkCollectionTracker(INetworkCollection networks, BiFunction<Integer, Integer, Collection<T>> getChunkWatchers, INetworkMessenger<T> messenger) {
+    /**
+     * @param networks the networks to track
+     * @param getChunkWatchers returns the watchers of a chunk
+     * @param getWatcherChunk returns the position of the chunk a watcher is in, packed as by
+     *                        {@link ChunkPos#asLong(int, int)}
+     * @param messenger the messenger to send network changes to watchers with
+     */
+    public NetworkCollectionTracker(INetworkCollection networks, BiFunction<Integer, Integer, Collection<T>> getChunkWatchers, ToLongFunction<T> getWatcherChunk, INetworkMessenger<T> messenger) {
         this.networks = networks;
         this.getChunkWatchers = getChunkWatchers;
+        this.getWatcherChunk = getWatcherChunk;
         this.messenger = messenger;
 
         networks.addEventListener(LISTENER_KEY, new INetworkCollectionListener() {
             @Override
             public void onNetworkAdded(INetworkCollection networks, INetwork network) {
+                // The chunk watchers of the network include watchers whose events are still pending
+                processPendingChunks();
                 addNetworkWatcher(network);
             }
 
             @Override
             public void onNetworkRemoved(INetworkCollection networks, INetwork network) {
+                processPendingChunks();
                 removeNetworkWatcher(network);
             }
         });
@@ -38,27 +68,116 @@ public final class NetworkCollectionTracker<T> implements INetworkCollectionTrac
 
     @Override
     public void onWatchChunk(T watcher, int x, int z) {
-        for (INetwork network : networks.getNetworksSpanningChunk(x, z)) {
-            networkTrackers.get(network.getId()).addWatcher(watcher);
+        addPendingChunk(watcher, x, z, 1);
+    }
+
+    @Override
+    public boolean isWatched(INetwork network) {
+        NetworkTracker<T> tracker = networkTrackers.get(network.getId());
+        return tracker != null && tracker.isWatched();
+    }
+
+    private void addWatcher(INetwork network, NetworkTracker<T> tracker, T watcher, int count) {
+        boolean wasWatched = tracker.isWatched();
+        tracker.addWatcher(watcher, count);
+        if (!wasWatched) {
+            // The network may be simulated lazily while unwatched
+            networks.activate(network);
         }
     }
 
     @Override
     public void onUnWatchChunk(T watcher, int x, int z) {
-        for (INetwork network : networks.getNetworksSpanningChunk(x, z)) {
-            networkTrackers.get(network.getId()).removeWatcher(watcher);
+        addPendingChunk(watcher, x, z, -1);
+    }
+
+    @Override
+    public void onNetworkRequested(T watcher, int networkId) {
+        NetworkTracker<T> tracker = networkTrackers.get(networkId);
+        if (tracker != null) {
+            tracker.sendNetwork(watcher);
+        }
+    }
+
+    private void addPendingChunk(T watcher, int x, int z, int count) {
+        Long2IntMap chunks = pendingChunks.computeIfAbsent(watcher, key -> new Long2IntOpenHashMap());
+        long position = ChunkPos.asLong(x, z);
+        int pendingCount = chunks.get(position) + count;
+        if (pendingCount != 0) {
+            chunks.put(position, pendingCount);
+        } else {
+            chunks.remove(position);
+        }
+    }
+
+    /**
+     * Applies the pending chunk watch events. For each watcher, the networks spanning the changed chunks are resolved
+     * once. Networks are removed before networks are added, and added networks are sent nearest first.
+     */
+    private void processPendingChunks() {
+        if (pendingChunks.isEmpty()) return;
+        List<Map.Entry<T, Long2IntMap>> entries = new ArrayList<>(pendingChunks.entrySet());
+        pendingChunks.clear();
+
+        for (Map.Entry<T, Long2IntMap> entry : entries) {
+            T watcher = entry.getKey();
+            long watcherChunk = getWatcherChunk.applyAsLong(watcher);
+            int watcherX = (int)watcherChunk;
+            int watcherZ = (int)(watcherChunk >> 32);
+            Object2IntMap<INetwork> counts = new Object2IntOpenHashMap<>();
+            Object2LongMap<INetwork> distances = new Object2LongOpenHashMap<>();
+            distances.defaultReturnValue(Long.MAX_VALUE);
+            for (Long2IntMap.Entry chunk : entry.getValue().long2IntEntrySet()) {
+                int x = (int)chunk.getLongKey();
+                int z = (int)(chunk.getLongKey() >> 32);
+                int count = chunk.getIntValue();
+                long distance = (long)(x - watcherX) * (x - watcherX) + (long)(z - watcherZ) * (z - watcherZ);
+                for (INetwork network : networks.getNetworksSpanningChunk(x, z)) {
+                    // A network being added is already spanning its chunks, but its watchers are read from the chunk
+                    // watchers once it is tracked, which already reflect the pending events
+                    if (!networkTrackers.containsKey(network.getId())) continue;
+                    counts.put(network, counts.getInt(network) + count);
+                    if (count > 0 && distance < distances.getLong(network)) {
+                        distances.put(network, distance);
+                    }
+                }
+            }
+
+            List<INetwork> addedNetworks = new ArrayList<>();
+            for (Object2IntMap.Entry<INetwork> count : counts.object2IntEntrySet()) {
+                if (count.getIntValue() < 0) {
+                    networkTrackers.get(count.getKey().getId()).removeWatcher(watcher, -count.getIntValue());
+                } else if (count.getIntValue() > 0) {
+                    addedNetworks.add(count.getKey());
+                }
+            }
+            addedNetworks.sort(Comparator.comparingLong(distances::getLong));
+            for (INetwork network : addedNetworks) {
+                addWatcher(network, networkTrackers.get(network.getId()), watcher, counts.getInt(network));
+            }
         }
     }
 
     @Override
     public void update() {
-        for (NetworkTracker<T> tracker : networkTrackers.values()) {
-            tracker.update();
+        processPendingChunks();
+        tick++;
+        // Only networks in motion change shift and momentum, networks set at rest are still active in this tick
+        for (INetwork network : networks.getActiveValues()) {
+            NetworkTracker<T> tracker = networkTrackers.get(network.getId());
+            if (tracker != null) {
+                tracker.update(tick);
+            }
+        }
+        if (tick % TIER_UPDATE_INTERVAL == 0) {
+            for (NetworkTracker<T> tracker : networkTrackers.values()) {
+                tracker.updateTiers(tick);
+            }
         }
     }
 
     private void addNetworkWatcher(INetwork network) {
-        NetworkTracker<T> networkTracker = new NetworkTracker<>(network, messenger);
+        NetworkTracker<T> networkTracker = new NetworkTracker<>(network, messenger, getWatcherChunk, tick);
         network.addEventListener(LISTENER_KEY, networkTracker);
         networkTrackers.put(network.getId(), networkTracker);
 
@@ -67,7 +186,7 @@ public final class NetworkCollectionTracker<T> implements INetworkCollectionTrac
             int x = (int)position;
             int z = (int)(position >> 32);
             for (T watcher : getChunkWatchers.apply(x, z)) {
-                networkTracker.addWatcher(watcher);
+                addWatcher(network, networkTracker, watcher, 1);
             }
         }
     }
@@ -1,20 +1,24 @@
 package com.jamieswhiteshirt.clothesline.common.impl;
 
-import com.jamieswhiteshirt.clothesline.api.Path;
+import com.jamieswhiteshirt.clothesline.api.EdgeGeometry;
 import com.jamieswhiteshirt.clothesline.api.INetwork;
 import com.jamieswhiteshirt.clothesline.api.INetworkEdge;
+import com.jamieswhiteshirt.clothesline.api.Line;
+import net.minecraft.util.math.Vec3d;
 
 import java.util.Objects;
 
 public class NetworkEdge implements INetworkEdge {
     private final INetwork network;
-    private final Path.Edge pathEdge;
     private final int index;
+    private final Line line;
+    private final EdgeGeometry geometry;
 
-    public NetworkEdge(INetwork network, Path.Edge pathEdge, int index) {
+    public NetworkEdge(INetwork network, int index, Line line, EdgeGeometry geometry) {
         this.network = network;
-        this.pathEdge = pathEdge;
         this.index = index;
+        this.line = line;
+        this.geometry = geometry;
     }
 
     @Override
@@ -23,13 +27,35 @@ public class NetworkEdge implements INetworkEdge {
     }
 
     @Override
-    public Path.Edge getPathEdge() {
-        return pathEdge;
+    public int getIndex() {
+        return index;
     }
 
     @Override
-    public int getIndex() {
-        return index;
+    public Line getLine() {
+        return line;
+    }
+
+    @Override
+    public int getFromOffset() {
+        return network.getState().getGraph().getEdgeFromOffset(index);
+    }
+
+    @Override
+    public int getToOffset() {
+        return network.getState().getGraph().getEdgeToOffset(index);
+    }
+
+    @Override
+    public Vec3d getPositionForOffset(int offset) {
+        int fromOffset = getFromOffset();
+        double scalar = (double)(offset - fromOffset) / (getToOffset() - fromOffset);
+        return line.getPosition(scalar);
+    }
+
+    @Override
+    public EdgeGeometry getGeometry() {
+        return geometry;
     }
 
     @Override
@@ -38,7 +64,7 @@ public class NetworkEdge implements INetworkEdge {
         if (o == null || getClass() != o.getClass()) return false;
         NetworkEdge edge = (NetworkEdge) o;
         return index == edge.index &&
-            Objects.equals(pathEdge, edge.pathEdge);
+            Objects.equals(network, edge.network);
     }
 
     @Override
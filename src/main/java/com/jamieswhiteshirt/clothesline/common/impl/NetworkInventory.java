@@ -0,0 +1,142 @@
+package com.jamieswhiteshirt.clothesline.common.impl;
+
+import com.jamieswhiteshirt.clothesline.api.AttachmentUnit;
+import com.jamieswhiteshirt.clothesline.api.INetwork;
+import com.jamieswhiteshirt.clothesline.api.INetworkListener;
+import com.jamieswhiteshirt.clothesline.api.INetworkState;
+import com.jamieswhiteshirt.clothesline.api.util.MutableSortedIntMap;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.IItemHandler;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * An item handler for a whole clothesline network. The path is divided into slots of about half a block, in attachment
+ * key order, each of which holds at most one attachment. Occupied slots are counted as attachments change, so empty
+ * slots are found without searching the attachments.
+ */
+public final class NetworkInventory implements IItemHandler, INetworkListener {
+    /**
+     * The approximate length of a slot in attachment units.
+     */
+    public static final int SLOT_LENGTH = AttachmentUnit.UNITS_PER_BLOCK / 2;
+
+    private final INetwork network;
+    private final int pathLength;
+    private final int slots;
+    private final int[] attachmentCounts;
+    private final BitSet freeSlots;
+
+    public NetworkInventory(INetwork network) {
+        this.network = network;
+        INetworkState state = network.getState();
+        this.pathLength = state.getPathLength();
+        this.slots = pathLength / SLOT_LENGTH;
+        this.attachmentCounts = new int[slots];
+        this.freeSlots = new BitSet(slots);
+        freeSlots.set(0, slots);
+        for (MutableSortedIntMap.Entry<ItemStack> entry : state.getAttachments().entries()) {
+            addAttachment(entry.getKey());
+        }
+    }
+
+    /**
+     * Returns the slot containing the specified attachment key.
+     * @param attachmentKey the attachment key, on [0, pathLength)
+     * @param pathLength the length of the path in attachment units
+     * @param slots the number of slots
+     * @return the slot containing the attachment key
+     */
+    public static int getSlotForAttachmentKey(int attachmentKey, int pathLength, int slots) {
+        return (int) ((long) attachmentKey * slots / pathLength);
+    }
+
+    private int getMinAttachmentKey(int slot) {
+        return (int) (((long) slot * pathLength + slots - 1) / slots);
+    }
+
+    private int getMaxAttachmentKey(int slot) {
+        return getMinAttachmentKey(slot + 1);
+    }
+
+    private void addAttachment(int attachmentKey) {
+        int slot = getSlotForAttachmentKey(attachmentKey, pathLength, slots);
+        if (slot < slots && attachmentCounts[slot]++ == 0) {
+            freeSlots.clear(slot);
+        }
+    }
+
+    private void removeAttachment(int attachmentKey) {
+        int slot = getSlotForAttachmentKey(attachmentKey, pathLength, slots);
+        if (slot < slots && --attachmentCounts[slot] == 0) {
+            freeSlots.set(slot);
+        }
+    }
+
+    @Override
+    public void onAttachmentChanged(INetwork network, int attachmentKey, ItemStack previousStack, ItemStack newStack) {
+        if (slots == 0) return;
+        int key = Math.floorMod(attachmentKey, pathLength);
+        if (previousStack.isEmpty() && !newStack.isEmpty()) {
+            addAttachment(key);
+        } else if (!previousStack.isEmpty() && newStack.isEmpty()) {
+            removeAttachment(key);
+        }
+    }
+
+    /**
+     * Returns the first empty slot at or after the specified slot, or -1 if there is none.
+     * @param fromSlot the slot to start searching from
+     * @return the first empty slot at or after the specified slot, or -1
+     */
+    public int getFreeSlot(int fromSlot) {
+        return freeSlots.nextSetBit(fromSlot);
+    }
+
+    @Nullable
+    private MutableSortedIntMap.Entry<ItemStack> getEntry(int slot) {
+        if (attachmentCounts[slot] == 0) return null;
+        List<MutableSortedIntMap.Entry<ItemStack>> entries = network.getState().getAttachments().getInRange(
+            getMinAttachmentKey(slot),
+            getMaxAttachmentKey(slot)
+        );
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    @Override
+    public int getSlots() {
+        return slots;
+    }
+
+    @Nonnull
+    @Override
+    public ItemStack getStackInSlot(int slot) {
+        MutableSortedIntMap.Entry<ItemStack> entry = getEntry(slot);
+        return entry != null ? entry.getValue() : ItemStack.EMPTY;
+    }
+
+    @Nonnull
+    @Override
+    public ItemStack insertItem(int slot, @Nonnull ItemStack stack, boolean simulate) {
+        if (attachmentCounts[slot] != 0) return stack;
+        // Insert in the middle of the slot
+        int attachmentKey = (getMinAttachmentKey(slot) + getMaxAttachmentKey(slot)) / 2;
+        return network.insertItem(attachmentKey, stack, simulate);
+    }
+
+    @Nonnull
+    @Override
+    public ItemStack extractItem(int slot, int amount, boolean simulate) {
+        if (amount <= 0) return ItemStack.EMPTY;
+        MutableSortedIntMap.Entry<ItemStack> entry = getEntry(slot);
+        return entry != null ? network.extractItem(entry.getKey(), simulate) : ItemStack.EMPTY;
+    }
+
+    @Override
+    public int getSlotLimit(int slot) {
+        return 1;
+    }
+}
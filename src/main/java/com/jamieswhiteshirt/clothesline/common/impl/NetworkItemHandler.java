@@ -1,57 +1,56 @@
 package com.jamieswhiteshirt.clothesline.common.impl;
 
 import com.jamieswhiteshirt.clothesline.api.INetwork;
-import com.jamieswhiteshirt.clothesline.api.AttachmentUnit;
-import com.jamieswhiteshirt.clothesline.api.util.MutableSortedIntMap;
+import com.jamieswhiteshirt.clothesline.api.INetworkState;
 import net.minecraft.item.ItemStack;
 import net.minecraftforge.items.IItemHandler;
 
 import javax.annotation.Nonnull;
-import java.util.List;
 
+/**
+ * A view of the item handler of a whole clothesline network of which the first slot is the slot currently at the
+ * specified offset. Slots follow in attachment key order and wrap around.
+ */
 public final class NetworkItemHandler implements IItemHandler {
     private final INetwork network;
-    private final int attachmentKey;
+    private final int offset;
 
-    public NetworkItemHandler(INetwork network, int attachmentKey) {
+    public NetworkItemHandler(INetwork network, int offset) {
         this.network = network;
-        this.attachmentKey = attachmentKey;
+        this.offset = offset;
     }
 
-    @Override
-    public int getSlots() {
-        return 1;
+    private int getNetworkSlot(IItemHandler networkHandler, int slot) {
+        INetworkState state = network.getState();
+        int slots = networkHandler.getSlots();
+        int firstSlot = NetworkInventory.getSlotForAttachmentKey(state.offsetToAttachmentKey(offset), state.getPathLength(), slots);
+        return (firstSlot + slot) % slots;
     }
 
-    private int getCandidateAttachmentKey() {
-        List<MutableSortedIntMap.Entry<ItemStack>> entries = network.getState().getAttachmentsInRange(
-                attachmentKey - AttachmentUnit.UNITS_PER_BLOCK / 2,
-                attachmentKey + AttachmentUnit.UNITS_PER_BLOCK / 2
-        );
-
-        if (entries.isEmpty()) {
-            return attachmentKey;
-        } else {
-            return entries.get(entries.size() / 2).getKey();
-        }
+    @Override
+    public int getSlots() {
+        return network.getItemHandler().getSlots();
     }
 
     @Nonnull
     @Override
     public ItemStack getStackInSlot(int slot) {
-        return network.getState().getAttachment(getCandidateAttachmentKey());
+        IItemHandler networkHandler = network.getItemHandler();
+        return networkHandler.getStackInSlot(getNetworkSlot(networkHandler, slot));
     }
 
     @Nonnull
     @Override
     public ItemStack insertItem(int slot, @Nonnull ItemStack stack, boolean simulate) {
-        return network.insertItem(getCandidateAttachmentKey(), stack, simulate);
+        IItemHandler networkHandler = network.getItemHandler();
+        return networkHandler.insertItem(getNetworkSlot(networkHandler, slot), stack, simulate);
     }
 
     @Nonnull
     @Override
     public ItemStack extractItem(int slot, int amount, boolean simulate) {
-        return network.extractItem(getCandidateAttachmentKey(), simulate);
+        IItemHandler networkHandler = network.getItemHandler();
+        return networkHandler.extractItem(getNetworkSlot(networkHandler, slot), amount, simulate);
     }
 
     @Override
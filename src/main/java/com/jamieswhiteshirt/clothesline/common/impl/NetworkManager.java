@@ -1,28 +1,118 @@
 package com.jamieswhiteshirt.clothesline.common.impl;
 
+import com.jamieswhiteshirt.clothesline.Clothesline;
 import com.jamieswhiteshirt.clothesline.api.*;
+import com.jamieswhiteshirt.clothesline.api.util.MutableSortedIntMap;
 import com.jamieswhiteshirt.clothesline.common.Util;
 import com.jamieswhiteshirt.clothesline.common.util.NetworkStateBuilder;
+import it.unimi.dsi.fastutil.longs.Long2IntAVLTreeMap;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntSortedMap;
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
 import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public abstract class NetworkManager implements INetworkManager {
+    /**
+     * The number of times a rebuild may be computed off the server thread before it is computed on the server thread.
+     */
+    private static final int MAX_ASYNC_ATTEMPTS = 3;
+
+    /**
+     * A network state computed off the server thread from snapshots of the states of its source networks. It may only
+     * replace the source networks if their states are unchanged.
+     */
+    private static final class PendingRebuild {
+        private final BlockPos fromPos;
+        private final BlockPos toPos;
+        private final boolean hadFromNode;
+        private final boolean hadToNode;
+        private final int attempt;
+        private final List<INetwork> sources;
+        private final List<INetworkState> sourceStates;
+        private final int[] sourceVersions;
+        private final CompletableFuture<INetworkState> result;
+
+        private PendingRebuild(BlockPos fromPos, BlockPos toPos, boolean hadFromNode, boolean hadToNode, int attempt, List<INetwork> sources, List<INetworkState> sourceStates, int[] sourceVersions, CompletableFuture<INetworkState> result) {
+            this.fromPos = fromPos;
+            this.toPos = toPos;
+            this.hadFromNode = hadFromNode;
+            this.hadToNode = hadToNode;
+            this.attempt = attempt;
+            this.sources = sources;
+            this.sourceStates = sourceStates;
+            this.sourceVersions = sourceVersions;
+            this.result = result;
+        }
+    }
+
     private final World world;
     private final INetworkCollection networks;
+    @Nullable
+    private final Executor rebuildExecutor;
+    private final List<PendingRebuild> pendingRebuilds = new ArrayList<>();
+    private final List<INetwork> eagerNetworks = new ArrayList<>();
+    private final Long2IntSortedMap powerSources = new Long2IntAVLTreeMap();
+    private final Object2IntLinkedOpenHashMap<INetwork> drives = new Object2IntLinkedOpenHashMap<>();
+    private long tick = 0;
 
     protected NetworkManager(World world, INetworkCollection networks) {
+        this(world, networks, null);
+    }
+
+    protected NetworkManager(World world, INetworkCollection networks, @Nullable Executor rebuildExecutor) {
         this.world = world;
         this.networks = networks;
+        this.rebuildExecutor = rebuildExecutor;
     }
 
     protected abstract void createNetwork(INetworkState networkState);
 
     protected abstract void deleteNetwork(INetwork network);
 
-    protected abstract void dropItems(INetworkState state, boolean dropClotheslines);
+    protected abstract void dropItems(@Nullable EntityLivingBase entity, INetworkState state, boolean dropClotheslines);
+
+    /**
+     * Returns true if a rebuild of networks with the specified total number of edges should be computed off the server
+     * thread. Only called if this manager has an executor for rebuilds.
+     * @param edgeCount the total number of edges of the networks
+     * @return true if the rebuild should be computed off the server thread
+     */
+    protected boolean shouldRebuildAsync(int edgeCount) {
+        return false;
+    }
+
+    /**
+     * Returns true if the network does not need to be updated each tick, in which case it is simulated lazily.
+     * @see INetworkState#simulateLazily(java.util.function.LongSupplier, long)
+     * @param network the network
+     * @return true if the network may be simulated lazily
+     */
+    protected boolean canSimulateLazily(INetwork network) {
+        return false;
+    }
+
+    /**
+     * Returns the pool to update the specified number of networks in, or null to update them on the server thread.
+     * @param networkCount the number of networks to update
+     * @return the pool to update the networks in, or null
+     */
+    @Nullable
+    protected ForkJoinPool getUpdatePool(int networkCount) {
+        return null;
+    }
 
     @Override
     public INetworkCollection getNetworks() {
@@ -32,29 +122,212 @@ public abstract class NetworkManager implements INetworkManager {
     @Override
     public final void update() {
         world.profiler.startSection("tickClotheslines");
-        networks.getValues().forEach(INetwork::update);
+        if (!pendingRebuilds.isEmpty()) {
+            commitRebuilds();
+        }
+        tick++;
+        if (!powerSources.isEmpty()) {
+            applyPower();
+        }
+        // Networks at rest do not change when updated
+        eagerNetworks.clear();
+        for (INetwork network : networks.getActiveValues()) {
+            INetworkState state = network.getState();
+            if (canSimulateLazily(network)) {
+                if (!state.isSimulatedLazily()) {
+                    state.simulateLazily(() -> tick, tick - 1);
+                }
+            } else if (state.isSimulatedLazily()) {
+                // Catching up includes the update of this tick
+                state.simulateEagerly();
+            } else {
+                eagerNetworks.add(network);
+            }
+        }
+        NetworkUpdatePhase.update(eagerNetworks, getUpdatePool(eagerNetworks.size()));
+        networks.removeNetworksAtRest();
         world.profiler.endSection();
     }
 
-    private void extend(INetwork network, BlockPos fromPos, BlockPos toPos) {
-        NetworkStateBuilder stateBuilder = NetworkStateBuilder.fromAbsolute(network.getState());
-        stateBuilder.addEdge(fromPos, toPos);
+    @Override
+    public void setPower(BlockPos pos, int power) {
+        if (power != 0) {
+            powerSources.put(pos.toLong(), power);
+        } else {
+            powerSources.remove(pos.toLong());
+        }
+    }
 
-        deleteNetwork(network);
-        createNetwork(stateBuilder.build());
+    /**
+     * Accumulates the power of all anchors per network and drives each network once.
+     */
+    private void applyPower() {
+        drives.clear();
+        for (Long2IntMap.Entry entry : powerSources.long2IntEntrySet()) {
+            INetworkNode node = networks.getNodes().get(BlockPos.fromLong(entry.getLongKey()));
+            if (node != null) {
+                drives.addTo(node.getNetwork(), entry.getIntValue());
+            }
+        }
+        for (Object2IntMap.Entry<INetwork> entry : drives.object2IntEntrySet()) {
+            INetwork network = entry.getKey();
+            int drive = entry.getIntValue();
+            int momentum = network.getState().getMomentum();
+            if (momentum < drive) {
+                network.setMomentum(momentum + drive / 3);
+            }
+        }
+    }
+
+    private static INetworkState snapshot(INetworkState state) {
+        MutableSortedIntMap<ItemStack> attachments = state.getAttachments();
+        return new NetworkState(
+            state.getPreviousShift(),
+            state.getShift(),
+            state.getPreviousMomentum(),
+            state.getMomentum(),
+            state.getGraph(),
+            state.getChunkSpan(),
+            attachments.shiftedSubMap(0, attachments.getMaxKey())
+        );
+    }
+
+    private static boolean isStationary(INetworkState state) {
+        return state.getMomentum() == 0 && state.getPreviousMomentum() == 0;
+    }
+
+    /**
+     * Replaces the source networks with the network state computed by the function from their states. The function
+     * must not have side effects, as it may be applied to snapshots of the states off the server thread.
+     */
+    private void rebuild(BlockPos fromPos, BlockPos toPos, int attempt, List<INetwork> sources, Function<List<INetworkState>, INetworkState> function) {
+        List<INetworkState> states = sources.stream().map(INetwork::getState).collect(Collectors.toList());
+        // Rotating networks change every tick and would never pass the version check
+        if (rebuildExecutor != null && attempt < MAX_ASYNC_ATTEMPTS && states.stream().allMatch(NetworkManager::isStationary)) {
+            int edgeCount = states.stream().mapToInt(state -> state.getGraph().getEdgeCount()).sum();
+            if (shouldRebuildAsync(edgeCount)) {
+                List<INetworkState> snapshots = states.stream().map(NetworkManager::snapshot).collect(Collectors.toList());
+                int[] versions = states.stream().mapToInt(INetworkState::getVersion).toArray();
+                boolean hasFromNode = networks.getNodes().get(fromPos) != null;
+                boolean hasToNode = networks.getNodes().get(toPos) != null;
+                CompletableFuture<INetworkState> result = CompletableFuture.supplyAsync(() -> function.apply(snapshots), rebuildExecutor);
+                pendingRebuilds.add(new PendingRebuild(fromPos, toPos, hasFromNode, hasToNode, attempt, sources, states, versions, result));
+                return;
+            }
+        }
+
+        for (INetwork source : sources) {
+            deleteNetwork(source);
+        }
+        createNetwork(function.apply(states));
+    }
+
+    private boolean isUnchanged(PendingRebuild rebuild) {
+        for (int i = 0; i < rebuild.sources.size(); i++) {
+            INetwork network = networks.getByUuid(rebuild.sources.get(i).getUuid());
+            INetworkState state = rebuild.sourceStates.get(i);
+            if (network == null || network.getState() != state || state.getVersion() != rebuild.sourceVersions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public final void flushRebuilds() {
+        // Rebuilds retried off the server thread are committed by the next iteration
+        while (!pendingRebuilds.isEmpty()) {
+            for (PendingRebuild rebuild : pendingRebuilds) {
+                rebuild.result.exceptionally(e -> null).join();
+            }
+            commitRebuilds();
+        }
+    }
+
+    private void commitRebuilds() {
+        List<PendingRebuild> completed = new ArrayList<>();
+        Iterator<PendingRebuild> it = pendingRebuilds.iterator();
+        while (it.hasNext()) {
+            PendingRebuild rebuild = it.next();
+            if (rebuild.result.isDone()) {
+                it.remove();
+                completed.add(rebuild);
+            }
+        }
+
+        for (PendingRebuild rebuild : completed) {
+            INetworkState state;
+            try {
+                state = rebuild.result.join();
+            } catch (CompletionException e) {
+                // The function would fail the same way on the server thread, so the rebuild is dropped
+                Clothesline.logger.error("Failed to rebuild clothesline network off the server thread. Dropping the connection.", e.getCause());
+                dropConnection(rebuild);
+                continue;
+            }
+
+            if (isUnchanged(rebuild)) {
+                for (INetwork source : rebuild.sources) {
+                    deleteNetwork(source);
+                }
+                createNetwork(state);
+            } else {
+                retry(rebuild, rebuild.attempt + 1);
+            }
+        }
+    }
+
+    private void retry(PendingRebuild rebuild, int attempt) {
+        BlockPos fromPos = rebuild.fromPos;
+        BlockPos toPos = rebuild.toPos;
+        if (fromPos.equals(toPos)) {
+            connect(fromPos, toPos, attempt);
+            return;
+        }
+
+        // The connection is recomputed on the current networks. If the nodes have changed or the connection is no longer
+        // possible, the clothesline consumed by the connection is dropped instead.
+        boolean hasFromNode = networks.getNodes().get(fromPos) != null;
+        boolean hasToNode = networks.getNodes().get(toPos) != null;
+        if (hasFromNode != rebuild.hadFromNode || hasToNode != rebuild.hadToNode || !connect(fromPos, toPos, attempt)) {
+            dropConnection(rebuild);
+        }
+    }
+
+    /**
+     * Drops the clothesline consumed by the connection of a rebuild that is not applied. Rerooting consumes nothing.
+     */
+    private void dropConnection(PendingRebuild rebuild) {
+        if (!rebuild.fromPos.equals(rebuild.toPos)) {
+            NetworkStateBuilder stateBuilder = NetworkStateBuilder.emptyRoot(0, rebuild.fromPos);
+            stateBuilder.addEdge(rebuild.fromPos, rebuild.toPos);
+            dropItems(null, stateBuilder.build(), true);
+        }
+    }
+
+    private void extend(INetwork network, BlockPos fromPos, BlockPos toPos, int attempt) {
+        rebuild(fromPos, toPos, attempt, Collections.singletonList(network), states -> {
+            NetworkStateBuilder stateBuilder = NetworkStateBuilder.fromAbsolute(states.get(0));
+            stateBuilder.addEdge(fromPos, toPos);
+            return stateBuilder.build();
+        });
     }
 
     @Override
     public final boolean connect(BlockPos fromPos, BlockPos toPos) {
+        return connect(fromPos, toPos, 0);
+    }
+
+    private boolean connect(BlockPos fromPos, BlockPos toPos, int attempt) {
         if (fromPos.equals(toPos)) {
             INetworkNode node = networks.getNodes().get(fromPos);
             if (node != null) {
                 INetwork network = node.getNetwork();
-                NetworkStateBuilder stateBuilder = NetworkStateBuilder.fromAbsolute(network.getState());
-                stateBuilder.reroot(toPos);
-
-                deleteNetwork(network);
-                createNetwork(stateBuilder.build());
+                rebuild(fromPos, toPos, attempt, Collections.singletonList(network), states -> {
+                    NetworkStateBuilder stateBuilder = NetworkStateBuilder.fromAbsolute(states.get(0));
+                    stateBuilder.reroot(toPos);
+                    return stateBuilder.build();
+                });
             }
             return false;
         }
@@ -72,22 +345,20 @@ public abstract class NetworkManager implements INetworkManager {
                     return false;
                 }
 
-                deleteNetwork(fromNetwork);
-                deleteNetwork(toNetwork);
-
-                NetworkStateBuilder fromState = NetworkStateBuilder.fromAbsolute(fromNetwork.getState());
-                NetworkStateBuilder toState = NetworkStateBuilder.fromAbsolute(toNetwork.getState());
-                toState.reroot(toPos);
-                fromState.addSubState(fromPos, toState);
-
-                createNetwork(fromState.build());
+                rebuild(fromPos, toPos, attempt, Arrays.asList(fromNetwork, toNetwork), states -> {
+                    NetworkStateBuilder fromState = NetworkStateBuilder.fromAbsolute(states.get(0));
+                    NetworkStateBuilder toState = NetworkStateBuilder.fromAbsolute(states.get(1));
+                    toState.reroot(toPos);
+                    fromState.addSubState(fromPos, toState);
+                    return fromState.build();
+                });
             } else {
-                extend(fromNetwork, fromPos, toPos);
+                extend(fromNetwork, fromPos, toPos, attempt);
             }
         } else {
             if (toNode != null) {
                 INetwork toNetwork = toNode.getNetwork();
-                extend(toNetwork, toPos, fromPos);
+                extend(toNetwork, toPos, fromPos, attempt);
             } else {
                 NetworkStateBuilder stateBuilder = NetworkStateBuilder.emptyRoot(0, fromPos);
                 stateBuilder.addEdge(fromPos, toPos);
@@ -112,7 +383,7 @@ public abstract class NetworkManager implements INetworkManager {
                 NetworkStateBuilder state = NetworkStateBuilder.fromAbsolute(network.getState());
                 state.reroot(posA);
                 deleteNetwork(network);
-                applySplitResult(state.splitEdge(posB), !Util.isCreativePlayer(entity));
+                applySplitResult(entity, state.splitEdge(posB));
 
                 return true;
             }
@@ -121,11 +392,11 @@ public abstract class NetworkManager implements INetworkManager {
         return false;
     }
 
-    private void applySplitResult(NetworkStateBuilder.SplitResult splitResult, boolean dropClotheslines) {
+    private void applySplitResult(@Nullable EntityLivingBase entity, NetworkStateBuilder.SplitResult splitResult) {
         for (NetworkStateBuilder subState : splitResult.getSubStates()) {
             createNetwork(subState.build());
         }
-        dropItems(splitResult.getState().build(), dropClotheslines);
+        dropItems(entity, splitResult.getState().build(), !Util.isCreativePlayer(entity));
     }
 
     @Override
@@ -142,7 +413,7 @@ public abstract class NetworkManager implements INetworkManager {
             NetworkStateBuilder state = NetworkStateBuilder.fromAbsolute(network.getState());
             state.reroot(pos);
             deleteNetwork(network);
-            applySplitResult(state.splitRoot(), !Util.isCreativePlayer(entity));
+            applySplitResult(entity, state.splitRoot());
         }
     }
 }
@@ -1,18 +1,21 @@
 package com.jamieswhiteshirt.clothesline.common.impl;
 
-import com.jamieswhiteshirt.clothesline.api.Path;
 import com.jamieswhiteshirt.clothesline.api.INetwork;
 import com.jamieswhiteshirt.clothesline.api.INetworkNode;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3i;
 
 import java.util.Objects;
 
 public final class NetworkNode implements INetworkNode {
     private final INetwork network;
-    private final Path.Node pathNode;
+    private final int index;
+    private final BlockPos pos;
 
-    public NetworkNode(INetwork network, Path.Node pathNode) {
+    public NetworkNode(INetwork network, int index, BlockPos pos) {
         this.network = network;
-        this.pathNode = pathNode;
+        this.index = index;
+        this.pos = pos;
     }
 
     @Override
@@ -21,8 +24,23 @@ public final class NetworkNode implements INetworkNode {
     }
 
     @Override
-    public Path.Node getPathNode() {
-        return pathNode;
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public BlockPos getPos() {
+        return pos;
+    }
+
+    @Override
+    public int getBaseRotation() {
+        return network.getState().getGraph().getNodeBaseRotation(index);
+    }
+
+    @Override
+    public int getOffsetForDelta(Vec3i delta) {
+        return network.getState().getGraph().getNodeOffsetForDelta(index, delta);
     }
 
     @Override
@@ -30,12 +48,12 @@ public final class NetworkNode implements INetworkNode {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         NetworkNode node = (NetworkNode) o;
-        return Objects.equals(network, node.network) &&
-            Objects.equals(pathNode, node.pathNode);
+        return index == node.index &&
+            Objects.equals(network, node.network);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(network, pathNode);
+        return Objects.hash(network, index);
     }
 }
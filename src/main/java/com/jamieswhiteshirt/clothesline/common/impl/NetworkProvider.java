@@ -4,31 +4,45 @@ import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.SetMultimap;
 import com.jamieswhiteshirt.clothesline.api.INetwork;
 import com.jamieswhiteshirt.clothesline.api.INetworkCollection;
+import com.jamieswhiteshirt.clothesline.common.ClotheslineConfig;
 import com.jamieswhiteshirt.clothesline.internal.PersistentNetwork;
 import com.jamieswhiteshirt.clothesline.internal.INetworkProvider;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongLinkedOpenHashMap;
+import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.math.ChunkPos;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import javax.annotation.Nullable;
+import java.util.*;
 import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 public final class NetworkProvider implements INetworkProvider {
     private final INetworkCollection networks;
     private final BiPredicate<Integer, Integer> isChunkLoaded;
+    @Nullable
+    private final NetworkShardStorage storage;
     private Map<UUID, NetworkProviderEntry> entryMap = new HashMap<>();
     private SetMultimap<Long, UUID> chunkMap = MultimapBuilder.hashKeys().linkedHashSetValues().build();
+    // Decoded networks that are not loaded, in the order they were unloaded, with the tick they were unloaded on
+    private final Object2LongLinkedOpenHashMap<UUID> unloadedEntries = new Object2LongLinkedOpenHashMap<>();
+    private long tick = 0;
     private int nextNetworkId = 0;
 
     public NetworkProvider(INetworkCollection networks, BiPredicate<Integer, Integer> isChunkLoaded) {
+        this(networks, isChunkLoaded, null);
+    }
+
+    public NetworkProvider(INetworkCollection networks, BiPredicate<Integer, Integer> isChunkLoaded, @Nullable NetworkShardStorage storage) {
         this.networks = networks;
         this.isChunkLoaded = isChunkLoaded;
+        this.storage = storage;
     }
 
     private void chunkLoaded(NetworkProviderEntry entry) {
         if (entry.incrementLoadCount()) {
+            unloadedEntries.removeLong(entry.getUuid());
             Network network = new Network(nextNetworkId++, entry.getPersistentNetwork());
             networks.add(network);
         }
@@ -44,6 +58,10 @@ public final class NetworkProvider implements INetworkProvider {
         nextNetworkId = 0;
         entryMap = new HashMap<>();
         chunkMap = MultimapBuilder.hashKeys().linkedHashSetValues().build();
+        unloadedEntries.clear();
+        if (storage != null) {
+            storage.reset();
+        }
         for (PersistentNetwork persistentNetwork : persistentNetworks) {
             addNetwork(persistentNetwork);
         }
@@ -54,12 +72,77 @@ public final class NetworkProvider implements INetworkProvider {
         return entryMap.values().stream().map(NetworkProviderEntry::getPersistentNetwork).collect(Collectors.toList());
     }
 
+    @Override
+    public NBTTagList writeNetworks() {
+        NBTTagList list = new NBTTagList();
+        for (NetworkProviderEntry entry : entryMap.values()) {
+            list.appendTag(entry.writeToNBT());
+        }
+        return list;
+    }
+
+    @Override
+    public void save() {
+        if (storage == null) return;
+        storage.pollWrites();
+        Long2ObjectMap<List<NetworkProviderEntry>> entriesByShard = new Long2ObjectOpenHashMap<>();
+        for (NetworkProviderEntry entry : entryMap.values()) {
+            entriesByShard.computeIfAbsent(entry.getShardKey(), k -> new ArrayList<>()).add(entry);
+        }
+        for (long shardKey : storage.getLoadedShards().toLongArray()) {
+            List<NetworkProviderEntry> entries = entriesByShard.getOrDefault(shardKey, Collections.emptyList());
+            if (storage.isDirty(shardKey) || entries.stream().anyMatch(NetworkProviderEntry::isEncodingStale)) {
+                storage.saveShard(shardKey, entries);
+            }
+        }
+    }
+
+    @Override
+    public void update() {
+        tick++;
+        List<UUID> retainedEntries = new ArrayList<>();
+        while (!unloadedEntries.isEmpty()) {
+            UUID uuid = unloadedEntries.firstKey();
+            if (tick - unloadedEntries.getLong(uuid) < ClotheslineConfig.unloadedNetworkCompactionTicks) break;
+            unloadedEntries.removeFirstLong();
+            if (!entryMap.get(uuid).compact()) {
+                retainedEntries.add(uuid);
+            }
+        }
+        // The current states of these have not been encoded yet, try again after they have been saved
+        for (UUID uuid : retainedEntries) {
+            unloadedEntries.put(uuid, tick);
+        }
+    }
+
+    private void loadShard(long shardKey) {
+        if (storage != null && !storage.isLoaded(shardKey)) {
+            for (NetworkProviderEntry entry : storage.loadShard(shardKey)) {
+                addEntry(entry);
+            }
+        }
+    }
+
     @Override
     public void addNetwork(PersistentNetwork persistentNetwork) {
-        NetworkProviderEntry entry = new NetworkProviderEntry(persistentNetwork);
-        entryMap.put(persistentNetwork.getUuid(), entry);
-        for (long position : entry.getPersistentNetwork().getState().getChunkSpan()) {
-            chunkMap.put(position, persistentNetwork.getUuid());
+        if (storage != null) {
+            // The shard must be loaded so that saving it does not discard the networks already stored in it
+            long shardKey = NetworkShardStorage.getShardKey(persistentNetwork.getState());
+            loadShard(shardKey);
+            storage.markDirty(shardKey);
+        }
+        addEntry(new NetworkProviderEntry(persistentNetwork));
+    }
+
+    private void addEntry(NetworkProviderEntry entry) {
+        UUID uuid = entry.getUuid();
+        if (entryMap.containsKey(uuid)) return;
+        entryMap.put(uuid, entry);
+        if (entry.isDecoded()) {
+            unloadedEntries.put(uuid, tick);
+        }
+        for (long position : entry.getChunkSpan()) {
+            chunkMap.put(position, uuid);
             // Increment load count if this network spans an already loaded chunk
             if (isChunkLoaded.test((int)position, (int)(position >> 32))) {
                 chunkLoaded(entry);
@@ -70,7 +153,11 @@ public final class NetworkProvider implements INetworkProvider {
     @Override
     public void removeNetwork(UUID uuid) {
         NetworkProviderEntry entry = entryMap.remove(uuid);
-        for (long position : entry.getPersistentNetwork().getState().getChunkSpan()) {
+        if (storage != null) {
+            storage.markDirty(entry.getShardKey());
+        }
+        unloadedEntries.removeLong(uuid);
+        for (long position : entry.getChunkSpan()) {
             chunkMap.remove(position, uuid);
         }
 
@@ -85,6 +172,13 @@ public final class NetworkProvider implements INetworkProvider {
             NetworkProviderEntry entry = entryMap.get(uuid);
             chunkLoaded(entry);
         }
+
+        if (storage != null) {
+            // Networks of newly read shards count the chunk as loaded when they are added
+            for (NetworkProviderEntry entry : storage.loadShardsSpanning(x, z)) {
+                addEntry(entry);
+            }
+        }
     }
 
     @Override
@@ -94,6 +188,7 @@ public final class NetworkProvider implements INetworkProvider {
             NetworkProviderEntry entry = entryMap.get(uuid);
             if (entry.decrementLoadCount()) {
                 networks.removeByUuid(uuid);
+                unloadedEntries.put(uuid, tick);
             }
         }
     }
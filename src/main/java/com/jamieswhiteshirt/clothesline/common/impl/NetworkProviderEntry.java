@@ -1,21 +1,123 @@
 package com.jamieswhiteshirt.clothesline.common.impl;
 
+import com.jamieswhiteshirt.clothesline.common.util.BasicPersistentNetwork;
+import com.jamieswhiteshirt.clothesline.common.util.NBTSerialization;
 import com.jamieswhiteshirt.clothesline.internal.PersistentNetwork;
 import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.nbt.NBTTagCompound;
 
+import javax.annotation.Nullable;
+import java.util.UUID;
+
+/**
+ * A persistent network known to the network provider. Networks read from storage are kept in their encoded form until
+ * the network is first loaded, and may be compacted back into their encoded form while they are not loaded.
+ */
 public final class NetworkProviderEntry {
-    private final PersistentNetwork persistentNetwork;
+    private final UUID uuid;
+    private final long shardKey;
+    private final LongSet chunkSpan;
+    @Nullable
+    private PersistentNetwork persistentNetwork;
     private int loadCount;
+    @Nullable
+    private Encoding encoding;
 
     public NetworkProviderEntry(PersistentNetwork persistentNetwork) {
+        this.uuid = persistentNetwork.getUuid();
+        this.shardKey = NetworkShardStorage.getShardKey(persistentNetwork.getState());
+        this.chunkSpan = persistentNetwork.getState().getChunkSpan();
         this.persistentNetwork = persistentNetwork;
         this.loadCount = 0;
     }
 
+    /**
+     * Creates an entry for an encoded persistent network, which is only decoded when it is first needed.
+     * @param uuid the UUID of the network
+     * @param shardKey the key of the shard the network is stored in
+     * @param chunkSpan the chunk span of the network
+     * @param compound the encoded persistent network
+     */
+    public NetworkProviderEntry(UUID uuid, long shardKey, LongSet chunkSpan, NBTTagCompound compound) {
+        this.uuid = uuid;
+        this.shardKey = shardKey;
+        this.chunkSpan = chunkSpan;
+        this.persistentNetwork = null;
+        this.loadCount = 0;
+        this.encoding = new Encoding(0, chunkSpan, compound);
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public long getShardKey() {
+        return shardKey;
+    }
+
+    public LongSet getChunkSpan() {
+        return chunkSpan;
+    }
+
+    public boolean isDecoded() {
+        return persistentNetwork != null;
+    }
+
+    /**
+     * Returns the persistent network, decoding it if it is only held in encoded form.
+     * @return the persistent network
+     */
     public PersistentNetwork getPersistentNetwork() {
+        if (persistentNetwork == null) {
+            NBTTagCompound compound = encoding.write();
+            persistentNetwork = NBTSerialization.readPersistentNetwork(compound).toAbsolute();
+            encoding = new Encoding(persistentNetwork.getState().getVersion(), chunkSpan, compound);
+        }
         return persistentNetwork;
     }
 
+    /**
+     * Drops the decoded persistent network if its current state has already been encoded, keeping only the encoding.
+     * Must only be called while the network is not loaded.
+     * @return true if the entry is held in encoded form only
+     */
+    public boolean compact() {
+        if (persistentNetwork != null) {
+            if (isEncodingStale() || !encoding.isWritten()) return false;
+            persistentNetwork = null;
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the state of the persistent network has changed since it was last encoded.
+     * @return true if the state of the persistent network has changed since it was last encoded
+     */
+    public boolean isEncodingStale() {
+        return persistentNetwork != null && (encoding == null || encoding.version != persistentNetwork.getState().getVersion());
+    }
+
+    /**
+     * Returns the encoding of the current state of the persistent network. Only a snapshot of the network is taken on
+     * the calling thread; the snapshot is encoded when the encoding is first written, which may be on another thread.
+     * The encoding is reused until the version of the network state changes.
+     * @return the encoding of the current state of the persistent network
+     */
+    public Encoding getEncoding() {
+        if (isEncodingStale()) {
+            encoding = new Encoding(persistentNetwork.getState().getVersion(), chunkSpan, BasicPersistentNetwork.fromAbsolute(persistentNetwork));
+        }
+        return encoding;
+    }
+
+    /**
+     * Encodes the persistent network. The encoding is cached until the version of the network state changes.
+     * @return the encoded persistent network
+     */
+    public NBTTagCompound writeToNBT() {
+        return getEncoding().write();
+    }
+
     public boolean incrementLoadCount() {
         return loadCount++ == 0;
     }
@@ -23,4 +125,45 @@ public final class NetworkProviderEntry {
     public boolean decrementLoadCount() {
         return --loadCount == 0;
     }
+
+    public static final class Encoding {
+        private final int version;
+        private final LongSet chunkSpan;
+        @Nullable
+        private BasicPersistentNetwork snapshot;
+        @Nullable
+        private NBTTagCompound compound;
+
+        private Encoding(int version, LongSet chunkSpan, BasicPersistentNetwork snapshot) {
+            this.version = version;
+            this.chunkSpan = chunkSpan;
+            this.snapshot = snapshot;
+        }
+
+        private Encoding(int version, LongSet chunkSpan, NBTTagCompound compound) {
+            this.version = version;
+            this.chunkSpan = chunkSpan;
+            this.compound = compound;
+        }
+
+        public LongSet getChunkSpan() {
+            return chunkSpan;
+        }
+
+        public synchronized boolean isWritten() {
+            return compound != null;
+        }
+
+        /**
+         * Encodes the snapshot, or returns the compound it was already encoded to. The compound must not be modified.
+         * @return the encoded snapshot
+         */
+        public synchronized NBTTagCompound write() {
+            if (compound == null) {
+                compound = NBTSerialization.writePersistentNetwork(snapshot);
+                snapshot = null;
+            }
+            return compound;
+        }
+    }
 }
@@ -0,0 +1,344 @@
+package com.jamieswhiteshirt.clothesline.common.impl;
+
+import com.jamieswhiteshirt.clothesline.Clothesline;
+import com.jamieswhiteshirt.clothesline.api.INetworkState;
+import com.jamieswhiteshirt.clothesline.common.util.BasicPersistentNetwork;
+import com.jamieswhiteshirt.clothesline.common.util.NBTSerialization;
+import com.jamieswhiteshirt.clothesline.common.util.SortedLongArraySet;
+import it.unimi.dsi.fastutil.longs.*;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraftforge.common.util.Constants;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Stores clothesline networks in compressed files, one per region of 32×32 chunks. A network is stored in the shard of
+ * the region containing its root node. An index of the regions spanned by the networks of each shard is kept in memory
+ * and persisted separately, so the shards of a region are only read when a chunk in the region is first loaded.
+ *
+ * Shards are encoded and written on an executor from snapshots of their networks. Each write goes to a temporary file
+ * which then replaces the shard file, so a shard file is never left partially written. Writes of the same shard are
+ * performed in the order they are requested. Until the write of a shard has completed, the index covers the regions of
+ * both the shard being written and the shard on disk, so an index persisted in the meantime is valid for either.
+ *
+ * Each network is stored together with its chunk span, so networks of a shard can be kept in encoded form until one of
+ * their chunks is loaded.
+ */
+public final class NetworkShardStorage {
+    private static final int REGION_SHIFT = 5;
+    private static final int VERSION = 1;
+
+    private final File directory;
+    private final Executor executor;
+    private final Long2ObjectMap<LongSet> regionsByShard = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<LongSet> shardsByRegion = new Long2ObjectOpenHashMap<>();
+    private final LongSet loadedShards = new LongOpenHashSet();
+    private final LongSet dirtyShards = new LongOpenHashSet();
+    private final Long2ObjectMap<CompletableFuture<Boolean>> pendingWrites = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<LongSet> pendingRegions = new Long2ObjectOpenHashMap<>();
+
+    public NetworkShardStorage(File directory, Executor executor) {
+        this.directory = directory;
+        this.executor = executor;
+    }
+
+    public static long getRegionKey(int chunkX, int chunkZ) {
+        return ChunkPos.asLong(chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT);
+    }
+
+    public static long getShardKey(INetworkState state) {
+        BlockPos rootPos = state.getGraph().getNodePos(0);
+        return getRegionKey(rootPos.getX() >> 4, rootPos.getZ() >> 4);
+    }
+
+    private File getShardFile(long shardKey) {
+        return new File(directory, "r." + (int) shardKey + "." + (int) (shardKey >> 32) + ".dat");
+    }
+
+    /**
+     * Forgets all shards, as if the storage was empty. Pending writes are completed first, but files are not touched
+     * otherwise.
+     */
+    public void reset() {
+        flush();
+        regionsByShard.clear();
+        shardsByRegion.clear();
+        loadedShards.clear();
+        dirtyShards.clear();
+        pendingRegions.clear();
+    }
+
+    private void setShardRegions(long shardKey, LongSet regions) {
+        LongSet previousRegions = regions.isEmpty() ? regionsByShard.remove(shardKey) : regionsByShard.put(shardKey, regions);
+        if (previousRegions != null) {
+            for (long region : previousRegions) {
+                LongSet shards = shardsByRegion.get(region);
+                shards.remove(shardKey);
+                if (shards.isEmpty()) shardsByRegion.remove(region);
+            }
+        }
+        for (long region : regions) {
+            shardsByRegion.computeIfAbsent(region, k -> new LongOpenHashSet()).add(shardKey);
+        }
+    }
+
+    public void readIndex(NBTTagList nbt) {
+        for (int i = 0; i < nbt.tagCount(); i++) {
+            NBTTagCompound compound = nbt.getCompoundTagAt(i);
+            // Regions are stored as pairs of x and z region coordinates
+            int[] coordinates = compound.getIntArray("Regions");
+            LongSet regions = new LongOpenHashSet();
+            for (int j = 0; j + 1 < coordinates.length; j += 2) {
+                regions.add(ChunkPos.asLong(coordinates[j], coordinates[j + 1]));
+            }
+            if (!regions.isEmpty()) {
+                setShardRegions(compound.getLong("Shard"), regions);
+            } else {
+                Clothesline.logger.error("Invalid save data. Expected Regions for clothesline network shard, found none. Skipping shard.");
+            }
+        }
+    }
+
+    public NBTTagList writeIndex() {
+        NBTTagList nbt = new NBTTagList();
+        for (Long2ObjectMap.Entry<LongSet> entry : regionsByShard.long2ObjectEntrySet()) {
+            NBTTagCompound compound = new NBTTagCompound();
+            compound.setLong("Shard", entry.getLongKey());
+            int[] coordinates = new int[entry.getValue().size() * 2];
+            int j = 0;
+            for (long region : entry.getValue()) {
+                coordinates[j++] = (int) region;
+                coordinates[j++] = (int) (region >> 32);
+            }
+            compound.setIntArray("Regions", coordinates);
+            nbt.appendTag(compound);
+        }
+        return nbt;
+    }
+
+    public boolean isLoaded(long shardKey) {
+        return loadedShards.contains(shardKey);
+    }
+
+    public LongSet getLoadedShards() {
+        return loadedShards;
+    }
+
+    public void markDirty(long shardKey) {
+        dirtyShards.add(shardKey);
+    }
+
+    public boolean isDirty(long shardKey) {
+        return dirtyShards.contains(shardKey);
+    }
+
+    /**
+     * Reads the shards with networks spanning the region of the specified chunk that have not been read yet.
+     * @param chunkX the chunk x coordinate
+     * @param chunkZ the chunk z coordinate
+     * @return the entries of the networks of the shards that have been read
+     */
+    public List<NetworkProviderEntry> loadShardsSpanning(int chunkX, int chunkZ) {
+        LongSet shards = shardsByRegion.get(getRegionKey(chunkX, chunkZ));
+        if (shards == null) return Collections.emptyList();
+        List<NetworkProviderEntry> networks = new ArrayList<>();
+        for (long shardKey : shards.toLongArray()) {
+            if (!isLoaded(shardKey)) {
+                networks.addAll(loadShard(shardKey));
+            }
+        }
+        return networks;
+    }
+
+    /**
+     * Reads the specified shard. The shard is considered loaded even if reading fails, in which case it will be
+     * overwritten when saved.
+     * @param shardKey the shard key
+     * @return the entries of the networks of the shard, which are not decoded yet if the shard stores chunk spans
+     */
+    public List<NetworkProviderEntry> loadShard(long shardKey) {
+        loadedShards.add(shardKey);
+        if (!regionsByShard.containsKey(shardKey)) return Collections.emptyList();
+
+        CompletableFuture<Boolean> pendingWrite = pendingWrites.get(shardKey);
+        if (pendingWrite != null) {
+            pendingWrite.join();
+        }
+        File file = getShardFile(shardKey);
+        NBTTagCompound compound;
+        try (InputStream stream = new FileInputStream(file)) {
+            compound = CompressedStreamTools.readCompressed(stream);
+        } catch (IOException e) {
+            Clothesline.logger.error("Failed to read clothesline network shard " + file + ". Discarding shard.", e);
+            return Collections.emptyList();
+        }
+
+        int version = compound.getInteger("Version");
+        if (version < 0 || version > VERSION) {
+            Clothesline.logger.error("Invalid shard data in " + file + ". Expected Version <= " + VERSION + ", found " + version + ". Discarding shard.");
+            return Collections.emptyList();
+        }
+        NBTTagList networksNbt = compound.getTagList("Networks", Constants.NBT.TAG_COMPOUND);
+        List<NetworkProviderEntry> networks = new ArrayList<>(networksNbt.tagCount());
+        if (version == 0) {
+            // Version 0 shards do not store chunk spans, so the networks must be decoded to find them
+            for (BasicPersistentNetwork network : NBTSerialization.readPersistentNetworks(networksNbt)) {
+                networks.add(new NetworkProviderEntry(network.toAbsolute()));
+            }
+        } else {
+            for (int i = 0; i < networksNbt.tagCount(); i++) {
+                NBTTagCompound networkCompound = networksNbt.getCompoundTagAt(i);
+                NBTTagCompound persistentNetwork = networkCompound.getCompoundTag("Network");
+                // Chunks are stored as pairs of x and z chunk coordinates
+                int[] coordinates = networkCompound.getIntArray("Chunks");
+                long[] chunks = new long[coordinates.length / 2];
+                for (int j = 0; j < chunks.length; j++) {
+                    chunks[j] = ChunkPos.asLong(coordinates[j * 2], coordinates[j * 2 + 1]);
+                }
+                networks.add(new NetworkProviderEntry(persistentNetwork.getUniqueId("Uuid"), shardKey, SortedLongArraySet.of(chunks), persistentNetwork));
+            }
+        }
+        return networks;
+    }
+
+    /**
+     * Requests a write of the specified shard, or its deletion if it has no networks, and updates the index. The
+     * networks are snapshotted immediately, but encoded and written on the executor. If the write fails, the shard is
+     * marked dirty again by {@link #pollWrites()}.
+     * @param shardKey the shard key
+     * @param entries the entries of the networks of the shard
+     */
+    public void saveShard(long shardKey, Collection<NetworkProviderEntry> entries) {
+        dirtyShards.remove(shardKey);
+        File file = getShardFile(shardKey);
+        LongSet regions = new LongOpenHashSet();
+        List<NetworkProviderEntry.Encoding> encodings = new ArrayList<>(entries.size());
+        for (NetworkProviderEntry entry : entries) {
+            encodings.add(entry.getEncoding());
+            for (long chunk : entry.getChunkSpan()) {
+                regions.add(getRegionKey((int) chunk, (int) (chunk >> 32)));
+            }
+        }
+        // The regions of the shard on disk are dropped from the index once the write has completed
+        LongSet indexedRegions = regionsByShard.get(shardKey);
+        if (indexedRegions != null) {
+            LongSet unionRegions = new LongOpenHashSet(indexedRegions);
+            unionRegions.addAll(regions);
+            setShardRegions(shardKey, unionRegions);
+        } else {
+            setShardRegions(shardKey, regions);
+        }
+        pendingRegions.put(shardKey, regions);
+
+        CompletableFuture<Boolean> previousWrite = pendingWrites.get(shardKey);
+        CompletableFuture<Boolean> write = previousWrite != null ?
+            previousWrite.thenApplyAsync(previousResult -> writeShard(file, encodings), executor) :
+            CompletableFuture.supplyAsync(() -> writeShard(file, encodings), executor);
+        CompletableFuture<Boolean> pendingWrite = write.exceptionally(e -> {
+            Clothesline.logger.error("Failed to write clothesline network shard " + file, e);
+            return false;
+        });
+        if (pendingWrite.isDone()) {
+            pendingWrites.remove(shardKey);
+            completeWrite(shardKey, pendingWrite);
+        } else {
+            pendingWrites.put(shardKey, pendingWrite);
+        }
+    }
+
+    private boolean writeShard(File file, List<NetworkProviderEntry.Encoding> encodings) {
+        if (encodings.isEmpty()) {
+            if (file.exists() && !file.delete()) {
+                Clothesline.logger.error("Failed to delete empty clothesline network shard " + file);
+                return false;
+            }
+            return true;
+        }
+
+        NBTTagList networks = new NBTTagList();
+        for (NetworkProviderEntry.Encoding encoding : encodings) {
+            NBTTagCompound networkCompound = new NBTTagCompound();
+            networkCompound.setTag("Network", encoding.write());
+            int[] coordinates = new int[encoding.getChunkSpan().size() * 2];
+            int j = 0;
+            for (long chunk : encoding.getChunkSpan()) {
+                coordinates[j++] = (int) chunk;
+                coordinates[j++] = (int) (chunk >> 32);
+            }
+            networkCompound.setIntArray("Chunks", coordinates);
+            networks.appendTag(networkCompound);
+        }
+        NBTTagCompound compound = new NBTTagCompound();
+        compound.setInteger("Version", VERSION);
+        compound.setTag("Networks", networks);
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Clothesline.logger.error("Failed to create clothesline network shard directory " + directory);
+            return false;
+        }
+        File tempFile = new File(file.getPath() + ".tmp");
+        try {
+            try (OutputStream stream = new FileOutputStream(tempFile)) {
+                CompressedStreamTools.writeCompressed(compound, stream);
+            }
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Clothesline.logger.error("Failed to write clothesline network shard " + file, e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Forgets completed writes, marking the shards of failed writes dirty so they are written again on the next save.
+     * The index of shards with successful writes is narrowed down to the regions of the written shard.
+     */
+    public void pollWrites() {
+        ObjectIterator<Long2ObjectMap.Entry<CompletableFuture<Boolean>>> it = pendingWrites.long2ObjectEntrySet().iterator();
+        while (it.hasNext()) {
+            Long2ObjectMap.Entry<CompletableFuture<Boolean>> entry = it.next();
+            CompletableFuture<Boolean> write = entry.getValue();
+            if (write.isDone()) {
+                completeWrite(entry.getLongKey(), write);
+                it.remove();
+            }
+        }
+    }
+
+    private void completeWrite(long shardKey, CompletableFuture<Boolean> write) {
+        LongSet regions = pendingRegions.remove(shardKey);
+        if (!write.getNow(false)) {
+            dirtyShards.add(shardKey);
+        } else if (regions != null) {
+            setShardRegions(shardKey, regions);
+        }
+    }
+
+    /**
+     * Waits for all pending writes to complete.
+     */
+    public void flush() {
+        for (CompletableFuture<Boolean> write : pendingWrites.values()) {
+            write.join();
+        }
+        pollWrites();
+    }
+}
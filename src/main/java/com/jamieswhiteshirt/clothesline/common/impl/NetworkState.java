@@ -1,5 +1,6 @@
 package com.jamieswhiteshirt.clothesline.common.impl;
 
+import com.jamieswhiteshirt.clothesline.api.PackedGraph;
 import com.jamieswhiteshirt.clothesline.api.Path;
 import com.jamieswhiteshirt.clothesline.api.INetworkState;
 import com.jamieswhiteshirt.clothesline.api.Tree;
@@ -8,7 +9,10 @@ import com.jamieswhiteshirt.clothesline.api.util.MutableSortedIntMap;
 import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.item.ItemStack;
 
+import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.LongSupplier;
 
 /**
  * State container for a network.
@@ -21,15 +25,24 @@ public final class NetworkState implements INetworkState {
     private int shift;
     private int previousMomentum;
     private int momentum;
+    private int version;
+    private int attachmentsVersion;
+    /**
+     * The clock of a state that is simulated lazily, or null if the state is updated every tick.
+     */
+    @Nullable
+    private LongSupplier lazyClock;
+    /**
+     * The tick of the lazy clock up to which the state has been simulated.
+     */
+    private long lazyTick;
 
-    private final Tree tree;
-    private final Path path;
+    private final PackedGraph graph;
     private final LongSet chunkSpan;
     private final MutableSortedIntMap<ItemStack> attachments;
 
-    public NetworkState(int previousShift, int shift, int previousMomentum, int momentum, Tree tree, Path path, LongSet chunkSpan, MutableSortedIntMap<ItemStack> attachments) {
-        this.tree = tree;
-        this.path = path;
+    public NetworkState(int previousShift, int shift, int previousMomentum, int momentum, PackedGraph graph, LongSet chunkSpan, MutableSortedIntMap<ItemStack> attachments) {
+        this.graph = graph;
         this.chunkSpan = chunkSpan;
         this.attachments = attachments;
         this.previousShift = previousShift;
@@ -42,14 +55,19 @@ public final class NetworkState implements INetworkState {
         return Math.floorMod(i, getPathLength());
     }
 
+    @Override
+    public PackedGraph getGraph() {
+        return graph;
+    }
+
     @Override
     public Tree getTree() {
-        return tree;
+        return graph.toTree();
     }
 
     @Override
     public Path getPath() {
-        return path;
+        return graph.toPath();
     }
 
     @Override
@@ -67,6 +85,25 @@ public final class NetworkState implements INetworkState {
         return attachments.getInRange(lengthMod(minAttachmentKey), lengthMod(maxAttachmentKey));
     }
 
+    @Override
+    public List<MutableSortedIntMap.Entry<ItemStack>> getAttachmentsPassingOffset(int offset) {
+        int delta = getShift() - getPreviousShift();
+        if (delta == 0) {
+            return Collections.emptyList();
+        }
+        if (Math.abs(delta) >= getPathLength()) {
+            return attachments.entries();
+        }
+
+        // The attachments that were less than the distance moved away from reaching the offset
+        int attachmentKey = offsetToAttachmentKey(offset);
+        if (delta > 0) {
+            return getAttachmentsInRange(attachmentKey, attachmentKey + delta);
+        } else {
+            return getAttachmentsInRange(attachmentKey + delta + 1, attachmentKey + 1);
+        }
+    }
+
     @Override
     public ItemStack getAttachment(int attachmentKey) {
         ItemStack result = attachments.get(lengthMod(attachmentKey));
@@ -84,10 +121,66 @@ public final class NetworkState implements INetworkState {
         } else {
             attachments.put(lengthMod(attachmentKey), stack);
         }
+        version++;
+        attachmentsVersion++;
+    }
+
+    private static int momentumAfter(int momentum, long ticks) {
+        return Integer.signum(momentum) * (int) Math.max(Math.abs(momentum) - ticks, 0L);
+    }
+
+    private static int shiftAfter(int shift, int momentum, long ticks) {
+        // Momentum decays by one each tick before it is added to the shift, so the shift grows by the arithmetic series
+        // (|m| - 1) + (|m| - 2) + ... until the momentum reaches zero
+        int speed = Math.abs(momentum);
+        int n = (int) Math.min(ticks, speed);
+        return shift + Integer.signum(momentum) * (n * speed - n * (n + 1) / 2);
+    }
+
+    /**
+     * Simulates the ticks that have passed on the lazy clock since the state was last simulated, in closed form.
+     */
+    private void catchUp() {
+        if (lazyClock != null) {
+            long now = lazyClock.getAsLong();
+            long ticks = now - lazyTick;
+            if (ticks > 0) {
+                lazyTick = now;
+                if (inMotion()) {
+                    version++;
+                    previousShift = shiftAfter(shift, momentum, ticks - 1);
+                    previousMomentum = momentumAfter(momentum, ticks - 1);
+                    shift = shiftAfter(shift, momentum, ticks);
+                    momentum = momentumAfter(momentum, ticks);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void simulateLazily(LongSupplier clock, long tick) {
+        catchUp();
+        lazyClock = clock;
+        lazyTick = tick;
+    }
+
+    @Override
+    public void simulateEagerly() {
+        catchUp();
+        lazyClock = null;
+    }
+
+    @Override
+    public boolean isSimulatedLazily() {
+        return lazyClock != null;
     }
 
     @Override
     public void update() {
+        catchUp();
+        if (momentum != 0 || previousMomentum != 0 || previousShift != shift) {
+            version++;
+        }
         previousMomentum = momentum;
         previousShift = shift;
 
@@ -102,52 +195,83 @@ public final class NetworkState implements INetworkState {
 
     @Override
     public int getShift() {
+        catchUp();
         return shift;
     }
 
     @Override
     public void setShift(int shift) {
+        catchUp();
         this.shift = shift;
+        version++;
     }
 
     @Override
     public int getPreviousShift() {
+        catchUp();
         return previousShift;
     }
 
     @Override
     public double getShift(float partialTicks) {
+        catchUp();
         return previousShift + (shift - previousShift) * partialTicks;
     }
 
     @Override
     public int getMomentum() {
+        catchUp();
         return momentum;
     }
 
     @Override
     public void setMomentum(int momentum) {
+        catchUp();
         this.momentum = Math.min(Math.max(momentum, -MAX_MOMENTUM), MAX_MOMENTUM);
+        version++;
     }
 
     @Override
     public int getPreviousMomentum() {
+        catchUp();
         return previousMomentum;
     }
 
     @Override
     public double getMomentum(float partialTicks) {
+        catchUp();
         return previousMomentum + (momentum - previousMomentum) * partialTicks;
     }
 
+    @Override
+    public int getVersion() {
+        catchUp();
+        return version;
+    }
+
+    @Override
+    public int getAttachmentsVersion() {
+        return attachmentsVersion;
+    }
+
+    private boolean inMotion() {
+        return momentum != 0 || previousMomentum != 0 || shift != previousShift;
+    }
+
+    @Override
+    public boolean isInMotion() {
+        catchUp();
+        return inMotion();
+    }
+
     @Override
     public int getPathLength() {
-        return path.getLength();
+        return graph.getLength();
     }
 
     @Override
     public int offsetToAttachmentKey(int offset) {
-        return Math.floorMod(offset - shift, getPathLength());
+        return Math.floorMod(offset - getShift(), getPathLength());
     }
 
     @Override
@@ -157,7 +281,7 @@ public final class NetworkState implements INetworkState {
 
     @Override
     public int attachmentKeyToOffset(int attachmentKey) {
-        return Math.floorMod(attachmentKey + shift, getPathLength());
+        return Math.floorMod(attachmentKey + getShift(), getPathLength());
     }
 
     @Override
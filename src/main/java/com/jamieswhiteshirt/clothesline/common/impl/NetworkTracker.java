@@ -1,65 +1,235 @@
 package com.jamieswhiteshirt.clothesline.common.impl;
 
-import com.google.common.collect.LinkedHashMultiset;
-import com.google.common.collect.Multiset;
 import com.jamieswhiteshirt.clothesline.api.INetwork;
 import com.jamieswhiteshirt.clothesline.api.INetworkListener;
+import com.jamieswhiteshirt.clothesline.api.INetworkState;
+import com.jamieswhiteshirt.clothesline.common.ClotheslineConfig;
 import com.jamieswhiteshirt.clothesline.internal.INetworkMessenger;
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import net.minecraft.item.ItemStack;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Tracks the watchers of a network and keeps them in sync with it. Watchers simulate the motion of the network
+ * themselves, so shift and momentum are only sent when they are changed from outside the simulation, when the network
+ * comes to rest, and periodically to reconcile any drift.
+ *
+ * How closely a watcher is kept in sync depends on its distance to the nearest chunk the network spans. Near watchers
+ * receive every update. Mid-distance watchers receive motion updates at most once every
+ * {@link ClotheslineConfig#midWatcherUpdateInterval} ticks. Far watchers receive no motion updates, and their attachment
+ * changes are coalesced and sent once every {@link ClotheslineConfig#farWatcherUpdateInterval} ticks. Watchers moving
+ * closer are brought up to date immediately.
+ */
 public final class NetworkTracker<T> implements INetworkListener {
+    enum Tier {
+        NEAR,
+        MID,
+        FAR
+    }
+
+    private static final class WatcherState {
+        private int chunkCount;
+        private Tier tier;
+        private boolean motionPending = false;
+        private int lastMotionTick;
+        private final Int2ObjectMap<ItemStack> pendingAttachments = new Int2ObjectLinkedOpenHashMap<>();
+
+        private WatcherState(Tier tier, int tick) {
+            this.tier = tier;
+            this.lastMotionTick = tick;
+        }
+    }
+
     private final INetwork network;
     private final INetworkMessenger<T> messenger;
-    private final Multiset<T> watchers = LinkedHashMultiset.create();
-    private int lastShift;
-    private int lastMomentum;
+    private final ToLongFunction<T> getWatcherChunk;
+    private final Map<T, WatcherState> watchers = new LinkedHashMap<>();
+    private boolean motionChanged = false;
+    private int lastSyncTick;
+    private int lastFarSyncTick;
+    private int tick;
 
-    public NetworkTracker(INetwork network, INetworkMessenger<T> messenger) {
+    public NetworkTracker(INetwork network, INetworkMessenger<T> messenger, ToLongFunction<T> getWatcherChunk, int tick) {
         this.network = network;
         this.messenger = messenger;
-        this.lastShift= network.getState().getShift();
-        this.lastMomentum = network.getState().getMomentum();
+        this.getWatcherChunk = getWatcherChunk;
+        this.lastSyncTick = tick;
+        this.lastFarSyncTick = tick;
+        this.tick = tick;
+    }
+
+    @Override
+    public void onMotionChanged(INetwork network) {
+        motionChanged = true;
     }
 
     @Override
     public void onAttachmentChanged(INetwork network, int attachmentKey, ItemStack previousStack, ItemStack newStack) {
         if (!ItemStack.areItemStacksEqual(previousStack, newStack)) {
-            for (T watcher : watchers.elementSet()) {
-                messenger.setAttachment(watcher, network, attachmentKey, newStack);
+            for (Map.Entry<T, WatcherState> entry : watchers.entrySet()) {
+                if (entry.getValue().tier == Tier.FAR) {
+                    entry.getValue().pendingAttachments.put(attachmentKey, newStack);
+                } else {
+                    messenger.setAttachment(entry.getKey(), network, attachmentKey, newStack);
+                }
             }
         }
     }
 
-    public void addWatcher(T watcher) {
-        if (watchers.add(watcher, 1) == 0) {
+    /**
+     * Adds a watcher for a number of chunks the network spans, sending the network to it if it was not yet watching.
+     * @param watcher the watcher
+     * @param count the number of chunks
+     */
+    public void addWatcher(T watcher, int count) {
+        WatcherState state = watchers.get(watcher);
+        if (state == null) {
+            state = new WatcherState(getTier(watcher), tick);
+            watchers.put(watcher, state);
             messenger.addNetwork(watcher, network);
         }
+        state.chunkCount += count;
     }
 
-    public void removeWatcher(T watcher) {
-        if (watchers.remove(watcher, 1) == 1) {
-            messenger.removeNetwork(watcher, network);
+    /**
+     * Removes a watcher for a number of chunks the network spans, removing the network from it if it no longer watches
+     * any of them.
+     * @param watcher the watcher
+     * @param count the number of chunks
+     */
+    public void removeWatcher(T watcher, int count) {
+        WatcherState state = watchers.get(watcher);
+        if (state != null) {
+            state.chunkCount -= count;
+            if (state.chunkCount <= 0) {
+                watchers.remove(watcher);
+                messenger.removeNetwork(watcher, network);
+            }
+        }
+    }
+
+    /**
+     * Sends the full state of the network to a watcher, if it is watching the network.
+     * @param watcher the watcher
+     */
+    public void sendNetwork(T watcher) {
+        if (watchers.containsKey(watcher)) {
+            messenger.sendNetwork(watcher, network);
         }
     }
 
+    public boolean isWatched() {
+        return !watchers.isEmpty();
+    }
+
     public void clear() {
-        for (T watcher : watchers.elementSet()) {
+        for (T watcher : watchers.keySet()) {
             messenger.removeNetwork(watcher, network);
         }
         watchers.clear();
     }
 
-    public void update() {
-        int shift = network.getState().getShift();
-        int momentum = network.getState().getMomentum();
+    /**
+     * Sends the shift and momentum of the network to the watchers if they may have diverged from it. Mid-distance
+     * watchers may receive it on a later tick.
+     * @param tick the current tick, which the watchers receive with the shift and momentum
+     */
+    public void update(int tick) {
+        this.tick = tick;
+        INetworkState state = network.getState();
+        int momentum = state.getMomentum();
+        boolean cameToRest = momentum == 0 && state.getPreviousMomentum() != 0;
+        boolean reconcile = momentum != 0 && tick - lastSyncTick >= ClotheslineConfig.networkReconciliationInterval;
+
+        if (motionChanged || cameToRest || reconcile) {
+            for (WatcherState watcherState : watchers.values()) {
+                watcherState.motionPending = true;
+            }
+            motionChanged = false;
+            lastSyncTick = tick;
+        }
+        sendPendingMotion();
+    }
+
+    /**
+     * Reassigns the watchers to tiers by their distance to the network, and sends the updates held back from them that
+     * are due. Watchers moving to a closer tier receive everything held back from them immediately.
+     * @param tick the current tick
+     */
+    public void updateTiers(int tick) {
+        this.tick = tick;
+        boolean farSyncDue = tick - lastFarSyncTick >= ClotheslineConfig.farWatcherUpdateInterval;
+        for (Map.Entry<T, WatcherState> entry : watchers.entrySet()) {
+            T watcher = entry.getKey();
+            WatcherState state = entry.getValue();
+            Tier tier = getTier(watcher);
+            boolean leftFarTier = state.tier == Tier.FAR && tier != Tier.FAR;
+            state.tier = tier;
+            if (tier != Tier.FAR || farSyncDue) {
+                sendPendingAttachments(watcher, state);
+            }
+            if (leftFarTier) {
+                // Far watchers receive no motion updates, so their shift and momentum may be far behind
+                sendMotion(watcher, state);
+            }
+        }
+        if (farSyncDue) {
+            lastFarSyncTick = tick;
+        }
+        sendPendingMotion();
+    }
 
-        if (shift != lastShift || momentum != lastMomentum) {
-            for (T watcher : watchers.elementSet()) {
-                messenger.setShiftAndMomentum(watcher, network, shift, momentum);
+    private void sendPendingMotion() {
+        for (Map.Entry<T, WatcherState> entry : watchers.entrySet()) {
+            WatcherState watcherState = entry.getValue();
+            if (watcherState.motionPending && isMotionDue(watcherState)) {
+                sendMotion(entry.getKey(), watcherState);
             }
+        }
+    }
 
-            lastShift = shift;
-            lastMomentum = momentum;
+    private void sendMotion(T watcher, WatcherState watcherState) {
+        INetworkState state = network.getState();
+        messenger.setShiftAndMomentum(watcher, network, tick, state.getShift(), state.getMomentum());
+        watcherState.motionPending = false;
+        watcherState.lastMotionTick = tick;
+    }
+
+    private boolean isMotionDue(WatcherState state) {
+        switch (state.tier) {
+            case NEAR:
+                return true;
+            case MID:
+                return tick - state.lastMotionTick >= ClotheslineConfig.midWatcherUpdateInterval;
+            default:
+                return false;
+        }
+    }
+
+    private void sendPendingAttachments(T watcher, WatcherState state) {
+        for (Int2ObjectMap.Entry<ItemStack> attachment : state.pendingAttachments.int2ObjectEntrySet()) {
+            messenger.setAttachment(watcher, network, attachment.getIntKey(), attachment.getValue());
+        }
+        state.pendingAttachments.clear();
+    }
+
+    private Tier getTier(T watcher) {
+        long watcherChunk = getWatcherChunk.applyAsLong(watcher);
+        int watcherX = (int)watcherChunk;
+        int watcherZ = (int)(watcherChunk >> 32);
+        int distance = Integer.MAX_VALUE;
+        for (long position : network.getState().getChunkSpan()) {
+            int x = (int)position;
+            int z = (int)(position >> 32);
+            distance = Math.min(distance, Math.max(Math.abs(x - watcherX), Math.abs(z - watcherZ)));
+            if (distance <= ClotheslineConfig.nearWatcherDistance) {
+                return Tier.NEAR;
+            }
         }
+        return distance <= ClotheslineConfig.farWatcherDistance ? Tier.MID : Tier.FAR;
     }
 }
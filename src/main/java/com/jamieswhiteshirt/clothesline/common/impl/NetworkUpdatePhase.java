@@ -0,0 +1,62 @@
+package com.jamieswhiteshirt.clothesline.common.impl;
+
+import com.jamieswhiteshirt.clothesline.api.INetwork;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Updates a list of networks, optionally in parallel. A network update only integrates the shift and momentum of its
+ * own state and does not notify event listeners, so the updates are independent of each other and the result does not
+ * depend on how the list is partitioned.
+ */
+public final class NetworkUpdatePhase {
+    /**
+     * The number of networks below which a partition is updated on the current thread.
+     */
+    private static final int PARTITION_SIZE = 64;
+
+    private static final class UpdateTask extends RecursiveAction {
+        private final List<INetwork> networks;
+        private final int fromIndex;
+        private final int toIndex;
+
+        private UpdateTask(List<INetwork> networks, int fromIndex, int toIndex) {
+            this.networks = networks;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        @Override
+        protected void compute() {
+            if (toIndex - fromIndex <= PARTITION_SIZE) {
+                for (int i = fromIndex; i < toIndex; i++) {
+                    networks.get(i).update();
+                }
+            } else {
+                int midIndex = (fromIndex + toIndex) >>> 1;
+                invokeAll(new UpdateTask(networks, fromIndex, midIndex), new UpdateTask(networks, midIndex, toIndex));
+            }
+        }
+    }
+
+    private NetworkUpdatePhase() {
+    }
+
+    /**
+     * Updates the networks. Returns when all networks have been updated.
+     * @param networks the networks, which must be distinct
+     * @param pool the pool to update the networks in, or null to update the networks on the current thread
+     */
+    public static void update(List<INetwork> networks, @Nullable ForkJoinPool pool) {
+        if (pool != null && networks.size() > PARTITION_SIZE) {
+            pool.invoke(new UpdateTask(networks, 0, networks.size()));
+        } else {
+            for (INetwork network : networks) {
+                network.update();
+            }
+        }
+    }
+}
@@ -1,16 +1,44 @@
 package com.jamieswhiteshirt.clothesline.common.impl;
 
 import com.jamieswhiteshirt.clothesline.api.INetwork;
+import com.jamieswhiteshirt.clothesline.api.INetworkState;
 import com.jamieswhiteshirt.clothesline.common.network.message.*;
 import com.jamieswhiteshirt.clothesline.common.util.BasicAttachment;
-import com.jamieswhiteshirt.clothesline.common.util.BasicNetwork;
+import com.jamieswhiteshirt.clothesline.common.util.BasicNetworkState;
+import com.jamieswhiteshirt.clothesline.common.util.BasicTree;
+import com.jamieswhiteshirt.clothesline.common.util.ByteBufSerialization;
+import com.jamieswhiteshirt.clothesline.common.util.NetworkContentHash;
 import com.jamieswhiteshirt.clothesline.internal.INetworkMessenger;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.item.ItemStack;
 import net.minecraftforge.fml.common.network.simpleimpl.SimpleNetworkWrapper;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Sends network changes to players. Attachment and motion updates are queued per player and sent as one
+ * {@link BatchNetworkMessage} per player when the messenger is flushed at the end of the world tick. Networks are added
+ * and removed immediately, after flushing the queue of the player so the client sees every change in order.
+ *
+ * Networks are added by their content hash, and their full state is only sent to players that do not have them cached.
+ * The encoded tree and attachments and the content hash of a watched network are computed once and shared by every
+ * player they are sent to, until its structure or attachments change or it is no longer watched by anyone. The shift
+ * and momentum change every tick the network moves, so they are written per message.
+ */
 public class PlayerNetworkMessenger implements INetworkMessenger<EntityPlayerMP> {
     private final SimpleNetworkWrapper networkChannel;
+    private final Map<EntityPlayerMP, List<BatchNetworkMessage.Update>> queues = new LinkedHashMap<>();
+    private final Int2ObjectMap<EncodedNetwork> encodedNetworks = new Int2ObjectOpenHashMap<>();
+    private int tick = 0;
 
     public PlayerNetworkMessenger(SimpleNetworkWrapper networkChannel) {
         this.networkChannel = networkChannel;
@@ -18,25 +46,146 @@ public class PlayerNetworkMessenger implements INetworkMessenger<EntityPlayerMP>
 
     @Override
     public void addNetwork(EntityPlayerMP watcher, INetwork network) {
-        networkChannel.sendTo(new AddNetworkMessage(BasicNetwork.fromAbsolute(network)), watcher);
+        flush(watcher);
+        EncodedNetwork encodedNetwork = encodedNetworks.computeIfAbsent(network.getId(), id -> new EncodedNetwork());
+        encodedNetwork.watcherCount++;
+        INetworkState state = network.getState();
+        long contentHash = encodedNetwork.getContentHash(network);
+        networkChannel.sendTo(new AddNetworkByHashMessage(network.getId(), network.getUuid(), contentHash, state.getShift(), state.getMomentum()), watcher);
+    }
+
+    @Override
+    public void sendNetwork(EntityPlayerMP watcher, INetwork network) {
+        flush(watcher);
+        EncodedNetwork encodedNetwork = encodedNetworks.get(network.getId());
+        if (encodedNetwork != null) {
+            INetworkState state = network.getState();
+            encodedNetwork.encode(state);
+            networkChannel.sendTo(new AddNetworkMessage(
+                network.getId(),
+                network.getUuid(),
+                encodedNetwork.tree.retainedDuplicate(),
+                state.getShift(),
+                state.getMomentum(),
+                encodedNetwork.attachments.retainedDuplicate()
+            ), watcher);
+        }
     }
 
     @Override
     public void removeNetwork(EntityPlayerMP watcher, INetwork network) {
+        flush(watcher);
+        EncodedNetwork encodedNetwork = encodedNetworks.get(network.getId());
+        if (encodedNetwork != null && --encodedNetwork.watcherCount == 0) {
+            encodedNetworks.remove(network.getId()).release();
+        }
         networkChannel.sendTo(new RemoveNetworkMessage(network.getId()), watcher);
     }
 
     @Override
     public void setAttachment(EntityPlayerMP watcher, INetwork network, int attachmentKey, ItemStack stack) {
-        if (stack.isEmpty()) {
-            networkChannel.sendTo(new RemoveAttachmentMessage(network.getId(), attachmentKey), watcher);
-        } else {
-            networkChannel.sendTo(new SetAttachmentMessage(network.getId(), new BasicAttachment(attachmentKey, stack)), watcher);
-        }
+        enqueue(watcher, BatchNetworkMessage.Update.setAttachment(network.getId(), attachmentKey, stack));
     }
 
     @Override
-    public void setShiftAndMomentum(EntityPlayerMP watcher, INetwork network, int shift, int momentum) {
-        networkChannel.sendTo(new UpdateNetworkMessage(network.getId(), shift, momentum), watcher);
+    public void setShiftAndMomentum(EntityPlayerMP watcher, INetwork network, int tick, int shift, int momentum) {
+        this.tick = tick;
+        enqueue(watcher, BatchNetworkMessage.Update.motion(network.getId(), tick, shift, momentum));
+    }
+
+    private void enqueue(EntityPlayerMP watcher, BatchNetworkMessage.Update update) {
+        queues.computeIfAbsent(watcher, key -> new ArrayList<>()).add(update);
+    }
+
+    private void flush(EntityPlayerMP watcher) {
+        List<BatchNetworkMessage.Update> queue = queues.remove(watcher);
+        if (queue != null) {
+            networkChannel.sendTo(new BatchNetworkMessage(tick, queue), watcher);
+        }
+    }
+
+    /**
+     * Sends the queued updates of every player, one message per player.
+     */
+    public void flush() {
+        for (Map.Entry<EntityPlayerMP, List<BatchNetworkMessage.Update>> entry : queues.entrySet()) {
+            networkChannel.sendTo(new BatchNetworkMessage(tick, entry.getValue()), entry.getKey());
+        }
+        queues.clear();
+    }
+
+    private static final class EncodedNetwork {
+        private int watcherCount = 0;
+        @Nullable
+        private INetworkState encodedState;
+        private int attachmentsVersion;
+        @Nullable
+        private ByteBuf tree;
+        @Nullable
+        private ByteBuf attachments;
+        @Nullable
+        private INetworkState contentHashState;
+        private int contentHashVersion;
+        private long contentHash;
+
+        /**
+         * Encodes the tree and attachments of the state, encoding the tree again only if the state has been replaced
+         * and the attachments again only if they have changed since they were last encoded. The caller must retain a
+         * reference to the encoded buffers to keep them.
+         * @param state the state of the network
+         */
+        private void encode(INetworkState state) {
+            if (encodedState != state) {
+                releaseEncoding();
+                tree = Unpooled.buffer();
+                ByteBufSerialization.writeNetworkTree(tree, BasicTree.fromGraph(state.getGraph()));
+            }
+            int version = state.getAttachmentsVersion();
+            if (attachments == null || encodedState != state || attachmentsVersion != version) {
+                if (attachments != null) {
+                    attachments.release();
+                }
+                attachments = Unpooled.buffer();
+                ByteBufSerialization.writeNetworkAttachments(attachments, state.getAttachments().entries().stream()
+                    .map(entry -> new BasicAttachment(entry.getKey(), entry.getValue()))
+                    .collect(Collectors.toList()));
+                attachmentsVersion = version;
+            }
+            encodedState = state;
+        }
+
+        /**
+         * Returns the content hash of the current state of the network, hashing it again only if its structure or
+         * attachments have changed since it was last hashed. Motion does not affect the content hash.
+         * @param network the network
+         * @return the content hash of the network
+         */
+        private long getContentHash(INetwork network) {
+            INetworkState state = network.getState();
+            int version = state.getAttachmentsVersion();
+            if (contentHashState != state || contentHashVersion != version) {
+                contentHash = NetworkContentHash.of(BasicNetworkState.fromAbsolute(state));
+                contentHashState = state;
+                contentHashVersion = version;
+            }
+            return contentHash;
+        }
+
+        private void releaseEncoding() {
+            if (tree != null) {
+                tree.release();
+                tree = null;
+            }
+            if (attachments != null) {
+                attachments.release();
+                attachments = null;
+            }
+            encodedState = null;
+        }
+
+        private void release() {
+            releaseEncoding();
+            contentHashState = null;
+        }
     }
 }
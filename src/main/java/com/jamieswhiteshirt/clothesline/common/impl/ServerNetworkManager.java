@@ -2,62 +2,88 @@ package com.jamieswhiteshirt.clothesline.common.impl;
 
 import com.jamieswhiteshirt.clothesline.api.*;
 import com.jamieswhiteshirt.clothesline.api.util.MutableSortedIntMap;
+import com.jamieswhiteshirt.clothesline.common.ClotheslineConfig;
 import com.jamieswhiteshirt.clothesline.common.ClotheslineItems;
 import com.jamieswhiteshirt.clothesline.internal.INetworkProvider;
 import com.jamieswhiteshirt.clothesline.internal.PersistentNetwork;
-import net.minecraft.entity.item.EntityItem;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.WorldServer;
 
+import javax.annotation.Nullable;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 public final class ServerNetworkManager extends NetworkManager {
     private final WorldServer world;
     private final INetworkProvider provider;
+    private final ForkJoinPool updatePool;
+    private final Predicate<INetwork> isWatched;
 
-    public ServerNetworkManager(WorldServer world, INetworkCollection networks, INetworkProvider provider) {
-        super(world, networks);
+    public ServerNetworkManager(WorldServer world, INetworkCollection networks, INetworkProvider provider, Executor rebuildExecutor, ForkJoinPool updatePool, Predicate<INetwork> isWatched) {
+        super(world, networks, rebuildExecutor);
         this.world = world;
         this.provider = provider;
+        this.updatePool = updatePool;
+        this.isWatched = isWatched;
     }
 
-    private void dropAttachment(INetworkState state, ItemStack stack, int attachmentKey) {
-        if (!stack.isEmpty()) {
-            Vec3d pos = state.getPath().getPositionForOffset(state.attachmentKeyToOffset(attachmentKey));
-            EntityItem entityitem = new EntityItem(world, pos.x, pos.y - 0.5D, pos.z, stack);
-            entityitem.setDefaultPickupDelay();
-            world.spawnEntity(entityitem);
+    @Nullable
+    @Override
+    protected ForkJoinPool getUpdatePool(int networkCount) {
+        if (!ClotheslineConfig.forceSerialNetworkUpdates && networkCount >= ClotheslineConfig.parallelNetworkUpdateMinNetworks) {
+            return updatePool;
         }
+        return null;
+    }
+
+    @Override
+    protected boolean canSimulateLazily(INetwork network) {
+        // Watched networks are updated each tick to send their shift and momentum to the watchers
+        return !isWatched.test(network);
+    }
+
+    @Override
+    protected boolean shouldRebuildAsync(int edgeCount) {
+        return ClotheslineConfig.asyncTopologyRebuild && edgeCount >= ClotheslineConfig.asyncTopologyRebuildMinEdges;
+    }
+
+    private static void addAttachment(ItemDropAggregator drops, INetworkState state, ItemStack stack, int attachmentKey) {
+        Vec3d pos = state.getGraph().getPositionForOffset(state.attachmentKeyToOffset(attachmentKey));
+        drops.add(pos.add(0.0D, -0.5D, 0.0D), stack);
     }
 
-    private void dropTreeItems(Tree tree) {
-        BlockPos from = tree.getPos();
-        for (Tree.Edge edge : tree.getEdges()) {
-            BlockPos to = edge.getTree().getPos();
-            EntityItem entityitem = new EntityItem(
-                world,
+    private static void addGraphItems(ItemDropAggregator drops, PackedGraph graph) {
+        // Every node but the root is connected to its parent by one clothesline
+        for (int node = 1; node < graph.getNodeCount(); node++) {
+            BlockPos from = graph.getNodePos(graph.getNodeParent(node));
+            BlockPos to = graph.getNodePos(node);
+            Vec3d pos = new Vec3d(
                 (1 + from.getX() + to.getX()) / 2.0D,
                 (1 + from.getY() + to.getY()) / 2.0D,
-                (1 + from.getZ() + to.getZ()) / 2.0D,
-                new ItemStack(ClotheslineItems.CLOTHESLINE)
+                (1 + from.getZ() + to.getZ()) / 2.0D
             );
-            entityitem.setDefaultPickupDelay();
-            world.spawnEntity(entityitem);
-            dropTreeItems(edge.getTree());
+            drops.add(pos, new ItemStack(ClotheslineItems.CLOTHESLINE));
         }
     }
 
     @Override
-    protected void dropItems(INetworkState state, boolean dropClotheslines) {
+    protected void dropItems(@Nullable EntityLivingBase entity, INetworkState state, boolean dropClotheslines) {
         if (world.getGameRules().getBoolean("doTileDrops")) {
+            ItemDropAggregator drops = new ItemDropAggregator();
             for (MutableSortedIntMap.Entry<ItemStack> entry : state.getAttachments().entries()) {
-                dropAttachment(state, entry.getValue(), entry.getKey());
+                addAttachment(drops, state, entry.getValue(), entry.getKey());
             }
             if (dropClotheslines) {
-                dropTreeItems(state.getTree());
+                addGraphItems(drops, state.getGraph());
             }
+            EntityPlayer player = ClotheslineConfig.dropsIntoBreakerInventory && entity instanceof EntityPlayer ? (EntityPlayer) entity : null;
+            drops.spawn(world, player, ClotheslineConfig.dropClusterSize, ClotheslineConfig.maxDropEntities);
         }
     }
 
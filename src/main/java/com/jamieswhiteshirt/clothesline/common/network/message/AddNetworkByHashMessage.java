@@ -0,0 +1,49 @@
+package com.jamieswhiteshirt.clothesline.common.network.message;
+
+import com.jamieswhiteshirt.clothesline.common.util.ByteBufSerialization;
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+
+import java.util.UUID;
+
+/**
+ * Adds a network the client may still have cached from when it was last removed, identified by the hash of its content.
+ * The client requests the full network with a {@link RequestNetworkMessage} if it does not have it cached.
+ */
+public class AddNetworkByHashMessage implements IMessage {
+    public int networkId;
+    public UUID networkUuid;
+    public long contentHash;
+    public int shift;
+    public int momentum;
+
+    public AddNetworkByHashMessage() {
+
+    }
+
+    public AddNetworkByHashMessage(int networkId, UUID networkUuid, long contentHash, int shift, int momentum) {
+        this.networkId = networkId;
+        this.networkUuid = networkUuid;
+        this.contentHash = contentHash;
+        this.shift = shift;
+        this.momentum = momentum;
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        networkId = ByteBufSerialization.readNetworkId(buf);
+        networkUuid = ByteBufSerialization.readNetworkUuid(buf);
+        contentHash = buf.readLong();
+        shift = ByteBufSerialization.readZigZagVarInt(buf);
+        momentum = ByteBufSerialization.readZigZagVarInt(buf);
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        ByteBufSerialization.writeNetworkId(buf, networkId);
+        ByteBufSerialization.writeNetworkUuid(buf, networkUuid);
+        buf.writeLong(contentHash);
+        ByteBufSerialization.writeZigZagVarInt(buf, shift);
+        ByteBufSerialization.writeZigZagVarInt(buf, momentum);
+    }
+}
@@ -5,8 +5,19 @@ import com.jamieswhiteshirt.clothesline.common.util.ByteBufSerialization;
 import io.netty.buffer.ByteBuf;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
 
+import javax.annotation.Nullable;
+import java.util.UUID;
+
 public class AddNetworkMessage implements IMessage {
     public BasicNetwork network;
+    private int networkId;
+    private UUID networkUuid;
+    private int shift;
+    private int momentum;
+    @Nullable
+    private ByteBuf tree;
+    @Nullable
+    private ByteBuf attachments;
 
     public AddNetworkMessage() {
 
@@ -16,6 +27,26 @@ public class AddNetworkMessage implements IMessage {
         this.network = network;
     }
 
+    /**
+     * Creates a message carrying a network of which the tree and attachments have already been encoded, so the same
+     * encoding can be sent to many players. The message takes ownership of one reference to each buffer and releases
+     * them once they have been written.
+     * @param networkId the network ID
+     * @param networkUuid the network UUID
+     * @param tree the encoded tree, as written by {@link ByteBufSerialization#writeNetworkTree}
+     * @param shift the shift of the network
+     * @param momentum the momentum of the network
+     * @param attachments the encoded attachments, as written by {@link ByteBufSerialization#writeNetworkAttachments}
+     */
+    public AddNetworkMessage(int networkId, UUID networkUuid, ByteBuf tree, int shift, int momentum, ByteBuf attachments) {
+        this.networkId = networkId;
+        this.networkUuid = networkUuid;
+        this.tree = tree;
+        this.shift = shift;
+        this.momentum = momentum;
+        this.attachments = attachments;
+    }
+
     @Override
     public void fromBytes(ByteBuf buf) {
         network = ByteBufSerialization.readNetwork(buf);
@@ -23,6 +54,20 @@ public class AddNetworkMessage implements IMessage {
 
     @Override
     public void toBytes(ByteBuf buf) {
-        ByteBufSerialization.writeNetwork(buf, network);
+        if (tree != null && attachments != null) {
+            // Same layout as ByteBufSerialization.writeNetwork
+            ByteBufSerialization.writeNetworkId(buf, networkId);
+            ByteBufSerialization.writeNetworkUuid(buf, networkUuid);
+            buf.writeBytes(tree, tree.readerIndex(), tree.readableBytes());
+            ByteBufSerialization.writeZigZagVarInt(buf, shift);
+            ByteBufSerialization.writeZigZagVarInt(buf, momentum);
+            buf.writeBytes(attachments, attachments.readerIndex(), attachments.readableBytes());
+            tree.release();
+            attachments.release();
+            tree = null;
+            attachments = null;
+        } else {
+            ByteBufSerialization.writeNetwork(buf, network);
+        }
     }
 }
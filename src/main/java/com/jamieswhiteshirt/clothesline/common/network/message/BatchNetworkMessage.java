@@ -0,0 +1,129 @@
+package com.jamieswhiteshirt.clothesline.common.network.message;
+
+import com.jamieswhiteshirt.clothesline.common.util.ByteBufSerialization;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * All network updates sent to a player in one tick, applied by the client in order. Network ids and attachment keys
+ * are encoded as varint deltas from the previous update, and motion ticks as varint deltas from the tick of the batch,
+ * so updates of the same or nearby networks take only a few bytes each.
+ */
+public class BatchNetworkMessage implements IMessage {
+    public static final int MOTION = 0;
+    public static final int SET_ATTACHMENT = 1;
+    public static final int REMOVE_ATTACHMENT = 2;
+
+    public static final class Update {
+        public final int type;
+        public final int networkId;
+        public final int tick;
+        public final int shift;
+        public final int momentum;
+        public final int attachmentKey;
+        public final ItemStack stack;
+
+        private Update(int type, int networkId, int tick, int shift, int momentum, int attachmentKey, ItemStack stack) {
+            this.type = type;
+            this.networkId = networkId;
+            this.tick = tick;
+            this.shift = shift;
+            this.momentum = momentum;
+            this.attachmentKey = attachmentKey;
+            this.stack = stack;
+        }
+
+        public static Update motion(int networkId, int tick, int shift, int momentum) {
+            return new Update(MOTION, networkId, tick, shift, momentum, 0, ItemStack.EMPTY);
+        }
+
+        public static Update setAttachment(int networkId, int attachmentKey, ItemStack stack) {
+            if (stack.isEmpty()) {
+                return new Update(REMOVE_ATTACHMENT, networkId, 0, 0, 0, attachmentKey, ItemStack.EMPTY);
+            } else {
+                return new Update(SET_ATTACHMENT, networkId, 0, 0, 0, attachmentKey, stack);
+            }
+        }
+    }
+
+    public int tick;
+    public List<Update> updates;
+
+    public BatchNetworkMessage(int tick, List<Update> updates) {
+        this.tick = tick;
+        this.updates = updates;
+    }
+
+    public BatchNetworkMessage() { }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        tick = ByteBufSerialization.readVarInt(buf);
+        int size = ByteBufSerialization.readVarInt(buf);
+        updates = new ArrayList<>(size);
+        int networkId = 0;
+        int attachmentKey = 0;
+        for (int i = 0; i < size; i++) {
+            int type = buf.readUnsignedByte();
+            int networkIdDelta = ByteBufSerialization.readZigZagVarInt(buf);
+            if (networkIdDelta != 0) {
+                networkId += networkIdDelta;
+                attachmentKey = 0;
+            }
+            switch (type) {
+                case MOTION:
+                    int updateTick = tick + ByteBufSerialization.readZigZagVarInt(buf);
+                    int shift = ByteBufSerialization.readZigZagVarInt(buf);
+                    int momentum = ByteBufSerialization.readZigZagVarInt(buf);
+                    updates.add(Update.motion(networkId, updateTick, shift, momentum));
+                    break;
+                case SET_ATTACHMENT:
+                    attachmentKey += ByteBufSerialization.readZigZagVarInt(buf);
+                    updates.add(Update.setAttachment(networkId, attachmentKey, ByteBufSerialization.readItemStack(buf)));
+                    break;
+                case REMOVE_ATTACHMENT:
+                    attachmentKey += ByteBufSerialization.readZigZagVarInt(buf);
+                    updates.add(Update.setAttachment(networkId, attachmentKey, ItemStack.EMPTY));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown network update type " + type);
+            }
+        }
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        ByteBufSerialization.writeVarInt(buf, tick);
+        ByteBufSerialization.writeVarInt(buf, updates.size());
+        int networkId = 0;
+        int attachmentKey = 0;
+        for (Update update : updates) {
+            buf.writeByte(update.type);
+            ByteBufSerialization.writeZigZagVarInt(buf, update.networkId - networkId);
+            if (update.networkId != networkId) {
+                networkId = update.networkId;
+                attachmentKey = 0;
+            }
+            switch (update.type) {
+                case MOTION:
+                    ByteBufSerialization.writeZigZagVarInt(buf, update.tick - tick);
+                    ByteBufSerialization.writeZigZagVarInt(buf, update.shift);
+                    ByteBufSerialization.writeZigZagVarInt(buf, update.momentum);
+                    break;
+                case SET_ATTACHMENT:
+                    ByteBufSerialization.writeZigZagVarInt(buf, update.attachmentKey - attachmentKey);
+                    ByteBufSerialization.writeItemStack(buf, update.stack);
+                    attachmentKey = update.attachmentKey;
+                    break;
+                case REMOVE_ATTACHMENT:
+                    ByteBufSerialization.writeZigZagVarInt(buf, update.attachmentKey - attachmentKey);
+                    attachmentKey = update.attachmentKey;
+                    break;
+            }
+        }
+    }
+}
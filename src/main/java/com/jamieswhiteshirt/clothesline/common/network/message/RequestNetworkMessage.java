@@ -1,33 +1,30 @@
-package com.jamieswhiteshirt.clothesline.common.network.message;
-
-import com.jamieswhiteshirt.clothesline.common.util.ByteBufSerialization;
-import io.netty.buffer.ByteBuf;
-import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
-
-public class UpdateNetworkMessage implements IMessage {
-    public int networkId;
-    public int shift;
-    public int momentum;
-
-    public UpdateNetworkMessage(int networkId, int shift, int momentum) {
-        this.networkId = networkId;
-        this.shift = shift;
-        this.momentum = momentum;
-    }
-
-    public UpdateNetworkMessage() { }
-
-    @Override
-    public void fromBytes(ByteBuf buf) {
-        networkId = ByteBufSerialization.readNetworkId(buf);
-        shift = buf.readInt();
-        momentum = buf.readByte();
-    }
-
-    @Override
-    public void toBytes(ByteBuf buf) {
-        ByteBufSerialization.writeNetworkId(buf, networkId);
-        buf.writeInt(shift);
-        buf.writeByte(momentum);
-    }
-}
+package com.jamieswhiteshirt.clothesline.common.network.message;
+
+import com.jamieswhiteshirt.clothesline.common.util.ByteBufSerialization;
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+
+/**
+ * Requests the full state of a network added by an {@link AddNetworkByHashMessage} the client did not have cached.
+ */
+public class RequestNetworkMessage implements IMessage {
+    public int networkId;
+
+    public RequestNetworkMessage() {
+
+    }
+
+    public RequestNetworkMessage(int networkId) {
+        this.networkId = networkId;
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        networkId = ByteBufSerialization.readNetworkId(buf);
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        ByteBufSerialization.writeNetworkId(buf, networkId);
+    }
+}
@@ -6,6 +6,7 @@ import com.jamieswhiteshirt.clothesline.common.network.message.HitNetworkMessage
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.init.SoundEvents;
 import net.minecraft.util.SoundCategory;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.WorldServer;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
@@ -25,11 +26,13 @@ public class HitNetworkMessageHandler implements IMessageHandler<HitNetworkMessa
             if (manager != null) {
                 INetwork network = manager.getNetworks().getById(message.networkId);
                 if (network != null) {
-                    Path.Edge edge = network.getState().getPath().getEdgeForPosition(message.offset);
-                    Vec3d pos = edge.getPositionForOffset(message.offset);
+                    PackedGraph graph = network.getState().getGraph();
+                    int edge = graph.getEdgeForOffset(message.offset);
+                    Vec3d pos = graph.getPositionForOffset(message.offset);
                     if (Validation.canReachPos(player, pos)) {
-                        Line line = edge.getLine();
-                        manager.breakConnection(player, line.getFromPos(), line.getToPos());
+                        BlockPos fromPos = graph.getNodePos(graph.getEdgeFromNode(edge));
+                        BlockPos toPos = graph.getNodePos(graph.getEdgeToNode(edge));
+                        manager.breakConnection(player, fromPos, toPos);
                         world.playSound(player, pos.x, pos.y, pos.z, SoundEvents.ENTITY_LEASHKNOT_BREAK, SoundCategory.BLOCKS, 1.0F, 1.0F);
                     }
                 }
@@ -0,0 +1,28 @@
+package com.jamieswhiteshirt.clothesline.common.network.messagehandler;
+
+import com.jamieswhiteshirt.clothesline.Clothesline;
+import com.jamieswhiteshirt.clothesline.common.network.message.RequestNetworkMessage;
+import com.jamieswhiteshirt.clothesline.internal.IWorldEventDispatcher;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+
+import javax.annotation.Nullable;
+
+public class RequestNetworkMessageHandler implements IMessageHandler<RequestNetworkMessage, IMessage> {
+    @Nullable
+    @Override
+    public IMessage onMessage(RequestNetworkMessage message, MessageContext ctx) {
+        EntityPlayerMP player = ctx.getServerHandler().player;
+        WorldServer world = player.getServerWorld();
+        world.addScheduledTask(() -> {
+            IWorldEventDispatcher eventDispatcher = world.getCapability(Clothesline.WORLD_EVENT_DISPATCHER_CAPABILITY, null);
+            if (eventDispatcher != null) {
+                eventDispatcher.onPlayerRequestNetwork(player, message.networkId);
+            }
+        });
+        return null;
+    }
+}
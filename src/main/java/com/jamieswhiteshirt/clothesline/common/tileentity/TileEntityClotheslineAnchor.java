@@ -4,10 +4,11 @@ import com.jamieswhiteshirt.clothesline.Clothesline;
 import com.jamieswhiteshirt.clothesline.api.INetwork;
 import com.jamieswhiteshirt.clothesline.api.INetworkManager;
 import com.jamieswhiteshirt.clothesline.api.INetworkNode;
-import com.jamieswhiteshirt.clothesline.api.INetworkState;
+import com.jamieswhiteshirt.clothesline.api.util.MutableSortedIntMap;
 import com.jamieswhiteshirt.clothesline.common.Util;
 import com.jamieswhiteshirt.clothesline.common.impl.NetworkItemHandler;
 import com.jamieswhiteshirt.clothesline.common.network.message.SetAnchorHasCrankMessage;
+import com.jamieswhiteshirt.clothesline.internal.IAnchorScheduler;
 import mysticalmechanics.api.DefaultMechCapability;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
@@ -15,7 +16,7 @@ import net.minecraft.network.NetworkManager;
 import net.minecraft.network.play.server.SPacketUpdateTileEntity;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
-import net.minecraft.util.ITickable;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.capabilities.CapabilityInject;
@@ -24,20 +25,33 @@ import net.minecraftforge.fml.common.network.NetworkRegistry;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
 
 import static mysticalmechanics.api.MysticalMechanicsAPI.MECH_CAPABILITY;
 
-public class TileEntityClotheslineAnchor extends TileEntity implements ITickable {
+/**
+ * Clothesline anchors do not tick. An anchor is only updated by the {@link IAnchorScheduler} of its world while it has
+ * an inventory to insert items into, and its network node is kept up to date by the scheduler.
+ */
+public class TileEntityClotheslineAnchor extends TileEntity {
     @CapabilityInject(IItemHandler.class)
     private static final Capability<IItemHandler> ITEM_HANDLER_CAPABILITY = Util.nonNullInjected();
     private INetworkManager manager;
+    private IAnchorScheduler scheduler;
     private boolean hasCrank;
-    private boolean canInsert = false;
-    private boolean initflag = false;
+    @Nullable
+    private INetworkNode networkNode;
+    @Nullable
+    private TileEntity neighbour;
+    @Nullable
     private IItemHandler neighbourHandler;
+    private final IItemHandler[] itemHandlers = new IItemHandler[EnumFacing.VALUES.length];
     private int consPower = 0;
+    private final AnchorMechCapability mechCapability = new AnchorMechCapability();
     EnumFacing connect;
 
     public boolean getHasCrank() {
@@ -58,18 +72,26 @@ public class TileEntityClotheslineAnchor extends TileEntity implements ITickable
 
     @Nullable
     public INetworkNode getNetworkNode() {
-        if (manager != null) {
-            return manager.getNetworks().getNodes().get(pos);
-        } else {
-            return null;
-        }
+        return networkNode;
+    }
+
+    public void setNetworkNode(@Nullable INetworkNode networkNode) {
+        this.networkNode = networkNode;
+        Arrays.fill(itemHandlers, null);
     }
 
     public void crank(int amount) {
         INetworkNode node = getNetworkNode();
         if (node != null) {
-            INetworkState networkState = node.getNetwork().getState();
-            networkState.setMomentum(networkState.getMomentum() + amount);
+            INetwork network = node.getNetwork();
+            network.setMomentum(network.getState().getMomentum() + amount);
+        }
+    }
+
+    private void setPower(int power) {
+        consPower = power;
+        if (manager != null && !isInvalid()) {
+            manager.setPower(pos, power);
         }
     }
 
@@ -77,45 +99,96 @@ public class TileEntityClotheslineAnchor extends TileEntity implements ITickable
     public void setWorld(World world) {
         super.setWorld(world);
         manager = world.getCapability(Clothesline.NETWORK_MANAGER_CAPABILITY, null);
+        scheduler = world.getCapability(Clothesline.ANCHOR_SCHEDULER_CAPABILITY, null);
+    }
 
+    @Override
+    public void onLoad() {
+        if (manager != null) {
+            manager.setPower(pos, consPower);
+        }
+        if (scheduler != null) {
+            scheduler.load(this);
+        }
+        refreshNeighbour();
+    }
 
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        unload();
     }
 
     @Override
-    public void update() {
-        INetworkNode node = getNetworkNode();
-        if (node != null && consPower != 0) {
-            INetworkState networkState = node.getNetwork().getState();
-            if(networkState.getMomentum() < consPower)
-                networkState.setMomentum(networkState.getMomentum() + consPower / 3);
+    public void onChunkUnload() {
+        unload();
+    }
+
+    private void unload() {
+        if (manager != null) {
+            manager.setPower(pos, 0);
+        }
+        if (scheduler != null) {
+            scheduler.unload(this);
         }
+    }
 
+    /**
+     * Looks up the inventory the anchor inserts items into, and schedules the anchor for updates if there is one.
+     * Called when the anchor is loaded and when a neighbouring block changes.
+     */
+    public void refreshNeighbour() {
+        if (world == null || world.isRemote || isInvalid() || scheduler == null) return;
+        connect = EnumFacing.byIndex(getBlockMetadata()).getOpposite();
+        BlockPos neighbourPos = pos.offset(connect);
+        neighbour = null;
+        neighbourHandler = null;
+        if (!world.isBlockLoaded(neighbourPos)) {
+            // Do not load the chunk, look again once it may have been loaded
+            scheduler.setScheduled(this, true);
+            return;
+        }
+        TileEntity tileEntity = world.getTileEntity(neighbourPos);
+        if (tileEntity != null && tileEntity.hasCapability(ITEM_HANDLER_CAPABILITY, connect)) {
+            neighbour = tileEntity;
+            neighbourHandler = tileEntity.getCapability(ITEM_HANDLER_CAPABILITY, connect);
+        }
+        scheduler.setScheduled(this, neighbourHandler != null);
+    }
 
-        if(!initflag) {
-            connect = EnumFacing.byIndex(this.getBlockMetadata()).getOpposite();
-            TileEntity toInsert = world.getTileEntity(getPos().add(connect.getXOffset(), connect.getYOffset(), connect.getZOffset()));
-            if(toInsert != null && toInsert.hasCapability(ITEM_HANDLER_CAPABILITY, connect)){
-                canInsert = true;
-                neighbourHandler = toInsert.getCapability(ITEM_HANDLER_CAPABILITY, connect);
-            }
-            initflag = true;
-        }
-
-        if(canInsert && world != null && !world.isRemote) {
-            IItemHandler netHandler = getCapability(ITEM_HANDLER_CAPABILITY, EnumFacing.DOWN);
-            if(netHandler == null) return;
-            ItemStack stack = netHandler.extractItem(0, 1, true);
-            if(!stack.isEmpty()) {
-                int i;
-                for (i = 0; i < neighbourHandler.getSlots(); i++) {
-                    stack = neighbourHandler.insertItem(i, stack, false);
-                    if(stack.getCount() == 0){
-                        netHandler.extractItem(0, 1, false);
-                        break;
-                    }
-                }
+    /**
+     * Called each tick while scheduled. Returns true if the anchor has an inventory to insert items into.
+     * @return true if the anchor has an inventory to insert items into
+     */
+    public boolean update() {
+        if (neighbour == null || neighbour.isInvalid()) {
+            // The neighbour may have been loaded or replaced without a block update
+            refreshNeighbour();
+        }
+        return neighbourHandler != null;
+    }
 
+    /**
+     * Returns the offset on the network path at which the anchor takes attachments.
+     * @return the offset on the network path at which the anchor takes attachments
+     */
+    public int getAttachmentOffset() {
+        INetworkNode node = getNetworkNode();
+        return node != null ? node.getOffsetForDelta(EnumFacing.DOWN.getDirectionVec()) : 0;
+    }
 
+    /**
+     * Inserts the attachments that have passed the anchor into the neighbouring inventory. Attachments that do not fit
+     * remain on the clothesline.
+     * @param network the network of the anchor
+     * @param passing the attachments that have passed the anchor this tick
+     */
+    public void onAttachmentsPassed(INetwork network, List<MutableSortedIntMap.Entry<ItemStack>> passing) {
+        if (neighbourHandler == null) return;
+        for (MutableSortedIntMap.Entry<ItemStack> entry : passing) {
+            ItemStack stack = network.extractItem(entry.getKey(), true);
+            if (!stack.isEmpty() && ItemHandlerHelper.insertItem(neighbourHandler, stack, true).isEmpty()) {
+                ItemHandlerHelper.insertItem(neighbourHandler, network.extractItem(entry.getKey(), false), false);
             }
         }
     }
@@ -123,25 +196,33 @@ public class TileEntityClotheslineAnchor extends TileEntity implements ITickable
     @Nullable
     @Override
     public <T> T getCapability(Capability<T> capability, @Nullable EnumFacing facing) {
-        if (capability == ITEM_HANDLER_CAPABILITY && facing != null) {
+        if (capability == ITEM_HANDLER_CAPABILITY) {
             INetworkNode node = getNetworkNode();
-            if (node != null && !node.getNetwork().getState().getPath().isEmpty()) {
+            if (node != null && !node.getNetwork().getState().getGraph().isEmpty()) {
                 INetwork network = node.getNetwork();
-                int attachmentKey = network.getState().offsetToAttachmentKey(node.getPathNode().getOffsetForDelta(facing.getDirectionVec()));
-                return ITEM_HANDLER_CAPABILITY.cast(new NetworkItemHandler(network, attachmentKey));
+                if (facing == null) {
+                    return ITEM_HANDLER_CAPABILITY.cast(network.getItemHandler());
+                }
+                IItemHandler itemHandler = itemHandlers[facing.getIndex()];
+                if (itemHandler == null) {
+                    // The first slot is the slot at the side of the anchor
+                    int offset = node.getOffsetForDelta(facing.getDirectionVec());
+                    itemHandler = itemHandlers[facing.getIndex()] = new NetworkItemHandler(network, offset);
+                }
+                return ITEM_HANDLER_CAPABILITY.cast(itemHandler);
             }
         }
         if (capability == MECH_CAPABILITY && (facing == EnumFacing.DOWN || facing == EnumFacing.UP)) {
-            return (T) new AnchorMechCapability();
+            return MECH_CAPABILITY.cast(mechCapability);
         }
         return null;
     }
 
     @Override
     public boolean hasCapability(Capability<?> capability, @Nullable EnumFacing facing) {
-        if (capability == ITEM_HANDLER_CAPABILITY && facing != null) {
+        if (capability == ITEM_HANDLER_CAPABILITY) {
             INetworkNode node = getNetworkNode();
-            return node != null && !node.getNetwork().getState().getPath().isEmpty();
+            return node != null && !node.getNetwork().getState().getGraph().isEmpty();
         }
         if (capability == MECH_CAPABILITY && (facing == EnumFacing.DOWN || facing == EnumFacing.UP)) {
             return true;
@@ -161,7 +242,7 @@ public class TileEntityClotheslineAnchor extends TileEntity implements ITickable
     public void readFromNBT(NBTTagCompound compound) {
         super.readFromNBT(compound);
         hasCrank = compound.getBoolean("HasCrank");
-        consPower = compound.getInteger("ConstantPower");
+        setPower(compound.getInteger("ConstantPower"));
     }
 
     @Override
@@ -189,7 +270,7 @@ public class TileEntityClotheslineAnchor extends TileEntity implements ITickable
         public void setPower(double value, EnumFacing from) {
             super.setPower(value, from);
             if(from == EnumFacing.DOWN || from == EnumFacing.UP) {
-                consPower = (int) value;
+                setPower((int) value);
                 power = value;
             }
         }
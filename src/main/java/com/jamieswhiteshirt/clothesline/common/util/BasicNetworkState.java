@@ -1,9 +1,8 @@
 package com.jamieswhiteshirt.clothesline.common.util;
 
 import com.jamieswhiteshirt.clothesline.api.INetworkState;
-import com.jamieswhiteshirt.clothesline.api.Path;
+import com.jamieswhiteshirt.clothesline.api.PackedGraph;
 import com.jamieswhiteshirt.clothesline.common.impl.NetworkState;
-import com.jamieswhiteshirt.clothesline.api.Tree;
 import com.jamieswhiteshirt.clothesline.api.util.MutableSortedIntMap;
 import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.item.ItemStack;
@@ -18,7 +17,7 @@ public final class BasicNetworkState {
         return new BasicNetworkState(
             state.getShift(),
             state.getMomentum(),
-            BasicTree.fromAbsolute(state.getTree()),
+            BasicTree.fromGraph(state.getGraph()),
             state.getAttachments().entries().stream().map(
                 entry -> new BasicAttachment(entry.getKey(), entry.getValue().copy())
             ).collect(Collectors.toList())
@@ -54,24 +53,22 @@ public final class BasicNetworkState {
     }
 
     public INetworkState toAbsolute() {
-        Tree tree = this.tree.toAbsolute();
-        Path path = PathBuilder.buildPath(tree);
-        LongSet chunkSpan = ChunkSpan.ofPath(path);
+        PackedGraph graph = PackedGraph.fromTree(tree.toAbsolute());
+        LongSet chunkSpan = ChunkSpan.ofGraph(graph);
         MutableSortedIntMap<ItemStack> attachments = new MutableSortedIntMap<>(
             new ArrayList<>(
                 this.attachments.stream()
                 .map(attachment -> new MutableSortedIntMap.Entry<>(attachment.getKey(), attachment.getStack()))
                 .collect(Collectors.toList())
             ),
-            path.getLength()
+            graph.getLength()
         );
         return new NetworkState(
             shift,
             shift,
             momentum,
             momentum,
-            tree,
-            path,
+            graph,
             chunkSpan,
             attachments
         );
@@ -1,5 +1,6 @@
 package com.jamieswhiteshirt.clothesline.common.util;
 
+import com.jamieswhiteshirt.clothesline.api.PackedGraph;
 import com.jamieswhiteshirt.clothesline.api.Tree;
 import net.minecraft.util.math.BlockPos;
 
@@ -66,6 +67,20 @@ public final class BasicTree {
         );
     }
 
+    private static BasicTree fromGraph(PackedGraph graph, int node) {
+        List<Edge> edges = new ArrayList<>();
+        for (int child = node + 1; child < graph.getSubtreeEnd(node); child = graph.getSubtreeEnd(child)) {
+            int enterEdge = graph.getNodeEnterEdge(child);
+            int length = graph.getEdgeToOffset(enterEdge) - graph.getEdgeFromOffset(enterEdge);
+            edges.add(new Edge(length, fromGraph(graph, child)));
+        }
+        return new BasicTree(graph.getNodePos(node), edges, graph.getNodeBaseRotation(node));
+    }
+
+    public static BasicTree fromGraph(PackedGraph graph) {
+        return fromGraph(graph, 0);
+    }
+
     private final BlockPos pos;
     private final List<Edge> edges;
     private final int baseRotation;
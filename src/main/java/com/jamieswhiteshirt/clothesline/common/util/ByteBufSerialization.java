@@ -5,8 +5,7 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.fml.common.network.ByteBufUtils;
 
-import java.util.Arrays;
-import java.util.UUID;
+import java.util.*;
 
 public class ByteBufSerialization {
     public static void writeNetwork(ByteBuf buf, BasicNetwork network) {
@@ -44,55 +43,120 @@ public class ByteBufSerialization {
         return ByteBufUtils.readVarInt(buf, 4);
     }
 
+    public static void writeVarInt(ByteBuf buf, int value) {
+        ByteBufUtils.writeVarInt(buf, value, 5);
+    }
+
+    public static int readVarInt(ByteBuf buf) {
+        return ByteBufUtils.readVarInt(buf, 5);
+    }
+
+    /**
+     * Writes a signed int as a varint, mapping values of small magnitude to small varints regardless of sign.
+     * @param buf the buffer
+     * @param value the value
+     */
+    public static void writeZigZagVarInt(ByteBuf buf, int value) {
+        writeVarInt(buf, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readZigZagVarInt(ByteBuf buf) {
+        int value = readVarInt(buf);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes the network state in the compact format. Tree positions are written as varint deltas from the parent node,
+     * attachment keys as varint deltas in sorted order, and attachments with equal stacks share a single entry in a
+     * dictionary of stacks written before them.
+     * @param buf the buffer
+     * @param state the network state
+     */
     public static void writeNetworkState(ByteBuf buf, BasicNetworkState state) {
-        writeBasicTree(buf, state.getTree());
-        buf.writeInt(state.getShift());
-        buf.writeInt(state.getMomentum());
-        buf.writeShort(state.getAttachments().size());
-        for (BasicAttachment attachment : state.getAttachments()) {
-            buf.writeInt(attachment.getKey());
-            writeItemStack(buf, attachment.getStack());
-        }
+        writeNetworkTree(buf, state.getTree());
+        writeZigZagVarInt(buf, state.getShift());
+        writeZigZagVarInt(buf, state.getMomentum());
+        writeNetworkAttachments(buf, state.getAttachments());
     }
 
     public static BasicNetworkState readNetworkState(ByteBuf buf) {
-        BasicTree tree = readBasicTree(buf);
-        int offset = buf.readInt();
-        int momentum = buf.readInt();
-        int numAttachments = buf.readUnsignedShort();
-        BasicAttachment[] attachments = new BasicAttachment[numAttachments];
-        for (int i = 0; i < numAttachments; i++) {
-            attachments[i] = new BasicAttachment(buf.readInt(), readItemStack(buf));
+        BasicTree tree = readNetworkTree(buf);
+        int shift = readZigZagVarInt(buf);
+        int momentum = readZigZagVarInt(buf);
+        return new BasicNetworkState(shift, momentum, tree, readNetworkAttachments(buf));
+    }
+
+    public static void writeNetworkTree(ByteBuf buf, BasicTree tree) {
+        writeCompactTree(buf, tree, BlockPos.ORIGIN);
+    }
+
+    public static BasicTree readNetworkTree(ByteBuf buf) {
+        return readCompactTree(buf, BlockPos.ORIGIN);
+    }
+
+    public static void writeNetworkAttachments(ByteBuf buf, List<BasicAttachment> unsortedAttachments) {
+        List<BasicAttachment> attachments = new ArrayList<>(unsortedAttachments);
+        attachments.sort(Comparator.comparingInt(BasicAttachment::getKey));
+        Map<StackKey, Integer> dictionary = new LinkedHashMap<>();
+        int[] stackIndices = new int[attachments.size()];
+        for (int i = 0; i < attachments.size(); i++) {
+            stackIndices[i] = dictionary.computeIfAbsent(new StackKey(attachments.get(i).getStack()), key -> dictionary.size());
         }
-        return new BasicNetworkState(
-            offset,
-            momentum,
-            tree,
-            Arrays.asList(attachments)
-        );
+        writeVarInt(buf, dictionary.size());
+        for (StackKey key : dictionary.keySet()) {
+            writeItemStack(buf, key.stack);
+        }
+        writeVarInt(buf, attachments.size());
+        int previousKey = 0;
+        for (int i = 0; i < attachments.size(); i++) {
+            int key = attachments.get(i).getKey();
+            writeVarInt(buf, key - previousKey);
+            writeVarInt(buf, stackIndices[i]);
+            previousKey = key;
+        }
+    }
+
+    public static List<BasicAttachment> readNetworkAttachments(ByteBuf buf) {
+        ItemStack[] dictionary = new ItemStack[readVarInt(buf)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readItemStack(buf);
+        }
+        BasicAttachment[] attachments = new BasicAttachment[readVarInt(buf)];
+        int key = 0;
+        for (int i = 0; i < attachments.length; i++) {
+            key += readVarInt(buf);
+            int stackIndex = readVarInt(buf);
+            if (stackIndex < 0 || stackIndex >= dictionary.length) {
+                throw new IllegalArgumentException("Invalid stack index " + stackIndex + " in dictionary of " + dictionary.length + " stacks");
+            }
+            // Attachments must not share stack instances
+            attachments[i] = new BasicAttachment(key, dictionary[stackIndex].copy());
+        }
+        return Arrays.asList(attachments);
     }
 
-    public static void writeBasicTree(ByteBuf buf, BasicTree tree) {
-        buf.writeLong(tree.getPos().toLong());
-        buf.writeByte(tree.getEdges().size());
+    private static void writeCompactTree(ByteBuf buf, BasicTree tree, BlockPos parentPos) {
+        BlockPos pos = tree.getPos();
+        writeZigZagVarInt(buf, pos.getX() - parentPos.getX());
+        writeZigZagVarInt(buf, pos.getY() - parentPos.getY());
+        writeZigZagVarInt(buf, pos.getZ() - parentPos.getZ());
+        writeZigZagVarInt(buf, tree.getBaseRotation());
+        writeVarInt(buf, tree.getEdges().size());
         for (BasicTree.Edge edge : tree.getEdges()) {
-            buf.writeShort(edge.getLength());
-            writeBasicTree(buf, edge.getTree());
+            writeVarInt(buf, edge.getLength());
+            writeCompactTree(buf, edge.getTree(), pos);
         }
-        buf.writeInt(tree.getBaseRotation());
-    }
-
-    public static BasicTree readBasicTree(ByteBuf buf) {
-        BlockPos pos = BlockPos.fromLong(buf.readLong());
-        int numChildren = buf.readUnsignedByte();
-        BasicTree.Edge[] edges = new BasicTree.Edge[numChildren];
-        for (int i = 0; i < numChildren; i++) {
-            edges[i] = new BasicTree.Edge(
-                buf.readUnsignedShort(),
-                readBasicTree(buf)
-            );
+    }
+
+    private static BasicTree readCompactTree(ByteBuf buf, BlockPos parentPos) {
+        BlockPos pos = parentPos.add(readZigZagVarInt(buf), readZigZagVarInt(buf), readZigZagVarInt(buf));
+        int baseRotation = readZigZagVarInt(buf);
+        BasicTree.Edge[] edges = new BasicTree.Edge[readVarInt(buf)];
+        for (int i = 0; i < edges.length; i++) {
+            int length = readVarInt(buf);
+            edges[i] = new BasicTree.Edge(length, readCompactTree(buf, pos));
         }
-        return new BasicTree(pos, Arrays.asList(edges), buf.readInt());
+        return new BasicTree(pos, Arrays.asList(edges), baseRotation);
     }
 
     public static void writeAttachment(ByteBuf buf, BasicAttachment attachment) {
@@ -114,4 +178,24 @@ public class ByteBufSerialization {
     public static ItemStack readItemStack(ByteBuf buf) {
         return ByteBufUtils.readItemStack(buf);
     }
+
+    private static final class StackKey {
+        private final ItemStack stack;
+
+        private StackKey(ItemStack stack) {
+            this.stack = stack;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return ItemStack.areItemStacksEqual(stack, ((StackKey) o).stack);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(stack.getItem(), stack.getMetadata(), stack.getCount(), stack.getTagCompound());
+        }
+    }
 }
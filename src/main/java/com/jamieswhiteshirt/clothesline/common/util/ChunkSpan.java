@@ -1,20 +1,76 @@
 package com.jamieswhiteshirt.clothesline.common.util;
 
+import com.jamieswhiteshirt.clothesline.api.PackedGraph;
 import com.jamieswhiteshirt.clothesline.api.Path;
-import it.unimi.dsi.fastutil.longs.LongArraySet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
-import it.unimi.dsi.fastutil.longs.LongSets;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 
+/**
+ * Computes the chunks a clothesline network passes through. Every edge is rasterized through the chunk grid in the XZ
+ * plane, so chunks crossed by a rope without containing any of its nodes are included.
+ */
 public class ChunkSpan {
     public static LongSet ofPath(Path path) {
-        LongSet result = new LongArraySet();
+        LongSet result = new LongOpenHashSet();
         for (BlockPos pos : path.getNodes().keySet()) {
-            int x = pos.getX() >> 4;
-            int z = pos.getZ() >> 4;
-            result.add(ChunkPos.asLong(x, z));
+            result.add(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+        }
+        for (Path.Edge edge : path.getEdges()) {
+            addEdge(result, edge.getLine().getFromPos(), edge.getLine().getToPos());
+        }
+        return SortedLongArraySet.of(result.toLongArray());
+    }
+
+    public static LongSet ofGraph(PackedGraph graph) {
+        LongSet result = new LongOpenHashSet();
+        for (int i = 0; i < graph.getNodeCount(); i++) {
+            BlockPos pos = graph.getNodePos(i);
+            result.add(ChunkPos.asLong(pos.getX() >> 4, pos.getZ() >> 4));
+        }
+        for (int i = 0; i < graph.getEdgeCount(); i++) {
+            addEdge(result, graph.getNodePos(graph.getEdgeFromNode(i)), graph.getNodePos(graph.getEdgeToNode(i)));
+        }
+        return SortedLongArraySet.of(result.toLongArray());
+    }
+
+    /**
+     * Adds the chunks crossed by the line between the centers of two blocks, walking the chunk grid in the XZ plane
+     * one chunk boundary at a time. A line passing exactly through a chunk corner adds one of the chunks beside the
+     * corner as well.
+     * @param result the set to add the chunks to
+     * @param from the block the line starts in
+     * @param to the block the line ends in
+     */
+    static void addEdge(LongSet result, BlockPos from, BlockPos to) {
+        int chunkX = from.getX() >> 4;
+        int chunkZ = from.getZ() >> 4;
+        int toChunkX = to.getX() >> 4;
+        int toChunkZ = to.getZ() >> 4;
+        int dx = to.getX() - from.getX();
+        int dz = to.getZ() - from.getZ();
+        int stepX = Integer.signum(dx);
+        int stepZ = Integer.signum(dz);
+        double fromX = from.getX() + 0.5D;
+        double fromZ = from.getZ() + 0.5D;
+        // The fraction of the line at which the next chunk boundary along each axis is crossed
+        double nextX = dx > 0 ? ((chunkX + 1) * 16 - fromX) / dx : dx < 0 ? (chunkX * 16 - fromX) / dx : Double.POSITIVE_INFINITY;
+        double nextZ = dz > 0 ? ((chunkZ + 1) * 16 - fromZ) / dz : dz < 0 ? (chunkZ * 16 - fromZ) / dz : Double.POSITIVE_INFINITY;
+        double stepFractionX = dx != 0 ? 16.0D / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        double stepFractionZ = dz != 0 ? 16.0D / Math.abs(dz) : Double.POSITIVE_INFINITY;
+
+        // Each step crosses exactly one boundary, so the number of steps is known regardless of rounding
+        int steps = Math.abs(toChunkX - chunkX) + Math.abs(toChunkZ - chunkZ);
+        for (int i = 0; i < steps; i++) {
+            if (chunkZ == toChunkZ || (chunkX != toChunkX && nextX < nextZ)) {
+                chunkX += stepX;
+                nextX += stepFractionX;
+            } else {
+                chunkZ += stepZ;
+                nextZ += stepFractionZ;
+            }
+            result.add(ChunkPos.asLong(chunkX, chunkZ));
         }
-        return LongSets.unmodifiable(result);
     }
 }
@@ -6,10 +6,21 @@ import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.common.util.Constants;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 
 public class NBTSerialization {
+    /**
+     * The version of the network state encoding written by {@link #writeNetworkState(BasicNetworkState)}.
+     * Version 0 encodes every tree node and attachment as a compound. Version 1 packs the tree and the attachment keys
+     * into int arrays.
+     */
+    public static final int NETWORK_STATE_VERSION = 1;
+    private static final int PACKED_NODE_SIZE = 5;
+
     public static NBTTagList writePersistentNetworks(List<BasicPersistentNetwork> networks) {
         NBTTagList nbt = new NBTTagList();
         for (BasicPersistentNetwork network : networks) {
@@ -41,6 +52,16 @@ public class NBTSerialization {
     }
 
     public static NBTTagCompound writeNetworkState(BasicNetworkState state) {
+        NBTTagCompound nbt = new NBTTagCompound();
+        nbt.setInteger("Version", NETWORK_STATE_VERSION);
+        nbt.setInteger("Shift", state.getShift());
+        nbt.setInteger("Momentum", state.getMomentum());
+        writePackedTree(nbt, state.getTree());
+        writePackedAttachments(nbt, state.getAttachments());
+        return nbt;
+    }
+
+    public static NBTTagCompound writeNetworkStateVersion0(BasicNetworkState state) {
         NBTTagCompound nbt = new NBTTagCompound();
         nbt.setInteger("Shift", state.getShift());
         nbt.setInteger("Momentum", state.getMomentum());
@@ -50,6 +71,14 @@ public class NBTSerialization {
     }
 
     public static BasicNetworkState readNetworkState(NBTTagCompound nbt) {
+        if (nbt.getInteger("Version") >= 1) {
+            return new BasicNetworkState(
+                nbt.getInteger("Shift"),
+                nbt.getInteger("Momentum"),
+                readPackedTree(nbt),
+                readPackedAttachments(nbt)
+            );
+        }
         return new BasicNetworkState(
             nbt.getInteger("Shift"),
             nbt.getInteger("Momentum"),
@@ -58,6 +87,133 @@ public class NBTSerialization {
         );
     }
 
+    /**
+     * Writes the tree in preorder. Each node is packed into {@code Nodes} as its position relative to its parent (or
+     * the absolute position for the root), its base rotation and its number of children. The length of the edge to
+     * each node but the root is packed into {@code Lengths} in the same order.
+     */
+    private static void writePackedTree(NBTTagCompound nbt, BasicTree root) {
+        List<BasicTree> nodes = new ArrayList<>();
+        List<BasicTree> parents = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        Deque<BasicTree.Edge> stack = new ArrayDeque<>();
+        Deque<BasicTree> parentStack = new ArrayDeque<>();
+        nodes.add(root);
+        parents.add(null);
+        pushEdges(root, stack, parentStack);
+        while (!stack.isEmpty()) {
+            BasicTree.Edge edge = stack.pop();
+            BasicTree parent = parentStack.pop();
+            nodes.add(edge.getTree());
+            parents.add(parent);
+            lengths.add(edge.getLength());
+            pushEdges(edge.getTree(), stack, parentStack);
+        }
+
+        int[] packedNodes = new int[nodes.size() * PACKED_NODE_SIZE];
+        for (int i = 0; i < nodes.size(); i++) {
+            BasicTree node = nodes.get(i);
+            BasicTree parent = parents.get(i);
+            BlockPos pos = parent != null ? node.getPos().subtract(parent.getPos()) : node.getPos();
+            int j = i * PACKED_NODE_SIZE;
+            packedNodes[j] = pos.getX();
+            packedNodes[j + 1] = pos.getY();
+            packedNodes[j + 2] = pos.getZ();
+            packedNodes[j + 3] = node.getBaseRotation();
+            packedNodes[j + 4] = node.getEdges().size();
+        }
+        nbt.setIntArray("Nodes", packedNodes);
+        nbt.setIntArray("Lengths", lengths.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static void pushEdges(BasicTree tree, Deque<BasicTree.Edge> stack, Deque<BasicTree> parentStack) {
+        // Pushed in reverse so the first edge is popped first
+        List<BasicTree.Edge> edges = tree.getEdges();
+        for (int i = edges.size() - 1; i >= 0; i--) {
+            stack.push(edges.get(i));
+            parentStack.push(tree);
+        }
+    }
+
+    private static BasicTree readPackedTree(NBTTagCompound nbt) {
+        int[] packedNodes = nbt.getIntArray("Nodes");
+        int[] lengths = nbt.getIntArray("Lengths");
+        int size = packedNodes.length / PACKED_NODE_SIZE;
+        if (size == 0 || lengths.length != size - 1) {
+            throw new IllegalArgumentException("Invalid packed tree with " + size + " nodes and " + lengths.length + " lengths");
+        }
+
+        // Resolve absolute positions in preorder, tracking how many children of each open node are left
+        BlockPos[] positions = new BlockPos[size];
+        positions[0] = new BlockPos(packedNodes[0], packedNodes[1], packedNodes[2]);
+        int[] openNodes = new int[size];
+        int[] remainingChildren = new int[size];
+        int depth = 0;
+        openNodes[0] = 0;
+        remainingChildren[0] = packedNodes[4];
+        for (int i = 1; i < size; i++) {
+            while (depth >= 0 && remainingChildren[depth] == 0) depth--;
+            if (depth < 0) {
+                throw new IllegalArgumentException("Invalid packed tree with more nodes than children");
+            }
+            remainingChildren[depth]--;
+            int j = i * PACKED_NODE_SIZE;
+            positions[i] = positions[openNodes[depth]].add(packedNodes[j], packedNodes[j + 1], packedNodes[j + 2]);
+            depth++;
+            openNodes[depth] = i;
+            remainingChildren[depth] = packedNodes[j + 4];
+        }
+
+        // Build the trees in reverse preorder, so the children of a node are on the stack in order when it is built
+        BasicTree[] trees = new BasicTree[size];
+        int[] stack = new int[size];
+        int stackSize = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            int j = i * PACKED_NODE_SIZE;
+            int edgeCount = packedNodes[j + 4];
+            if (edgeCount > stackSize) {
+                throw new IllegalArgumentException("Invalid packed tree with more children than nodes");
+            }
+            BasicTree.Edge[] edges = new BasicTree.Edge[edgeCount];
+            for (int k = 0; k < edgeCount; k++) {
+                int child = stack[--stackSize];
+                edges[k] = new BasicTree.Edge(lengths[child - 1], trees[child]);
+                trees[child] = null;
+            }
+            trees[i] = new BasicTree(positions[i], Arrays.asList(edges), packedNodes[j + 3]);
+            stack[stackSize++] = i;
+        }
+        return trees[0];
+    }
+
+    /**
+     * Writes the attachment keys into {@code AttachmentKeys} and their stacks into the parallel {@code AttachmentStacks}.
+     */
+    private static void writePackedAttachments(NBTTagCompound nbt, List<BasicAttachment> attachments) {
+        int[] keys = new int[attachments.size()];
+        NBTTagList stacks = new NBTTagList();
+        for (int i = 0; i < attachments.size(); i++) {
+            BasicAttachment attachment = attachments.get(i);
+            keys[i] = attachment.getKey();
+            stacks.appendTag(attachment.getStack().serializeNBT());
+        }
+        nbt.setIntArray("AttachmentKeys", keys);
+        nbt.setTag("AttachmentStacks", stacks);
+    }
+
+    private static List<BasicAttachment> readPackedAttachments(NBTTagCompound nbt) {
+        int[] keys = nbt.getIntArray("AttachmentKeys");
+        NBTTagList stacks = nbt.getTagList("AttachmentStacks", Constants.NBT.TAG_COMPOUND);
+        if (keys.length != stacks.tagCount()) {
+            throw new IllegalArgumentException("Invalid packed attachments with " + keys.length + " keys and " + stacks.tagCount() + " stacks");
+        }
+        BasicAttachment[] attachments = new BasicAttachment[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            attachments[i] = new BasicAttachment(keys[i], new ItemStack(stacks.getCompoundTagAt(i)));
+        }
+        return Arrays.asList(attachments);
+    }
+
     public static NBTTagCompound writeBasicTree(BasicTree tree) {
         NBTTagCompound nbt = new NBTTagCompound();
         nbt.setInteger("x", tree.getPos().getX());
@@ -0,0 +1,35 @@
+package com.jamieswhiteshirt.clothesline.common.util;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Hashes the content of a network state, being its tree and its attachments. Shift and momentum are not part of the
+ * content, so a network keeps its content hash while it is in motion.
+ */
+public final class NetworkContentHash {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    public static long of(BasicNetworkState state) {
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            ByteBufSerialization.writeNetworkTree(buf, state.getTree());
+            long treeHash = hash(buf);
+            buf.clear();
+            ByteBufSerialization.writeNetworkAttachments(buf, state.getAttachments());
+            long attachmentHash = hash(buf);
+            return 31L * treeHash + attachmentHash;
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static long hash(ByteBuf buf) {
+        return HASH_FUNCTION.hashBytes(buf.array(), buf.arrayOffset() + buf.readerIndex(), buf.readableBytes()).asLong();
+    }
+
+    private NetworkContentHash() {
+    }
+}
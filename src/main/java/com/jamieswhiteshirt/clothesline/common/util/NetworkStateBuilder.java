@@ -1,8 +1,7 @@
 package com.jamieswhiteshirt.clothesline.common.util;
 
 import com.jamieswhiteshirt.clothesline.api.INetworkState;
-import com.jamieswhiteshirt.clothesline.api.Path;
-import com.jamieswhiteshirt.clothesline.api.Tree;
+import com.jamieswhiteshirt.clothesline.api.PackedGraph;
 import com.jamieswhiteshirt.clothesline.common.impl.NetworkState;
 import com.jamieswhiteshirt.clothesline.api.util.MutableSortedIntMap;
 import it.unimi.dsi.fastutil.longs.LongSet;
@@ -100,10 +99,9 @@ public final class NetworkStateBuilder {
 
     public INetworkState build() {
         LinkedList<MutableSortedIntMap<ItemStack>> attachmentsList = new LinkedList<>();
-        Tree tree = treeRoot.build(attachmentsList, 0);
-        Path path = PathBuilder.buildPath(tree);
-        LongSet chunkSpan = ChunkSpan.ofPath(path);
-        return new NetworkState(0, 0, momentum, momentum, tree, path, chunkSpan, MutableSortedIntMap.concatenate(attachmentsList));
+        PackedGraph graph = PackedGraph.fromTree(treeRoot.build(attachmentsList, 0));
+        LongSet chunkSpan = ChunkSpan.ofGraph(graph);
+        return new NetworkState(0, 0, momentum, momentum, graph, chunkSpan, MutableSortedIntMap.concatenate(attachmentsList));
     }
 
     @Override
@@ -1,6 +1,7 @@
 package com.jamieswhiteshirt.clothesline.common.util;
 
 import com.jamieswhiteshirt.clothesline.api.*;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import net.minecraft.util.math.BlockPos;
 
 import java.util.ArrayList;
@@ -14,6 +15,7 @@ public final class PathBuilder {
     public final class NodeBuilder {
         private final BlockPos pos;
         private final List<Path.Edge> edges = new ArrayList<>();
+        private final LongArrayList sortKeys = new LongArrayList();
         private final int baseRotation;
 
         private NodeBuilder(BlockPos pos, int baseRotation) {
@@ -21,17 +23,19 @@ public final class PathBuilder {
             this.baseRotation = baseRotation;
         }
 
-        private void putEdge(Path.Edge edge, int minIndex, int maxIndex) {
+        private void putEdge(Path.Edge edge, long angleKey, long lengthKey, int minIndex, int maxIndex) {
             if (minIndex != maxIndex) {
                 int middleIndex = (minIndex + maxIndex) / 2;
-                int comparison = DeltaComparator.getInstance().compare(edge.getDelta(), edges.get(middleIndex).getDelta());
+                int comparison = DeltaComparator.compareKeys(angleKey, lengthKey, sortKeys.getLong(middleIndex * 2), sortKeys.getLong(middleIndex * 2 + 1));
                 if (comparison < 0) {
-                    putEdge(edge, minIndex, middleIndex);
+                    putEdge(edge, angleKey, lengthKey, minIndex, middleIndex);
                 } else if (comparison > 0) {
-                    putEdge(edge, middleIndex + 1, maxIndex);
+                    putEdge(edge, angleKey, lengthKey, middleIndex + 1, maxIndex);
                 }
             } else {
                 edges.add(minIndex, edge);
+                sortKeys.add(minIndex * 2, angleKey);
+                sortKeys.add(minIndex * 2 + 1, lengthKey);
             }
         }
 
@@ -39,7 +43,7 @@ public final class PathBuilder {
             int minOffset = getMaxOffset();
             Path.Edge edge = new Path.Edge(toPos.subtract(this.pos), new Line(this.pos, toPos), minOffset, minOffset + length);
             allEdges.add(edge);
-            putEdge(edge, 0, edges.size());
+            putEdge(edge, DeltaComparator.getAngleKey(edge.getDelta()), DeltaComparator.getLengthKey(edge.getDelta()), 0, edges.size());
         }
     }
 
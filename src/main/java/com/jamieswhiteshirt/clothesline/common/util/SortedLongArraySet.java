@@ -0,0 +1,55 @@
+package com.jamieswhiteshirt.clothesline.common.util;
+
+import it.unimi.dsi.fastutil.longs.AbstractLongSet;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongIterators;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of longs backed by a sorted array without duplicates. Membership is tested by binary search.
+ */
+public final class SortedLongArraySet extends AbstractLongSet {
+    /**
+     * Creates a set of the specified elements. The array is not retained.
+     * @param elements the elements, in any order and possibly with duplicates
+     * @return the set of the elements
+     */
+    public static SortedLongArraySet of(long[] elements) {
+        long[] sorted = Arrays.copyOf(elements, elements.length);
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || sorted[size - 1] != sorted[i]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return new SortedLongArraySet(size == sorted.length ? sorted : Arrays.copyOf(sorted, size));
+    }
+
+    private final long[] elements;
+
+    private SortedLongArraySet(long[] elements) {
+        this.elements = elements;
+    }
+
+    @Override
+    public boolean contains(long k) {
+        return Arrays.binarySearch(elements, k) >= 0;
+    }
+
+    @Override
+    public LongIterator iterator() {
+        return LongIterators.wrap(elements);
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    @Override
+    public long[] toLongArray() {
+        return elements.clone();
+    }
+}
@@ -35,6 +35,8 @@ public final class TreeBuilder {
 
     private static final class Edge {
         private final BlockPos delta;
+        private final long angleKey;
+        private final long lengthKey;
         private final int length;
         private final MutableSortedIntMap<ItemStack> preAttachments;
         private final TreeBuilder tree;
@@ -52,6 +54,8 @@ public final class TreeBuilder {
 
         private Edge(BlockPos delta, int length, MutableSortedIntMap<ItemStack> preAttachments, TreeBuilder tree, MutableSortedIntMap<ItemStack> postAttachments) {
             this.delta = delta;
+            this.angleKey = DeltaComparator.getAngleKey(delta);
+            this.lengthKey = DeltaComparator.getLengthKey(delta);
             this.length = length;
             this.preAttachments = preAttachments;
             this.tree = tree;
@@ -102,10 +106,11 @@ public final class TreeBuilder {
         return new TreeBuilder(root, new ArrayList<>(), 0);
     }
 
-    private int flooredEdgeIndex(BlockPos delta, int left, int right) {
+    private int flooredEdgeIndex(long angleKey, long lengthKey, int left, int right) {
         while (left < right) {
             int mid = (left + right) / 2;
-            int comparison = DeltaComparator.getInstance().compare(edges.get(mid).delta, delta);
+            Edge edge = edges.get(mid);
+            int comparison = DeltaComparator.compareKeys(edge.angleKey, edge.lengthKey, angleKey, lengthKey);
             if (comparison > 0) {
                 right = mid;
             } else {
@@ -116,7 +121,7 @@ public final class TreeBuilder {
     }
 
     public int flooredEdgeIndex(BlockPos delta) {
-        return flooredEdgeIndex(delta, 0, edges.size());
+        return flooredEdgeIndex(DeltaComparator.getAngleKey(delta), DeltaComparator.getLengthKey(delta), 0, edges.size());
     }
 
     private final BlockPos pos;
@@ -157,7 +162,7 @@ public final class TreeBuilder {
     }
 
     private void addEdge(Edge edge) {
-        int insertionIndex = flooredEdgeIndex(edge.delta);
+        int insertionIndex = flooredEdgeIndex(edge.angleKey, edge.lengthKey, 0, edges.size());
         edges.add(insertionIndex, edge);
     }
 
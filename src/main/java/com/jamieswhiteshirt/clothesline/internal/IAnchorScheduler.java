@@ -0,0 +1,13 @@
+package com.jamieswhiteshirt.clothesline.internal;
+
+import com.jamieswhiteshirt.clothesline.common.tileentity.TileEntityClotheslineAnchor;
+
+public interface IAnchorScheduler {
+    void load(TileEntityClotheslineAnchor anchor);
+
+    void unload(TileEntityClotheslineAnchor anchor);
+
+    void setScheduled(TileEntityClotheslineAnchor anchor, boolean scheduled);
+
+    void update();
+}
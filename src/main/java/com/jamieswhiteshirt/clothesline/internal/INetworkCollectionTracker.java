@@ -1,9 +1,20 @@
 package com.jamieswhiteshirt.clothesline.internal;
 
+import com.jamieswhiteshirt.clothesline.api.INetwork;
+
 public interface INetworkCollectionTracker<T> {
     void onWatchChunk(T watcher, int x, int z);
 
     void onUnWatchChunk(T watcher, int x, int z);
 
+    /**
+     * Sends the full state of a network to a watcher that could not add it from its cache, if it watches the network.
+     * @param watcher the watcher
+     * @param networkId the ID of the network
+     */
+    void onNetworkRequested(T watcher, int networkId);
+
+    boolean isWatched(INetwork network);
+
     void update();
 }
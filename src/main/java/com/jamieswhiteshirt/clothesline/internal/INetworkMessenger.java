@@ -4,11 +4,32 @@ import com.jamieswhiteshirt.clothesline.api.INetwork;
 import net.minecraft.item.ItemStack;
 
 public interface INetworkMessenger<T> {
+    /**
+     * Adds the network to the watcher. The watcher may add it from a cache of networks it has watched before, in which
+     * case only the content hash of the network is sent.
+     * @param watcher the watcher
+     * @param network the network
+     */
     void addNetwork(T watcher, INetwork network);
 
+    /**
+     * Sends the full state of a network the watcher has been added to but could not add from its cache.
+     * @param watcher the watcher
+     * @param network the network
+     */
+    void sendNetwork(T watcher, INetwork network);
+
     void removeNetwork(T watcher, INetwork network);
 
     void setAttachment(T watcher, INetwork network, int attachmentKey, ItemStack stack);
 
-    void setShiftAndMomentum(T watcher, INetwork network, int shift, int momentum);
+    /**
+     * Sends the shift and momentum of the network at the specified tick. The watcher simulates the network from there.
+     * @param watcher the watcher
+     * @param network the network
+     * @param tick the tick of the tracker the shift and momentum are sent on
+     * @param shift the shift
+     * @param momentum the momentum
+     */
+    void setShiftAndMomentum(T watcher, INetwork network, int tick, int shift, int momentum);
 }
@@ -1,13 +1,36 @@
 package com.jamieswhiteshirt.clothesline.internal;
 
+import net.minecraft.nbt.NBTTagList;
+
 import java.util.Collection;
 import java.util.UUID;
 
 public interface INetworkProvider {
     void reset(Collection<PersistentNetwork> persistentNetworks);
 
+    /**
+     * Returns all persistent networks, decoding those that are only held in encoded form.
+     * @return all persistent networks
+     */
     Collection<PersistentNetwork> getNetworks();
 
+    /**
+     * Encodes all persistent networks. Networks of which the state has not changed since they were last encoded reuse
+     * their previous encoding, which must not be modified.
+     * @return the encoded persistent networks
+     */
+    NBTTagList writeNetworks();
+
+    /**
+     * Writes the networks that have changed since they were last saved to storage, if there is storage.
+     */
+    void save();
+
+    /**
+     * Compacts networks that have not been loaded for the configured number of ticks into their encoded form.
+     */
+    void update();
+
     void addNetwork(PersistentNetwork persistentNetwork);
 
     void removeNetwork(UUID uuid);
@@ -10,7 +10,11 @@ public interface IWorldEventDispatcher {
 
     void onPlayerUnWatchChunk(EntityPlayerMP player, Chunk chunk);
 
+    void onPlayerRequestNetwork(EntityPlayerMP player, int networkId);
+
     void onChunkLoaded(int x, int z);
 
     void onChunkUnloaded(int x, int z);
+
+    void onUnload();
 }
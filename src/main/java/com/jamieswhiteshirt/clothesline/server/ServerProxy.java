@@ -17,8 +17,9 @@ public class ServerProxy extends CommonProxy {
         networkChannel.registerMessage(DummyMessageHandler.INSTANCE, SetAttachmentMessage.class, 3, Side.CLIENT);
         networkChannel.registerMessage(DummyMessageHandler.INSTANCE, RemoveAttachmentMessage.class, 4, Side.CLIENT);
         networkChannel.registerMessage(DummyMessageHandler.INSTANCE, SetConnectorPosMessage.class, 10, Side.CLIENT);
-        networkChannel.registerMessage(DummyMessageHandler.INSTANCE, UpdateNetworkMessage.class, 11, Side.CLIENT);
         networkChannel.registerMessage(DummyMessageHandler.INSTANCE, SetAnchorHasCrankMessage.class, 12, Side.CLIENT);
+        networkChannel.registerMessage(DummyMessageHandler.INSTANCE, BatchNetworkMessage.class, 13, Side.CLIENT);
+        networkChannel.registerMessage(DummyMessageHandler.INSTANCE, AddNetworkByHashMessage.class, 14, Side.CLIENT);
         return networkChannel;
     }
 }
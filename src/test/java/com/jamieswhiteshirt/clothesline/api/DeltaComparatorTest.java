@@ -1,10 +1,35 @@
 package com.jamieswhiteshirt.clothesline.api;
 
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3i;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 public class DeltaComparatorTest {
+    private static final int SAMPLES = 100000;
+
+    int compareByKeys(Vec3i a, Vec3i b) {
+        return DeltaComparator.compareKeys(
+            DeltaComparator.getAngleKey(a), DeltaComparator.getLengthKey(a),
+            DeltaComparator.getAngleKey(b), DeltaComparator.getLengthKey(b)
+        );
+    }
+
+    void assertKeysAgree(Vec3i a, Vec3i b) {
+        int expected = Integer.signum(DeltaComparator.getInstance().compare(a, b));
+        int actual = Integer.signum(compareByKeys(a, b));
+        Assertions.assertEquals(expected, actual, "Expected keys of " + a + " and " + b + " to compare like the vectors");
+    }
+
+    Vec3i randomVec(Random random, int range) {
+        return new Vec3i(
+            random.nextInt(2 * range + 1) - range,
+            random.nextInt(2 * range + 1) - range,
+            random.nextInt(2 * range + 1) - range
+        );
+    }
     void assertStrictlyOrdered(BlockPos[] vecs) {
         for (int i = 1; i < vecs.length; i++) {
             for (int j = 0; j < vecs.length; j++) {
@@ -61,4 +86,52 @@ public class DeltaComparatorTest {
             new BlockPos(2, 1, -2)
         });
     }
+
+    @Test
+    void keysCompareLikeSmallVectors() {
+        Random random = new Random(0L);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertKeysAgree(randomVec(random, 3), randomVec(random, 3));
+        }
+    }
+
+    @Test
+    void keysCompareLikeLargeVectors() {
+        Random random = new Random(1L);
+        int[] ranges = { 64, 4096, (1 << 26) - 1 };
+        for (int range : ranges) {
+            for (int i = 0; i < SAMPLES; i++) {
+                assertKeysAgree(randomVec(random, range), randomVec(random, range));
+            }
+        }
+    }
+
+    @Test
+    void keysCompareLikeCollinearVectors() {
+        Random random = new Random(2L);
+        for (int i = 0; i < SAMPLES; i++) {
+            Vec3i a = randomVec(random, 1 << 12);
+            int scale = 1 + random.nextInt(8);
+            Vec3i b = new Vec3i(a.getX() * scale, random.nextInt(3) - 1 + a.getY(), a.getZ() * scale);
+            assertKeysAgree(a, b);
+            assertKeysAgree(b, a);
+        }
+    }
+
+    @Test
+    void keysCompareLikeNearlyCollinearVectors() {
+        Random random = new Random(3L);
+        int range = (1 << 26) - 2;
+        for (int i = 0; i < SAMPLES; i++) {
+            Vec3i a = randomVec(random, range);
+            Vec3i b = new Vec3i(a.getX() + random.nextInt(3) - 1, a.getY(), a.getZ() + random.nextInt(3) - 1);
+            assertKeysAgree(a, b);
+        }
+    }
+
+    @Test
+    void rejectsVectorsOutOfKeyRange() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DeltaComparator.getAngleKey(new Vec3i(1 << 26, 0, 0)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DeltaComparator.getAngleKey(new Vec3i(0, 0, -(1 << 26))));
+    }
 }
@@ -0,0 +1,196 @@
+package com.jamieswhiteshirt.clothesline.api;
+
+import com.jamieswhiteshirt.clothesline.common.util.BasicTree;
+import com.jamieswhiteshirt.clothesline.common.util.PathBuilder;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class PackedGraphTest {
+    // Object layout of a 64-bit JVM with compressed references, see the footprint test
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final long BLOCK_POS = objectBytes(0, 3);
+
+    private static BasicTree createBranch(int x, int z, int branchLength) {
+        List<BasicTree.Edge> edges = new ArrayList<>();
+        if (z < branchLength) {
+            edges.add(createEdge(new BlockPos(x * 2, 0, z * 2), createBranch(x, z + 1, branchLength)));
+        }
+        return new BasicTree(new BlockPos(x * 2, 0, z * 2), edges, 0);
+    }
+
+    private static BasicTree createSpine(int x, int spineLength, int branchLength) {
+        List<BasicTree.Edge> edges = new ArrayList<>();
+        BlockPos pos = new BlockPos(x * 2, 0, 0);
+        if (x < spineLength) {
+            edges.add(createEdge(pos, createSpine(x + 1, spineLength, branchLength)));
+        }
+        edges.add(createEdge(pos, createBranch(x, 1, branchLength)));
+        return new BasicTree(pos, edges, 0);
+    }
+
+    private static BasicTree.Edge createEdge(BlockPos from, BasicTree tree) {
+        return new BasicTree.Edge(AttachmentUnit.lengthBetween(from, tree.getPos()), tree);
+    }
+
+    /**
+     * Builds a comb: a spine along the X axis with a branch along the Z axis at every spine node.
+     */
+    static Tree createComb(int spineLength, int branchLength) {
+        return createSpine(0, spineLength, branchLength).toAbsolute();
+    }
+
+    @Test
+    void materializesEquivalentTree() {
+        Tree tree = createComb(5, 3);
+        Assertions.assertEquals(tree, PackedGraph.fromTree(tree).toTree());
+    }
+
+    @Test
+    void materializesEquivalentPath() {
+        Tree tree = createComb(5, 3);
+        Path expected = PathBuilder.buildPath(tree);
+        Path actual = PackedGraph.fromTree(tree).toPath();
+        Assertions.assertEquals(expected.getEdges(), actual.getEdges());
+        Assertions.assertEquals(expected.getNodes(), actual.getNodes());
+        Assertions.assertEquals(expected.getLength(), actual.getLength());
+    }
+
+    @Test
+    void materializesEmptyTree() {
+        Tree tree = Tree.empty(new BlockPos(1, 2, 3), 0, 0);
+        PackedGraph graph = PackedGraph.fromTree(tree);
+        Assertions.assertTrue(graph.isEmpty());
+        Assertions.assertEquals(tree, graph.toTree());
+        Assertions.assertTrue(graph.toPath().isEmpty());
+    }
+
+    @Test
+    void findsPositionsForOffsets() {
+        Tree tree = createComb(5, 3);
+        Path path = PathBuilder.buildPath(tree);
+        PackedGraph graph = PackedGraph.fromTree(tree);
+        for (int offset = 0; offset < path.getLength(); offset += 7) {
+            Vec3d expected = path.getPositionForOffset(offset);
+            Vec3d actual = graph.getPositionForOffset(offset);
+            Assertions.assertEquals(expected, actual, "Position for offset " + offset);
+            Assertions.assertEquals(path.getEdges().indexOf(path.getEdgeForPosition(offset)), graph.getEdgeForOffset(offset));
+        }
+    }
+
+    @Test
+    void findsOffsetsForDeltas() {
+        Tree tree = createComb(5, 3);
+        Path path = PathBuilder.buildPath(tree);
+        PackedGraph graph = PackedGraph.fromTree(tree);
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            Path.Node pathNode = path.getNodes().get(graph.getNodePos(node));
+            for (EnumFacing facing : EnumFacing.values()) {
+                Assertions.assertEquals(
+                    pathNode.getOffsetForDelta(facing.getDirectionVec()),
+                    graph.getNodeOffsetForDelta(node, facing.getDirectionVec()),
+                    "Offset for " + facing + " at node " + node
+                );
+            }
+        }
+    }
+
+    @Test
+    void readsBasicTree() {
+        BasicTree tree = createSpine(0, 5, 3);
+        Assertions.assertEquals(tree, BasicTree.fromGraph(PackedGraph.fromTree(tree.toAbsolute())));
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static long objectBytes(int referenceFields, int intFields) {
+        return align(OBJECT_HEADER + (long) REFERENCE * referenceFields + 4L * intFields);
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        return align(ARRAY_HEADER + (long) length * elementBytes);
+    }
+
+    private static long listBytes(int size) {
+        // ArrayList with a backing array of exactly the size of the list
+        return objectBytes(1, 2) + arrayBytes(size, REFERENCE);
+    }
+
+    private static long packedBytes(PackedGraph graph) {
+        int nodes = graph.getNodeCount();
+        int edges = graph.getEdgeCount();
+        return objectBytes(9, 0) +
+            arrayBytes(nodes, 8) +
+            4 * arrayBytes(nodes, 4) +
+            arrayBytes(edges + 1, 4) +
+            arrayBytes(edges, 4) +
+            arrayBytes(nodes + 1, 4) +
+            arrayBytes(edges, 4);
+    }
+
+    private static long treeBytes(Tree tree) {
+        long bytes = objectBytes(2, 3) + BLOCK_POS + listBytes(tree.getEdges().size());
+        for (Tree.Edge edge : tree.getEdges()) {
+            bytes += objectBytes(2, 2) + BLOCK_POS + treeBytes(edge.getTree());
+        }
+        return bytes;
+    }
+
+    private static long pathBytes(Path path) {
+        long bytes = objectBytes(2, 0) + listBytes(path.getEdges().size());
+        for (Path.Edge edge : path.getEdges()) {
+            // The edge, its delta, its line and the two positions of the line
+            bytes += objectBytes(2, 2) + BLOCK_POS + objectBytes(2, 0) + 2 * BLOCK_POS;
+        }
+        int tableSize = 1;
+        while (tableSize * 3 < path.getNodes().size() * 4) {
+            tableSize <<= 1;
+        }
+        bytes += objectBytes(4, 4) + arrayBytes(tableSize, REFERENCE);
+        for (Path.Node node : path.getNodes().values()) {
+            // The hash map entry, the node, its position, its list of edges and its sort keys
+            int edgeCount = node.getEdges().size();
+            bytes += objectBytes(3, 1) + objectBytes(3, 1) + BLOCK_POS + listBytes(edgeCount) + arrayBytes(edgeCount * 2, 8);
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the retained size of the packed graph and of the equivalent tree and path from a fixed object layout
+     * rather than measuring the heap, so the result does not depend on the JVM running the test.
+     */
+    @Test
+    void packsPathEdgesIntoFewerBytesThanObjectGraph() {
+        Tree tree = createComb(50, 10);
+        PackedGraph graph = PackedGraph.fromTree(tree);
+
+        long packed = packedBytes(graph);
+        long objects = treeBytes(tree) + pathBytes(PathBuilder.buildPath(tree));
+
+        Assertions.assertTrue(packed <= 32L * graph.getEdgeCount(), "Packed graph takes " + packed + " bytes for " + graph.getEdgeCount() + " path edges");
+        Assertions.assertTrue(4 * packed < objects, "Packed graph takes " + packed + " bytes, tree and path take " + objects + " bytes");
+    }
+
+    @Test
+    void storesTwoPathEdgesPerTreeEdge() {
+        // A comb with a spine of 51 nodes and a branch of 10 nodes at every spine node: 561 nodes, 560 tree edges
+        PackedGraph graph = PackedGraph.fromTree(createComb(50, 10));
+        Assertions.assertEquals(561, graph.getNodeCount());
+        Assertions.assertEquals(2 * 560, graph.getEdgeCount());
+
+        int nodeEdgeCount = 0;
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            nodeEdgeCount += graph.getNodeEdgeCount(node);
+        }
+        Assertions.assertEquals(graph.getEdgeCount(), nodeEdgeCount);
+    }
+}
@@ -0,0 +1,184 @@
+package com.jamieswhiteshirt.clothesline.impl;
+
+import com.jamieswhiteshirt.clothesline.api.INetwork;
+import com.jamieswhiteshirt.clothesline.api.INetworkCollection;
+import com.jamieswhiteshirt.clothesline.api.INetworkManager;
+import com.jamieswhiteshirt.clothesline.common.impl.AnchorScheduler;
+import com.jamieswhiteshirt.clothesline.common.impl.Network;
+import com.jamieswhiteshirt.clothesline.common.impl.NetworkCollection;
+import com.jamieswhiteshirt.clothesline.common.tileentity.TileEntityClotheslineAnchor;
+import com.jamieswhiteshirt.clothesline.common.util.NetworkStateBuilder;
+import com.jamieswhiteshirt.clothesline.internal.PersistentNetwork;
+import net.minecraft.init.Blocks;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.items.IItemHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.util.UUID;
+
+class AnchorSchedulerTest {
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    BlockPos pos0 = new BlockPos(0, 0, 0);
+    BlockPos pos1 = new BlockPos(4, 0, 0);
+    // The block at the anchor has metadata 0, so the anchor faces down and its neighbour is above it
+    BlockPos neighbourPos = pos0.up();
+
+    INetworkCollection collection;
+    AnchorScheduler scheduler;
+    INetworkManager manager;
+    World world;
+
+    @BeforeEach
+    void resetScheduler() {
+        collection = new NetworkCollection();
+        scheduler = new AnchorScheduler(collection);
+        manager = Mockito.mock(INetworkManager.class);
+        world = Mockito.mock(World.class);
+        // The capabilities are not injected in tests, so the manager and the scheduler are looked up in this order
+        Mockito.when(world.getCapability(ArgumentMatchers.any(), ArgumentMatchers.any())).thenReturn(manager, scheduler);
+        Mockito.when(world.getBlockState(pos0)).thenReturn(Blocks.STONE.getDefaultState());
+        Mockito.when(world.isBlockLoaded(neighbourPos)).thenReturn(true);
+    }
+
+    INetwork createNetwork() {
+        NetworkStateBuilder stateBuilder = NetworkStateBuilder.emptyRoot(0, pos0);
+        stateBuilder.addEdge(pos0, pos1);
+        return new Network(0, new PersistentNetwork(new UUID(0, 0), stateBuilder.build()));
+    }
+
+    TileEntityClotheslineAnchor createAnchor() {
+        TileEntityClotheslineAnchor anchor = new TileEntityClotheslineAnchor();
+        anchor.setWorld(world);
+        anchor.setPos(pos0);
+        // Spy on the anchor to observe the updates the scheduler performs
+        return Mockito.spy(anchor);
+    }
+
+    void setNeighbourInventory(boolean hasInventory) {
+        if (hasInventory) {
+            TileEntity neighbour = Mockito.mock(TileEntity.class);
+            Mockito.when(neighbour.hasCapability(ArgumentMatchers.any(), ArgumentMatchers.any())).thenReturn(true);
+            Mockito.when(neighbour.getCapability(ArgumentMatchers.any(), ArgumentMatchers.any())).thenReturn(Mockito.mock(IItemHandler.class));
+            Mockito.when(world.getTileEntity(neighbourPos)).thenReturn(neighbour);
+        } else {
+            Mockito.when(world.getTileEntity(neighbourPos)).thenReturn(null);
+        }
+    }
+
+    void load(TileEntityClotheslineAnchor anchor) {
+        scheduler.load(anchor);
+        anchor.refreshNeighbour();
+    }
+
+    @Test
+    void doesNotScheduleAnchorWithoutInventoryNeighbour() {
+        setNeighbourInventory(false);
+        TileEntityClotheslineAnchor anchor = createAnchor();
+        load(anchor);
+
+        scheduler.update();
+        Mockito.verify(anchor, Mockito.never()).update();
+    }
+
+    @Test
+    void drivesAnchorWithCrankAndPowerWithoutScheduling() {
+        setNeighbourInventory(false);
+        TileEntityClotheslineAnchor anchor = createAnchor();
+        NBTTagCompound compound = new NBTTagCompound();
+        compound.setInteger("x", pos0.getX());
+        compound.setInteger("y", pos0.getY());
+        compound.setInteger("z", pos0.getZ());
+        compound.setBoolean("HasCrank", true);
+        compound.setInteger("ConstantPower", 12);
+        anchor.readFromNBT(compound);
+        load(anchor);
+
+        // Power drives the network through the manager, and cranking is done by players, so neither needs updates
+        Mockito.verify(manager).setPower(pos0, 12);
+        Assertions.assertTrue(anchor.getHasCrank());
+        scheduler.update();
+        Mockito.verify(anchor, Mockito.never()).update();
+    }
+
+    @Test
+    void schedulesAnchorWithInventoryNeighbour() {
+        setNeighbourInventory(true);
+        TileEntityClotheslineAnchor anchor = createAnchor();
+        load(anchor);
+
+        scheduler.update();
+        scheduler.update();
+        Mockito.verify(anchor, Mockito.times(2)).update();
+    }
+
+    @Test
+    void refreshingNeighbourSchedulesAndUnschedulesAnchor() {
+        setNeighbourInventory(false);
+        TileEntityClotheslineAnchor anchor = createAnchor();
+        load(anchor);
+
+        setNeighbourInventory(true);
+        anchor.refreshNeighbour();
+        scheduler.update();
+        Mockito.verify(anchor, Mockito.times(1)).update();
+
+        setNeighbourInventory(false);
+        anchor.refreshNeighbour();
+        scheduler.update();
+        Mockito.verify(anchor, Mockito.times(1)).update();
+    }
+
+    @Test
+    void unloadingUnschedulesAnchor() {
+        setNeighbourInventory(true);
+        TileEntityClotheslineAnchor anchor = createAnchor();
+        load(anchor);
+
+        scheduler.unload(anchor);
+        scheduler.update();
+        Mockito.verify(anchor, Mockito.never()).update();
+    }
+
+    @Test
+    void followsNetworkNodeThroughCollectionEvents() {
+        TileEntityClotheslineAnchor anchor = createAnchor();
+        scheduler.load(anchor);
+        Assertions.assertNull(anchor.getNetworkNode());
+
+        INetwork network = createNetwork();
+        collection.add(network);
+        Assertions.assertNotNull(anchor.getNetworkNode());
+        Assertions.assertEquals(network, anchor.getNetworkNode().getNetwork());
+        Assertions.assertEquals(pos0, anchor.getNetworkNode().getPos());
+
+        collection.remove(network);
+        Assertions.assertNull(anchor.getNetworkNode());
+    }
+
+    @Test
+    void looksUpNetworkNodeWhenLoaded() {
+        INetwork network = createNetwork();
+        collection.add(network);
+
+        TileEntityClotheslineAnchor anchor = createAnchor();
+        scheduler.load(anchor);
+        Assertions.assertNotNull(anchor.getNetworkNode());
+        Assertions.assertEquals(network, anchor.getNetworkNode().getNetwork());
+
+        scheduler.unload(anchor);
+        Assertions.assertNull(anchor.getNetworkNode());
+    }
+}
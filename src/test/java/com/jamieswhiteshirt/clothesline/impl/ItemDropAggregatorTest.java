@@ -0,0 +1,100 @@
+package com.jamieswhiteshirt.clothesline.impl;
+
+import com.jamieswhiteshirt.clothesline.common.impl.ItemDropAggregator;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.Vec3d;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class ItemDropAggregatorTest {
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    int countItems(List<ItemDropAggregator.Drop> drops, Item item) {
+        return drops.stream()
+            .filter(drop -> drop.getStack().getItem() == item)
+            .mapToInt(drop -> drop.getStack().getCount())
+            .sum();
+    }
+
+    @Test
+    void mergesEqualStacksInCell() {
+        ItemDropAggregator aggregator = new ItemDropAggregator();
+        aggregator.add(new Vec3d(0.25D, 0.5D, 0.5D), new ItemStack(Items.STICK));
+        aggregator.add(new Vec3d(0.75D, 0.5D, 0.5D), new ItemStack(Items.STICK));
+        aggregator.add(new Vec3d(0.5D, 0.5D, 0.5D), new ItemStack(Items.STRING));
+
+        List<ItemDropAggregator.Drop> drops = aggregator.merge(1, 64);
+        Assertions.assertEquals(2, drops.size());
+        Assertions.assertEquals(2, countItems(drops, Items.STICK));
+        Assertions.assertEquals(new Vec3d(0.25D, 0.5D, 0.5D), drops.get(0).getPos());
+    }
+
+    @Test
+    void splitsStacksAtMaxStackSize() {
+        ItemDropAggregator aggregator = new ItemDropAggregator();
+        for (int i = 0; i < 100; i++) {
+            aggregator.add(new Vec3d(0.5D, 0.5D, 0.5D), new ItemStack(Items.STICK));
+        }
+
+        List<ItemDropAggregator.Drop> drops = aggregator.merge(1, 64);
+        Assertions.assertEquals(2, drops.size());
+        Assertions.assertEquals(64, drops.get(0).getStack().getCount());
+        Assertions.assertEquals(36, drops.get(1).getStack().getCount());
+    }
+
+    @Test
+    void keepsStacksWithDistinctMetadataOrTagApart() {
+        ItemStack named = new ItemStack(Items.DYE, 1, 1);
+        named.setStackDisplayName("Named");
+
+        ItemDropAggregator aggregator = new ItemDropAggregator();
+        for (int i = 0; i < 10; i++) {
+            aggregator.add(new Vec3d(0.5D, 0.5D, 0.5D), new ItemStack(Items.DYE, 1, 1));
+            aggregator.add(new Vec3d(0.5D, 0.5D, 0.5D), new ItemStack(Items.DYE, 1, 2));
+            aggregator.add(new Vec3d(0.5D, 0.5D, 0.5D), named.copy());
+            aggregator.add(new Vec3d(0.5D, 0.5D, 0.5D), new ItemStack(Items.DIAMOND_SWORD));
+        }
+
+        List<ItemDropAggregator.Drop> drops = aggregator.merge(1, 64);
+        Assertions.assertEquals(13, drops.size());
+        Assertions.assertEquals(30, countItems(drops, Items.DYE));
+        Assertions.assertEquals(10, countItems(drops, Items.DIAMOND_SWORD));
+        for (ItemDropAggregator.Drop drop : drops) {
+            if (drop.getStack().getItem() == Items.DYE) {
+                Assertions.assertEquals(10, drop.getStack().getCount());
+            }
+        }
+    }
+
+    @Test
+    void coarsensCellsAboveEntityCap() {
+        ItemDropAggregator aggregator = new ItemDropAggregator();
+        for (int i = 0; i < 1000; i++) {
+            aggregator.add(new Vec3d(i + 0.5D, 0.5D, 0.5D), new ItemStack(Items.STICK));
+        }
+
+        List<ItemDropAggregator.Drop> drops = aggregator.merge(1, 16);
+        Assertions.assertTrue(drops.size() <= 16, "Expected at most 16 drops, found " + drops.size());
+        Assertions.assertEquals(1000, countItems(drops, Items.STICK));
+    }
+
+    @Test
+    void spawnsMergedStacksAtFirstItem() {
+        ItemDropAggregator aggregator = new ItemDropAggregator();
+        aggregator.add(new Vec3d(0.5D, 0.5D, 0.5D), new ItemStack(Items.STICK));
+        aggregator.add(new Vec3d(100.5D, 0.5D, 0.5D), new ItemStack(Items.STICK));
+
+        List<ItemDropAggregator.Drop> drops = aggregator.merge(1, 1);
+        Assertions.assertEquals(1, drops.size());
+        Assertions.assertEquals(new Vec3d(0.5D, 0.5D, 0.5D), drops.get(0).getPos());
+    }
+}
@@ -13,6 +13,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
@@ -108,7 +109,8 @@ public class NetworkCollectionTest {
             INetworkNode networkNode = collection.getNodes().get(entry.getKey());
 
             Assertions.assertEquals(network0, networkNode.getNetwork());
-            Assertions.assertEquals(entry.getValue(), networkNode.getPathNode());
+            Assertions.assertEquals(entry.getKey(), networkNode.getPos());
+            Assertions.assertEquals(entry.getValue().getBaseRotation(), networkNode.getBaseRotation());
         }
 
         collection.remove(network0);
@@ -126,7 +128,9 @@ public class NetworkCollectionTest {
         for (Path.Edge pathEdge : network0.getState().getPath().getEdges()) {
             INetworkEdge networkEdge = collection.getEdges().get(pathEdge.getLine());
             Assertions.assertEquals(network0, networkEdge.getNetwork());
-            Assertions.assertEquals(pathEdge, networkEdge.getPathEdge());
+            Assertions.assertEquals(pathEdge.getLine(), networkEdge.getLine());
+            Assertions.assertEquals(pathEdge.getFromOffset(), networkEdge.getFromOffset());
+            Assertions.assertEquals(pathEdge.getToOffset(), networkEdge.getToOffset());
             Assertions.assertEquals(i++, networkEdge.getIndex());
         }
 
@@ -173,4 +177,43 @@ public class NetworkCollectionTest {
 
         Mockito.verify(listener).onNetworkRemoved(collection, network0);
     }
+
+    @Test
+    void networksAtRestAreInactive() {
+        collection.add(network0);
+
+        Assertions.assertTrue(collection.getActiveValues().isEmpty());
+    }
+
+    @Test
+    void settingMomentumActivates() {
+        collection.add(network0);
+        network0.setMomentum(2);
+
+        Assertions.assertEquals(Collections.singletonList(network0), new ArrayList<>(collection.getActiveValues()));
+    }
+
+    @Test
+    void removesNetworksAtRest() {
+        collection.add(network0);
+        network0.setMomentum(2);
+        for (int i = 0; i < 2; i++) {
+            network0.update();
+            collection.removeNetworksAtRest();
+            Assertions.assertTrue(collection.getActiveValues().contains(network0), "Expected network to be active after " + (i + 1) + " updates");
+        }
+
+        network0.update();
+        collection.removeNetworksAtRest();
+        Assertions.assertTrue(collection.getActiveValues().isEmpty());
+    }
+
+    @Test
+    void removeDeactivates() {
+        collection.add(network0);
+        network0.setMomentum(2);
+        collection.remove(network0);
+
+        Assertions.assertTrue(collection.getActiveValues().isEmpty());
+    }
 }
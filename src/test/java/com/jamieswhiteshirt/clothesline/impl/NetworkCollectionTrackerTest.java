@@ -4,6 +4,7 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.SetMultimap;
 import com.jamieswhiteshirt.clothesline.api.INetwork;
 import com.jamieswhiteshirt.clothesline.api.INetworkCollection;
+import com.jamieswhiteshirt.clothesline.common.ClotheslineConfig;
 import com.jamieswhiteshirt.clothesline.internal.PersistentNetwork;
 import com.jamieswhiteshirt.clothesline.common.impl.Network;
 import com.jamieswhiteshirt.clothesline.common.impl.NetworkCollection;
@@ -15,6 +16,7 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 import java.util.Collection;
@@ -28,6 +30,7 @@ public class NetworkCollectionTrackerTest {
     SetMultimap<Long, Object> chunkWatchers;
     INetworkCollectionTracker<Object> tracker;
     Object watcher;
+    long watcherChunk;
 
     long chunk0 = ChunkPos.asLong(0, 0);
     long chunk1 = ChunkPos.asLong(1, 0);
@@ -55,8 +58,9 @@ public class NetworkCollectionTrackerTest {
         messenger = Mockito.mock(INetworkMessenger.class);
         chunkWatchers = HashMultimap.create();
         BiFunction<Integer, Integer, Collection<Object>> getChunkWatchers = (Integer x, Integer z) -> chunkWatchers.get(ChunkPos.asLong(x, z));
-        tracker = new NetworkCollectionTracker<>(collection, getChunkWatchers, messenger);
+        tracker = new NetworkCollectionTracker<>(collection, getChunkWatchers, watcher -> watcherChunk, messenger);
         watcher = new Object();
+        watcherChunk = chunk0;
     }
 
     @Test
@@ -67,10 +71,95 @@ public class NetworkCollectionTrackerTest {
 
         watchChunk(chunk0, watcher);
 
+        Mockito.verifyNoMoreInteractions(messenger);
+
+        tracker.update();
+
         Mockito.verify(messenger).addNetwork(watcher, network0);
 
         watchChunk(chunk1, watcher);
+        tracker.update();
+
+        Mockito.verifyNoMoreInteractions(messenger);
+    }
+
+    @Test
+    void sendsAddNetworkOnceForChunksWatchedInOneTick() {
+        collection.add(network0);
+        watchChunk(chunk0, watcher);
+        watchChunk(chunk1, watcher);
+        tracker.update();
+
+        Mockito.verify(messenger).addNetwork(watcher, network0);
+
+        unWatchChunk(chunk0, watcher);
+        tracker.update();
+
+        Mockito.verifyNoMoreInteractions(messenger);
+
+        unWatchChunk(chunk1, watcher);
+        tracker.update();
+
+        Mockito.verify(messenger).removeNetwork(watcher, network0);
+        Mockito.verifyNoMoreInteractions(messenger);
+    }
+
+    @Test
+    void sendsNearestNetworksFirst() {
+        long chunk4 = ChunkPos.asLong(4, 0);
+        long chunk8 = ChunkPos.asLong(8, 0);
+        INetwork network1 = createNetwork(1, new UUID(0, 1), new BlockPos(16 * 8, 0, 0), new BlockPos(16 * 8 + 1, 0, 0));
+        INetwork network2 = createNetwork(2, new UUID(0, 2), new BlockPos(16 * 4, 0, 0), new BlockPos(16 * 4 + 1, 0, 0));
+        collection.add(network1);
+        collection.add(network2);
+        collection.add(network0);
+
+        watchChunk(chunk8, watcher);
+        watchChunk(chunk4, watcher);
+        watchChunk(chunk0, watcher);
+        tracker.update();
+
+        InOrder inOrder = Mockito.inOrder(messenger);
+        inOrder.verify(messenger).addNetwork(watcher, network0);
+        inOrder.verify(messenger).addNetwork(watcher, network2);
+        inOrder.verify(messenger).addNetwork(watcher, network1);
+        Mockito.verifyNoMoreInteractions(messenger);
+    }
+
+    @Test
+    void sendsRequestedNetworkOnlyToWatchers() {
+        watchChunk(chunk0, watcher);
+        collection.add(network0);
+        Mockito.verify(messenger).addNetwork(watcher, network0);
+
+        Object otherWatcher = new Object();
+        tracker.onNetworkRequested(otherWatcher, network0.getId());
+        tracker.onNetworkRequested(watcher, network0.getId());
 
+        Mockito.verify(messenger).sendNetwork(watcher, network0);
+        Mockito.verifyNoMoreInteractions(messenger);
+    }
+
+    @Test
+    void sendsMotionToFarWatcherOnlyOnceNear() {
+        // The network spans chunks 0 and 1
+        watcherChunk = ChunkPos.asLong(ClotheslineConfig.farWatcherDistance + 2, 0);
+        watchChunk(chunk0, watcher);
+        collection.add(network0);
+        Mockito.verify(messenger).addNetwork(watcher, network0);
+
+        network0.setShift(1);
+        for (int i = 0; i < ClotheslineConfig.farWatcherUpdateInterval; i++) {
+            tracker.update();
+        }
+        Mockito.verifyNoMoreInteractions(messenger);
+
+        // Watchers are reassigned to tiers every 10 ticks
+        watcherChunk = chunk0;
+        for (int i = 0; i < 10; i++) {
+            tracker.update();
+        }
+        Mockito.verify(messenger).setShiftAndMomentum(Mockito.eq(watcher), Mockito.eq(network0), Mockito.anyInt(), Mockito.eq(1), Mockito.eq(0));
         Mockito.verifyNoMoreInteractions(messenger);
     }
 
@@ -87,19 +176,43 @@ public class NetworkCollectionTrackerTest {
         Mockito.verifyNoMoreInteractions(messenger);
     }
 
+    @Test
+    void countsPendingChunksOnceForAddedNetwork() {
+        watchChunk(chunk0, watcher);
+        watchChunk(chunk1, watcher);
+        collection.add(network0);
+
+        Mockito.verify(messenger).addNetwork(watcher, network0);
+
+        tracker.update();
+        unWatchChunk(chunk0, watcher);
+        tracker.update();
+
+        Mockito.verifyNoMoreInteractions(messenger);
+
+        unWatchChunk(chunk1, watcher);
+        tracker.update();
+
+        Mockito.verify(messenger).removeNetwork(watcher, network0);
+        Mockito.verifyNoMoreInteractions(messenger);
+    }
+
     @Test
     void sendsRemoveNetworkForLastUnWatchedChunk() {
         collection.add(network0);
         watchChunk(chunk0, watcher);
+        tracker.update();
 
         Mockito.verify(messenger).addNetwork(watcher, network0);
 
         watchChunk(chunk1, watcher);
         unWatchChunk(chunk1, watcher);
+        tracker.update();
 
         Mockito.verifyNoMoreInteractions(messenger);
 
         unWatchChunk(chunk0, watcher);
+        tracker.update();
 
         Mockito.verify(messenger).removeNetwork(watcher, network0);
         Mockito.verifyNoMoreInteractions(messenger);
@@ -125,14 +238,34 @@ public class NetworkCollectionTrackerTest {
 
         Mockito.verify(messenger).addNetwork(watcher, network0);
 
-        network0.getState().setShift(1);
+        network0.setShift(1);
         tracker.update();
 
-        Mockito.verify(messenger).setShiftAndMomentum(watcher, network0, 1, 0);
+        Mockito.verify(messenger).setShiftAndMomentum(watcher, network0, 1, 1, 0);
 
-        network0.getState().setMomentum(1);
+        network0.setMomentum(1);
         tracker.update();
 
-        Mockito.verify(messenger).setShiftAndMomentum(watcher, network0, 1, 1);
+        Mockito.verify(messenger).setShiftAndMomentum(watcher, network0, 2, 1, 1);
+    }
+
+    @Test
+    void leavesSimulatedMotionToWatchers() {
+        watchChunk(chunk0, watcher);
+        collection.add(network0);
+        Mockito.verify(messenger).addNetwork(watcher, network0);
+
+        int momentum = ClotheslineConfig.networkReconciliationInterval / 2;
+        network0.setMomentum(momentum);
+        tracker.update();
+        Mockito.verify(messenger).setShiftAndMomentum(watcher, network0, 1, 0, momentum);
+
+        // Decay is simulated by the watcher, only the network coming to rest is sent
+        while (network0.getState().getMomentum() != 0 || network0.getState().getPreviousMomentum() != 0) {
+            network0.update();
+            tracker.update();
+        }
+        Mockito.verify(messenger).setShiftAndMomentum(Mockito.eq(watcher), Mockito.eq(network0), Mockito.anyInt(), Mockito.eq(network0.getState().getShift()), Mockito.eq(0));
+        Mockito.verifyNoMoreInteractions(messenger);
     }
 }
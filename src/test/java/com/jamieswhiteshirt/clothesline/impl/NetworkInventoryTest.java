@@ -0,0 +1,86 @@
+package com.jamieswhiteshirt.clothesline.impl;
+
+import com.jamieswhiteshirt.clothesline.common.impl.Network;
+import com.jamieswhiteshirt.clothesline.common.impl.NetworkInventory;
+import com.jamieswhiteshirt.clothesline.common.impl.NetworkItemHandler;
+import com.jamieswhiteshirt.clothesline.common.util.NetworkStateBuilder;
+import com.jamieswhiteshirt.clothesline.internal.PersistentNetwork;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.items.IItemHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+class NetworkInventoryTest {
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    Network network;
+
+    @BeforeEach
+    void resetNetwork() {
+        BlockPos posA = new BlockPos(0, 0, 0);
+        BlockPos posB = new BlockPos(1, 0, 0);
+        NetworkStateBuilder stateBuilder = NetworkStateBuilder.emptyRoot(0, posA);
+        stateBuilder.addEdge(posA, posB);
+        network = new Network(0, new PersistentNetwork(new UUID(0, 0), stateBuilder.build()));
+    }
+
+    @Test
+    void hasSlotPerHalfBlock() {
+        IItemHandler itemHandler = network.getItemHandler();
+        Assertions.assertEquals(network.getState().getPathLength() / NetworkInventory.SLOT_LENGTH, itemHandler.getSlots());
+        Assertions.assertSame(itemHandler, network.getItemHandler());
+    }
+
+    @Test
+    void insertsIntoEmptySlotsOnly() {
+        IItemHandler itemHandler = network.getItemHandler();
+        Assertions.assertEquals(1, itemHandler.insertItem(1, new ItemStack(Items.STICK, 2), false).getCount());
+        Assertions.assertEquals(Items.STICK, itemHandler.getStackInSlot(1).getItem());
+        Assertions.assertEquals(1, itemHandler.insertItem(1, new ItemStack(Items.STRING), false).getCount());
+        Assertions.assertTrue(itemHandler.getStackInSlot(0).isEmpty());
+    }
+
+    @Test
+    void tracksFreeSlots() {
+        NetworkInventory inventory = (NetworkInventory) network.getItemHandler();
+        Assertions.assertEquals(0, inventory.getFreeSlot(0));
+        inventory.insertItem(0, new ItemStack(Items.STICK), false);
+        Assertions.assertEquals(1, inventory.getFreeSlot(0));
+
+        ItemStack extracted = inventory.extractItem(0, 1, false);
+        Assertions.assertEquals(Items.STICK, extracted.getItem());
+        Assertions.assertEquals(0, inventory.getFreeSlot(0));
+    }
+
+    @Test
+    void countsAttachmentsSetDirectly() {
+        network.setAttachment(NetworkInventory.SLOT_LENGTH * 2 + 3, new ItemStack(Items.STICK));
+        NetworkInventory inventory = (NetworkInventory) network.getItemHandler();
+        Assertions.assertEquals(Items.STICK, inventory.getStackInSlot(2).getItem());
+        Assertions.assertEquals(3, inventory.getFreeSlot(2));
+
+        network.setAttachment(NetworkInventory.SLOT_LENGTH * 2 + 3, ItemStack.EMPTY);
+        Assertions.assertEquals(2, inventory.getFreeSlot(2));
+    }
+
+    @Test
+    void viewStartsAtOffset() {
+        int slots = network.getItemHandler().getSlots();
+        network.setShift(NetworkInventory.SLOT_LENGTH);
+        // With the shift, the attachment key at offset 0 is in the last slot
+        NetworkItemHandler view = new NetworkItemHandler(network, 0);
+        view.insertItem(0, new ItemStack(Items.STICK), false);
+        Assertions.assertEquals(Items.STICK, network.getItemHandler().getStackInSlot(slots - 1).getItem());
+        Assertions.assertEquals(Items.STICK, view.getStackInSlot(0).getItem());
+    }
+}
@@ -0,0 +1,136 @@
+package com.jamieswhiteshirt.clothesline.impl;
+
+import com.jamieswhiteshirt.clothesline.api.INetwork;
+import com.jamieswhiteshirt.clothesline.api.INetworkCollection;
+import com.jamieswhiteshirt.clothesline.api.INetworkState;
+import com.jamieswhiteshirt.clothesline.common.impl.Network;
+import com.jamieswhiteshirt.clothesline.common.impl.NetworkCollection;
+import com.jamieswhiteshirt.clothesline.common.impl.NetworkManager;
+import com.jamieswhiteshirt.clothesline.common.util.NetworkStateBuilder;
+import com.jamieswhiteshirt.clothesline.internal.PersistentNetwork;
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.profiler.Profiler;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+class NetworkManagerTest {
+    static class TestNetworkManager extends NetworkManager {
+        TestNetworkManager(World world, INetworkCollection networks) {
+            super(world, networks);
+        }
+
+        @Override
+        protected void createNetwork(INetworkState networkState) {
+        }
+
+        @Override
+        protected void deleteNetwork(INetwork network) {
+        }
+
+        @Override
+        protected void dropItems(@Nullable EntityLivingBase entity, INetworkState state, boolean dropClotheslines) {
+        }
+    }
+
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    BlockPos pos0 = new BlockPos(0, 0, 0);
+    BlockPos pos1 = new BlockPos(4, 0, 0);
+    BlockPos pos2 = new BlockPos(0, 0, 4);
+    World world;
+
+    @BeforeEach
+    void resetWorld() throws ReflectiveOperationException {
+        world = Mockito.mock(World.class);
+        // The profiler is a final field assigned by the constructor of the world, which the mock does not run
+        Field profiler = World.class.getDeclaredField("profiler");
+        profiler.setAccessible(true);
+        profiler.set(world, new Profiler());
+    }
+
+    INetwork createNetwork() {
+        NetworkStateBuilder stateBuilder = NetworkStateBuilder.emptyRoot(0, pos0);
+        stateBuilder.addEdge(pos0, pos1);
+        stateBuilder.addEdge(pos0, pos2);
+        return new Network(0, new PersistentNetwork(new UUID(0, 0), stateBuilder.build()));
+    }
+
+    int powerOf(BlockPos pos) {
+        return pos.equals(pos0) ? 4 : pos.equals(pos1) ? 5 : 7;
+    }
+
+    int momentumAfterPowering(List<BlockPos> sources, int ticks) {
+        INetworkCollection collection = new NetworkCollection();
+        INetwork network = createNetwork();
+        collection.add(network);
+        NetworkManager manager = new TestNetworkManager(world, collection);
+        for (BlockPos pos : sources) {
+            manager.setPower(pos, powerOf(pos));
+        }
+        for (int i = 0; i < ticks; i++) {
+            manager.update();
+        }
+        return network.getState().getMomentum();
+    }
+
+    @Test
+    void drivesNetworkWithAccumulatedPowerOfSources() {
+        // The network is driven once with the sum of the power of its sources, 16 / 3 = 5, which decays by one when
+        // the network is updated
+        Assertions.assertEquals(4, momentumAfterPowering(Arrays.asList(pos0, pos1, pos2), 1));
+    }
+
+    @Test
+    void drivesNetworkIndependentlyOfSourceOrder() {
+        List<List<BlockPos>> orders = Arrays.asList(
+            Arrays.asList(pos0, pos1, pos2),
+            Arrays.asList(pos2, pos1, pos0),
+            Arrays.asList(pos1, pos0, pos2),
+            Arrays.asList(pos2, pos0, pos1)
+        );
+        for (int ticks = 1; ticks <= 10; ticks++) {
+            int expected = momentumAfterPowering(orders.get(0), ticks);
+            for (List<BlockPos> order : orders) {
+                Assertions.assertEquals(expected, momentumAfterPowering(order, ticks), "Momentum after " + ticks + " ticks powering " + order);
+            }
+        }
+    }
+
+    @Test
+    void unregistersSourcesWithoutPower() {
+        INetworkCollection collection = new NetworkCollection();
+        INetwork network = createNetwork();
+        collection.add(network);
+        NetworkManager manager = new TestNetworkManager(world, collection);
+        manager.setPower(pos0, 30);
+        manager.setPower(pos1, 30);
+        manager.update();
+        Assertions.assertTrue(network.getState().getMomentum() > 0);
+
+        manager.setPower(pos0, 0);
+        manager.setPower(pos1, 0);
+        int momentum = network.getState().getMomentum();
+        for (int i = 0; i < 40; i++) {
+            manager.update();
+            int nextMomentum = network.getState().getMomentum();
+            Assertions.assertTrue(nextMomentum < momentum || nextMomentum == 0, "Momentum increased without power");
+            momentum = nextMomentum;
+        }
+        Assertions.assertEquals(0, momentum);
+    }
+}
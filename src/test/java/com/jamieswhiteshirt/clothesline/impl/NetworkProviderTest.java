@@ -1,19 +1,24 @@
 package com.jamieswhiteshirt.clothesline.impl;
 
 import com.jamieswhiteshirt.clothesline.api.INetworkCollection;
+import com.jamieswhiteshirt.clothesline.common.ClotheslineConfig;
 import com.jamieswhiteshirt.clothesline.internal.PersistentNetwork;
 import com.jamieswhiteshirt.clothesline.common.impl.NetworkCollection;
 import com.jamieswhiteshirt.clothesline.common.impl.NetworkProvider;
+import com.jamieswhiteshirt.clothesline.common.impl.NetworkProviderEntry;
 import com.jamieswhiteshirt.clothesline.common.util.NetworkStateBuilder;
 import com.jamieswhiteshirt.clothesline.internal.INetworkProvider;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.UUID;
 
 public class NetworkProviderTest {
@@ -96,4 +101,62 @@ public class NetworkProviderTest {
 
         Assertions.assertNull(collection.getByUuid(network0.getUuid()));
     }
+
+    @Test
+    void reusesEncodingOfUnchangedNetworks() {
+        provider.addNetwork(network0);
+
+        NBTTagList first = provider.writeNetworks();
+        NBTTagList second = provider.writeNetworks();
+        Assertions.assertSame(first.get(0), second.get(0));
+
+        network0.getState().setShift(5);
+        NBTTagList third = provider.writeNetworks();
+        Assertions.assertNotSame(second.get(0), third.get(0));
+        Assertions.assertNotEquals(second.get(0), third.get(0));
+    }
+
+    @Test
+    void loadsNetworkForChunkCrossedByEdge() {
+        PersistentNetwork network = createPersistentNetwork(new UUID(0, 1), new BlockPos(0, 0, 0), new BlockPos(40, 0, 0));
+        provider.addNetwork(network);
+
+        loadChunk(chunk1);
+        Assertions.assertNotNull(collection.getByUuid(network.getUuid()));
+
+        unloadChunk(chunk1);
+        Assertions.assertNull(collection.getByUuid(network.getUuid()));
+    }
+
+    @Test
+    void compactsOnlyEncodedNetworks() {
+        NetworkProviderEntry entry = new NetworkProviderEntry(network0);
+        Assertions.assertFalse(entry.compact());
+
+        NBTTagCompound compound = entry.writeToNBT();
+        Assertions.assertTrue(entry.compact());
+        Assertions.assertFalse(entry.isDecoded());
+
+        // Decoding again reuses the encoding it was decoded from
+        Assertions.assertEquals(network0.getUuid(), entry.getPersistentNetwork().getUuid());
+        Assertions.assertTrue(entry.isDecoded());
+        Assertions.assertSame(compound, entry.writeToNBT());
+    }
+
+    @Test
+    void retriesCompactionOfUnsavedNetworksOnLaterTicks() {
+        int compactionTicks = ClotheslineConfig.unloadedNetworkCompactionTicks;
+        ClotheslineConfig.unloadedNetworkCompactionTicks = 0;
+        try {
+            provider.addNetwork(network0);
+            // The network has not been saved, so it cannot be compacted and must not be retried in the same tick
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> provider.update());
+
+            provider.writeNetworks();
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> provider.update());
+            Assertions.assertNull(collection.getByUuid(network0.getUuid()));
+        } finally {
+            ClotheslineConfig.unloadedNetworkCompactionTicks = compactionTicks;
+        }
+    }
 }
@@ -0,0 +1,181 @@
+package com.jamieswhiteshirt.clothesline.impl;
+
+import com.jamieswhiteshirt.clothesline.api.INetworkCollection;
+import com.jamieswhiteshirt.clothesline.common.impl.NetworkCollection;
+import com.jamieswhiteshirt.clothesline.common.impl.NetworkProvider;
+import com.jamieswhiteshirt.clothesline.common.impl.NetworkShardStorage;
+import com.jamieswhiteshirt.clothesline.common.util.NetworkStateBuilder;
+import com.jamieswhiteshirt.clothesline.internal.PersistentNetwork;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+class NetworkShardStorageTest {
+    // Spans the region boundary between chunk 31 and chunk 32
+    PersistentNetwork network0 = createPersistentNetwork(new UUID(0, 0), new BlockPos(16 * 31, 0, 0), new BlockPos(16 * 32, 0, 0));
+    PersistentNetwork network1 = createPersistentNetwork(new UUID(0, 1), new BlockPos(16 * 64, 0, 0), new BlockPos(16 * 64 + 1, 0, 0));
+
+    File directory;
+    LongSet loadedChunks;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("clothesline").toFile();
+        loadedChunks = new LongOpenHashSet();
+    }
+
+    @AfterEach
+    void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    PersistentNetwork createPersistentNetwork(UUID uuid, BlockPos pos0, BlockPos pos1) {
+        NetworkStateBuilder stateBuilder = NetworkStateBuilder.emptyRoot(0, pos0);
+        stateBuilder.addEdge(pos0, pos1);
+        return new PersistentNetwork(uuid, stateBuilder.build());
+    }
+
+    NetworkProvider createProvider(INetworkCollection collection, NetworkShardStorage storage) {
+        return new NetworkProvider(collection, (Integer x, Integer z) -> loadedChunks.contains(ChunkPos.asLong(x, z)), storage);
+    }
+
+    void loadChunk(NetworkProvider provider, int x, int z) {
+        loadedChunks.add(ChunkPos.asLong(x, z));
+        provider.onChunkLoaded(x, z);
+    }
+
+    @Test
+    void writesOneFilePerShard() {
+        NetworkShardStorage storage = new NetworkShardStorage(directory, Runnable::run);
+        NetworkProvider provider = createProvider(new NetworkCollection(), storage);
+        provider.addNetwork(network0);
+        provider.addNetwork(network1);
+        provider.save();
+
+        File[] files = directory.listFiles();
+        Assertions.assertNotNull(files);
+        Assertions.assertEquals(2, files.length);
+    }
+
+    @Test
+    void readsShardWhenSpannedRegionIsLoaded() {
+        NetworkShardStorage storage = new NetworkShardStorage(directory, Runnable::run);
+        NetworkProvider provider = createProvider(new NetworkCollection(), storage);
+        provider.addNetwork(network0);
+        provider.addNetwork(network1);
+        provider.save();
+        NBTTagList index = storage.writeIndex();
+
+        INetworkCollection collection = new NetworkCollection();
+        NetworkShardStorage readStorage = new NetworkShardStorage(directory, Runnable::run);
+        NetworkProvider readProvider = createProvider(collection, readStorage);
+        readStorage.readIndex(index);
+
+        // Chunk 32 is in the region after the region of the root of network 0
+        loadChunk(readProvider, 32, 0);
+        Assertions.assertNotNull(collection.getByUuid(network0.getUuid()));
+        Assertions.assertNull(collection.getByUuid(network1.getUuid()));
+
+        loadChunk(readProvider, 64, 0);
+        Assertions.assertNotNull(collection.getByUuid(network1.getUuid()));
+    }
+
+    @Test
+    void keepsNetworksEncodedUntilLoaded() {
+        NetworkShardStorage storage = new NetworkShardStorage(directory, Runnable::run);
+        NetworkProvider provider = createProvider(new NetworkCollection(), storage);
+        provider.addNetwork(network1);
+        provider.save();
+        NBTTagList index = storage.writeIndex();
+
+        INetworkCollection collection = new NetworkCollection();
+        NetworkShardStorage readStorage = new NetworkShardStorage(directory, Runnable::run);
+        NetworkProvider readProvider = createProvider(collection, readStorage);
+        readStorage.readIndex(index);
+
+        // Chunk 65 is in the region of network 1, but network 1 does not span it
+        loadChunk(readProvider, 65, 0);
+        Assertions.assertTrue(readStorage.isLoaded(NetworkShardStorage.getShardKey(network1.getState())));
+        Assertions.assertNull(collection.getByUuid(network1.getUuid()));
+
+        loadChunk(readProvider, 64, 0);
+        Assertions.assertNotNull(collection.getByUuid(network1.getUuid()));
+        Assertions.assertEquals(network1.getState().getPathLength(), collection.getByUuid(network1.getUuid()).getState().getPathLength());
+    }
+
+    @Test
+    void writesShardsOnExecutor() {
+        List<Runnable> tasks = new ArrayList<>();
+        NetworkShardStorage storage = new NetworkShardStorage(directory, tasks::add);
+        NetworkProvider provider = createProvider(new NetworkCollection(), storage);
+        provider.addNetwork(network1);
+        provider.save();
+
+        // The index is updated immediately, the shard file only once the write has run
+        Assertions.assertEquals(1, storage.writeIndex().tagCount());
+        Assertions.assertFalse(new File(directory, "r.2.0.dat").exists());
+
+        tasks.forEach(Runnable::run);
+        storage.flush();
+        Assertions.assertTrue(new File(directory, "r.2.0.dat").exists());
+        Assertions.assertFalse(new File(directory, "r.2.0.dat.tmp").exists());
+    }
+
+    @Test
+    void deletesEmptyShards() {
+        NetworkShardStorage storage = new NetworkShardStorage(directory, Runnable::run);
+        NetworkProvider provider = createProvider(new NetworkCollection(), storage);
+        provider.addNetwork(network1);
+        provider.save();
+        provider.removeNetwork(network1.getUuid());
+        provider.save();
+
+        File[] files = directory.listFiles();
+        Assertions.assertNotNull(files);
+        Assertions.assertEquals(0, files.length);
+        Assertions.assertEquals(0, storage.writeIndex().tagCount());
+    }
+
+    @Test
+    void indexesShardOnDiskUntilWriteCompletes() {
+        List<Runnable> tasks = new ArrayList<>();
+        NetworkShardStorage storage = new NetworkShardStorage(directory, tasks::add);
+        NetworkProvider provider = createProvider(new NetworkCollection(), storage);
+        provider.addNetwork(network1);
+        provider.save();
+        tasks.forEach(Runnable::run);
+        tasks.clear();
+        storage.flush();
+
+        provider.removeNetwork(network1.getUuid());
+        provider.save();
+
+        // The shard file still exists until the deletion has run, so the index must still cover it
+        Assertions.assertTrue(new File(directory, "r.2.0.dat").exists());
+        Assertions.assertEquals(1, storage.writeIndex().tagCount());
+
+        tasks.forEach(Runnable::run);
+        storage.flush();
+        Assertions.assertFalse(new File(directory, "r.2.0.dat").exists());
+        Assertions.assertEquals(0, storage.writeIndex().tagCount());
+    }
+}
@@ -2,6 +2,7 @@ package com.jamieswhiteshirt.clothesline.impl;
 
 import com.jamieswhiteshirt.clothesline.api.INetworkState;
 import com.jamieswhiteshirt.clothesline.api.AttachmentUnit;
+import com.jamieswhiteshirt.clothesline.api.PackedGraph;
 import com.jamieswhiteshirt.clothesline.api.Path;
 import com.jamieswhiteshirt.clothesline.api.Tree;
 import com.jamieswhiteshirt.clothesline.api.util.MutableSortedIntMap;
@@ -10,6 +11,7 @@ import com.jamieswhiteshirt.clothesline.common.util.ChunkSpan;
 import com.jamieswhiteshirt.clothesline.common.util.PathBuilder;
 import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
 import org.junit.jupiter.api.Assertions;
@@ -17,7 +19,9 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 class NetworkStateTest {
     @BeforeAll
@@ -44,7 +48,7 @@ class NetworkStateTest {
         Path path = PathBuilder.buildPath(tree);
         LongSet chunkSpan = ChunkSpan.ofPath(path);
         MutableSortedIntMap<ItemStack> attachments = MutableSortedIntMap.empty(AttachmentUnit.UNITS_PER_BLOCK * 2);
-        state = new NetworkState(0, 0, 0, 0, tree, path, chunkSpan, attachments);
+        state = new NetworkState(0, 0, 0, 0, PackedGraph.fromTree(tree), chunkSpan, attachments);
     }
 
     void assertItemStacksEqual(ItemStack expected, ItemStack actual) {
@@ -55,4 +59,143 @@ class NetworkStateTest {
     void unsetItemsAreEmpty() {
         assertItemStacksEqual(state.getAttachment(0), ItemStack.EMPTY);
     }
+
+    @Test
+    void stationaryUpdateKeepsVersion() {
+        int version = state.getVersion();
+        state.update();
+        Assertions.assertEquals(version, state.getVersion());
+    }
+
+    @Test
+    void mutationsChangeVersion() {
+        int version = state.getVersion();
+        state.setAttachment(0, new ItemStack(Items.STICK));
+        Assertions.assertNotEquals(version, state.getVersion());
+
+        version = state.getVersion();
+        state.setMomentum(1);
+        Assertions.assertNotEquals(version, state.getVersion());
+
+        version = state.getVersion();
+        state.update();
+        Assertions.assertNotEquals(version, state.getVersion());
+    }
+
+    @Test
+    void onlyAttachmentMutationsChangeAttachmentsVersion() {
+        int version = state.getAttachmentsVersion();
+        state.setMomentum(1);
+        state.update();
+        state.setShift(5);
+        Assertions.assertEquals(version, state.getAttachmentsVersion());
+
+        state.setAttachment(0, new ItemStack(Items.STICK));
+        Assertions.assertNotEquals(version, state.getAttachmentsVersion());
+    }
+
+    INetworkState createState(int shift, int momentum) {
+        return createState(shift, shift, momentum);
+    }
+
+    INetworkState createState(int previousShift, int shift, int momentum) {
+        BlockPos from = new BlockPos(0, 0, 0);
+        BlockPos to = new BlockPos(1, 0, 0);
+        Tree tree = new Tree(
+            from,
+            Collections.singletonList(new Tree.Edge(
+                to.subtract(from),
+                AttachmentUnit.lengthBetween(from, to),
+                0,
+                Tree.empty(to, AttachmentUnit.UNITS_PER_BLOCK, 0))
+            ),
+            0, AttachmentUnit.UNITS_PER_BLOCK * 2, 0
+        );
+        Path path = PathBuilder.buildPath(tree);
+        return new NetworkState(previousShift, shift, momentum, momentum, PackedGraph.fromTree(tree), ChunkSpan.ofPath(path), MutableSortedIntMap.empty(AttachmentUnit.UNITS_PER_BLOCK * 2));
+    }
+
+    void assertMotionEqual(INetworkState expected, INetworkState actual, String message) {
+        Assertions.assertEquals(expected.getShift(), actual.getShift(), message);
+        Assertions.assertEquals(expected.getPreviousShift(), actual.getPreviousShift(), message);
+        Assertions.assertEquals(expected.getMomentum(), actual.getMomentum(), message);
+        Assertions.assertEquals(expected.getPreviousMomentum(), actual.getPreviousMomentum(), message);
+    }
+
+    @Test
+    void lazySimulationEqualsUpdates() {
+        for (int momentum = -INetworkState.MAX_MOMENTUM; momentum <= INetworkState.MAX_MOMENTUM; momentum++) {
+            for (int ticks = 0; ticks <= INetworkState.MAX_MOMENTUM + 2; ticks++) {
+                INetworkState eager = createState(7, momentum);
+                INetworkState lazy = createState(7, momentum);
+                long[] clock = { 100L };
+                lazy.simulateLazily(() -> clock[0], 100L);
+                for (int i = 0; i < ticks; i++) {
+                    eager.update();
+                }
+                clock[0] += ticks;
+                assertMotionEqual(eager, lazy, "Momentum " + momentum + " after " + ticks + " ticks");
+            }
+        }
+    }
+
+    @Test
+    void lazySimulationAppliesMomentumChanges() {
+        INetworkState eager = createState(0, 10);
+        INetworkState lazy = createState(0, 10);
+        long[] clock = { 0L };
+        lazy.simulateLazily(() -> clock[0], 0L);
+        for (int i = 0; i < 5; i++) {
+            eager.update();
+        }
+        clock[0] += 5;
+        eager.setMomentum(eager.getMomentum() - 20);
+        lazy.setMomentum(lazy.getMomentum() - 20);
+        for (int i = 0; i < 7; i++) {
+            eager.update();
+        }
+        clock[0] += 7;
+        lazy.simulateEagerly();
+        assertMotionEqual(eager, lazy, "After momentum change");
+        Assertions.assertFalse(lazy.isSimulatedLazily());
+    }
+
+    boolean passesOffset(int attachmentKey, int offset, int previousShift, int shift, int pathLength) {
+        int delta = shift - previousShift;
+        if (Math.abs(delta) >= pathLength) return delta != 0;
+        if (delta > 0) {
+            int distance = Math.floorMod(offset - (attachmentKey + previousShift), pathLength);
+            return distance >= 1 && distance <= delta;
+        } else {
+            int distance = Math.floorMod((attachmentKey + previousShift) - offset, pathLength);
+            return distance >= 1 && distance <= -delta;
+        }
+    }
+
+    @Test
+    void attachmentsPassingOffsetMatchMovement() {
+        for (int previousShift : new int[] { -1000, -1, 0, 5, 317 }) {
+            for (int delta : new int[] { -400, -320, -30, -7, -1, 0, 1, 7, 30, 319, 320 }) {
+                int shift = previousShift + delta;
+                INetworkState movedState = createState(previousShift, shift, 0);
+                for (int attachmentKey = 0; attachmentKey < movedState.getPathLength(); attachmentKey += 3) {
+                    movedState.setAttachment(attachmentKey, new ItemStack(Items.STICK));
+                }
+                for (int offset = 0; offset < movedState.getPathLength(); offset += 11) {
+                    List<Integer> actual = new ArrayList<>();
+                    for (MutableSortedIntMap.Entry<ItemStack> entry : movedState.getAttachmentsPassingOffset(offset)) {
+                        actual.add(entry.getKey());
+                    }
+                    List<Integer> expected = new ArrayList<>();
+                    for (int attachmentKey = 0; attachmentKey < movedState.getPathLength(); attachmentKey += 3) {
+                        if (passesOffset(attachmentKey, offset, previousShift, shift, movedState.getPathLength())) {
+                            expected.add(attachmentKey);
+                        }
+                    }
+                    actual.sort(null);
+                    Assertions.assertEquals(expected, actual, "Offset " + offset + " from " + previousShift + " to " + shift);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,79 @@
+package com.jamieswhiteshirt.clothesline.impl;
+
+import com.jamieswhiteshirt.clothesline.api.INetwork;
+import com.jamieswhiteshirt.clothesline.api.INetworkState;
+import com.jamieswhiteshirt.clothesline.common.impl.Network;
+import com.jamieswhiteshirt.clothesline.common.impl.NetworkUpdatePhase;
+import com.jamieswhiteshirt.clothesline.common.util.NetworkStateBuilder;
+import com.jamieswhiteshirt.clothesline.internal.PersistentNetwork;
+import net.minecraft.util.math.BlockPos;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+class NetworkUpdatePhaseTest {
+    static ForkJoinPool pool;
+
+    @BeforeAll
+    static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    List<INetwork> createNetworks(long seed, int count) {
+        Random random = new Random(seed);
+        List<INetwork> networks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BlockPos from = new BlockPos(i * 4, 0, 0);
+            BlockPos to = from.add(1 + random.nextInt(3), random.nextInt(3), random.nextInt(3));
+            NetworkStateBuilder stateBuilder = NetworkStateBuilder.emptyRoot(0, from);
+            stateBuilder.addEdge(from, to);
+            Network network = new Network(i, new PersistentNetwork(new UUID(0, i), stateBuilder.build()));
+            network.setShift(random.nextInt());
+            network.setMomentum(random.nextInt(2 * INetworkState.MAX_MOMENTUM + 1) - INetworkState.MAX_MOMENTUM);
+            networks.add(network);
+        }
+        return networks;
+    }
+
+    @Test
+    void parallelUpdatesAreIdenticalToSerialUpdates() {
+        List<INetwork> serial = createNetworks(0L, 5000);
+        List<INetwork> parallel = createNetworks(0L, 5000);
+
+        Random random = new Random(1L);
+        for (int tick = 0; tick < 40; tick++) {
+            NetworkUpdatePhase.update(serial, null);
+            NetworkUpdatePhase.update(parallel, pool);
+
+            // Kick some networks between ticks like cranks would
+            for (int i = 0; i < 50; i++) {
+                int index = random.nextInt(serial.size());
+                int momentum = random.nextInt(2 * INetworkState.MAX_MOMENTUM + 1) - INetworkState.MAX_MOMENTUM;
+                serial.get(index).setMomentum(momentum);
+                parallel.get(index).setMomentum(momentum);
+            }
+        }
+
+        for (int i = 0; i < serial.size(); i++) {
+            INetworkState expected = serial.get(i).getState();
+            INetworkState actual = parallel.get(i).getState();
+            Assertions.assertEquals(expected.getShift(), actual.getShift());
+            Assertions.assertEquals(expected.getPreviousShift(), actual.getPreviousShift());
+            Assertions.assertEquals(expected.getMomentum(), actual.getMomentum());
+            Assertions.assertEquals(expected.getPreviousMomentum(), actual.getPreviousMomentum());
+            Assertions.assertEquals(expected.getVersion(), actual.getVersion());
+        }
+    }
+}
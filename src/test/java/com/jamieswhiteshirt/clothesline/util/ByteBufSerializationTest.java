@@ -1,13 +1,30 @@
 package com.jamieswhiteshirt.clothesline.util;
 
+import com.jamieswhiteshirt.clothesline.common.network.message.AddNetworkMessage;
+import com.jamieswhiteshirt.clothesline.common.network.message.BatchNetworkMessage;
+import com.jamieswhiteshirt.clothesline.common.util.BasicAttachment;
 import com.jamieswhiteshirt.clothesline.common.util.BasicNetwork;
+import com.jamieswhiteshirt.clothesline.common.util.BasicNetworkState;
+import com.jamieswhiteshirt.clothesline.common.util.BasicPersistentNetwork;
+import com.jamieswhiteshirt.clothesline.common.util.BasicTree;
 import com.jamieswhiteshirt.clothesline.common.util.ByteBufSerialization;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.item.ItemStack;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.UUID;
+
 class ByteBufSerializationTest {
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.register();
+    }
+
     @Test
     void persistsNetworkEquality() {
         BasicNetwork written = BasicNetwork.fromAbsolute(NetworkTests.ab.network);
@@ -16,4 +33,112 @@ class ByteBufSerializationTest {
         BasicNetwork read = ByteBufSerialization.readNetwork(buf);
         Assertions.assertEquals(written, read);
     }
+
+    @Test
+    void encodesPreEncodedNetworkLikeNetwork() {
+        BasicNetworkState state = NetworkTests.createLargeState(0L, 200);
+        BasicNetwork expected = new BasicNetwork(3, new BasicPersistentNetwork(new UUID(1, 2), state));
+        ByteBuf tree = Unpooled.buffer();
+        ByteBufSerialization.writeNetworkTree(tree, state.getTree());
+        ByteBuf attachments = Unpooled.buffer();
+        ByteBufSerialization.writeNetworkAttachments(attachments, state.getAttachments());
+
+        ByteBuf buf = Unpooled.buffer();
+        new AddNetworkMessage(3, new UUID(1, 2), tree, state.getShift(), state.getMomentum(), attachments).toBytes(buf);
+        AddNetworkMessage read = new AddNetworkMessage();
+        read.fromBytes(buf);
+        Assertions.assertEquals(expected, read.network);
+        Assertions.assertEquals(0, tree.refCnt());
+        Assertions.assertEquals(0, attachments.refCnt());
+    }
+
+    @Test
+    void persistsLargeNetworkStateEquality() {
+        BasicNetworkState written = NetworkTests.createLargeState(0L, 2000);
+        ByteBuf buf = Unpooled.buffer();
+        ByteBufSerialization.writeNetworkState(buf, written);
+        BasicNetworkState read = ByteBufSerialization.readNetworkState(buf);
+        Assertions.assertEquals(written, read);
+        Assertions.assertEquals(0, buf.readableBytes());
+    }
+
+    /**
+     * Writes the network state in the format used before the compact format, with fixed size fields and every stack
+     * written in full.
+     */
+    private static void writeUncompactedNetworkState(ByteBuf buf, BasicNetworkState state) {
+        writeUncompactedTree(buf, state.getTree());
+        buf.writeInt(state.getShift());
+        buf.writeInt(state.getMomentum());
+        buf.writeShort(state.getAttachments().size());
+        for (BasicAttachment attachment : state.getAttachments()) {
+            ByteBufSerialization.writeAttachment(buf, attachment);
+        }
+    }
+
+    private static void writeUncompactedTree(ByteBuf buf, BasicTree tree) {
+        buf.writeLong(tree.getPos().toLong());
+        buf.writeByte(tree.getEdges().size());
+        for (BasicTree.Edge edge : tree.getEdges()) {
+            buf.writeShort(edge.getLength());
+            writeUncompactedTree(buf, edge.getTree());
+        }
+        buf.writeInt(tree.getBaseRotation());
+    }
+
+    @Test
+    void compactEncodingIsSmallerThanUncompacted() {
+        for (long seed = 0L; seed < 4L; seed++) {
+            BasicNetworkState state = NetworkTests.createLargeState(seed, 500);
+            ByteBuf uncompacted = Unpooled.buffer();
+            writeUncompactedNetworkState(uncompacted, state);
+            ByteBuf compact = Unpooled.buffer();
+            ByteBufSerialization.writeNetworkState(compact, state);
+            // Nodes take around 6 bytes instead of 15 and attachments 2 bytes instead of 10, as only 8 distinct stacks exist
+            Assertions.assertTrue(compact.readableBytes() * 2 < uncompacted.readableBytes(), () -> compact.readableBytes() + " >= " + uncompacted.readableBytes() + " / 2");
+        }
+    }
+
+    @Test
+    void persistsZigZagVarInts() {
+        ByteBuf buf = Unpooled.buffer();
+        int[] values = { 0, 1, -1, 63, -64, 64, Integer.MAX_VALUE, Integer.MIN_VALUE };
+        for (int value : values) {
+            ByteBufSerialization.writeZigZagVarInt(buf, value);
+        }
+        for (int value : values) {
+            Assertions.assertEquals(value, ByteBufSerialization.readZigZagVarInt(buf));
+        }
+        Assertions.assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    void persistsBatchedUpdates() {
+        BatchNetworkMessage written = new BatchNetworkMessage(100, Arrays.asList(
+            BatchNetworkMessage.Update.motion(5, 100, -20, 3),
+            BatchNetworkMessage.Update.setAttachment(5, 40, ItemStack.EMPTY),
+            BatchNetworkMessage.Update.setAttachment(5, 8, ItemStack.EMPTY),
+            BatchNetworkMessage.Update.motion(2, 99, 1000000, -1)
+        ));
+        ByteBuf buf = Unpooled.buffer();
+        written.toBytes(buf);
+        // Every field but the large shift of the last update fits in a single byte
+        Assertions.assertEquals(2 + 5 + 3 + 3 + 7, buf.readableBytes());
+        BatchNetworkMessage read = new BatchNetworkMessage();
+        read.fromBytes(buf);
+
+        Assertions.assertEquals(0, buf.readableBytes());
+        Assertions.assertEquals(written.tick, read.tick);
+        Assertions.assertEquals(written.updates.size(), read.updates.size());
+        for (int i = 0; i < written.updates.size(); i++) {
+            BatchNetworkMessage.Update expected = written.updates.get(i);
+            BatchNetworkMessage.Update actual = read.updates.get(i);
+            Assertions.assertEquals(expected.type, actual.type);
+            Assertions.assertEquals(expected.networkId, actual.networkId);
+            Assertions.assertEquals(expected.tick, actual.tick);
+            Assertions.assertEquals(expected.shift, actual.shift);
+            Assertions.assertEquals(expected.momentum, actual.momentum);
+            Assertions.assertEquals(expected.attachmentKey, actual.attachmentKey);
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package com.jamieswhiteshirt.clothesline.util;
+
+import com.jamieswhiteshirt.clothesline.api.PackedGraph;
+import com.jamieswhiteshirt.clothesline.common.util.ChunkSpan;
+import com.jamieswhiteshirt.clothesline.common.util.NetworkStateBuilder;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ChunkSpanTest {
+    PackedGraph createGraph(BlockPos from, BlockPos to) {
+        NetworkStateBuilder stateBuilder = NetworkStateBuilder.emptyRoot(0, from);
+        stateBuilder.addEdge(from, to);
+        return stateBuilder.build().getGraph();
+    }
+
+    @Test
+    void includesChunksCrossedBetweenNodes() {
+        LongSet chunkSpan = ChunkSpan.ofGraph(createGraph(new BlockPos(8, 0, 8), new BlockPos(8 + 16 * 4, 0, 8)));
+        Assertions.assertEquals(5, chunkSpan.size());
+        for (int x = 0; x <= 4; x++) {
+            Assertions.assertTrue(chunkSpan.contains(ChunkPos.asLong(x, 0)));
+        }
+    }
+
+    @Test
+    void walksDiagonalEdgesOneBoundaryAtATime() {
+        // Crosses every x boundary below z = 16, then z = 16 at x = 52.2
+        LongSet chunkSpan = ChunkSpan.ofGraph(createGraph(new BlockPos(0, 0, 0), new BlockPos(60, 0, 18)));
+        Assertions.assertTrue(chunkSpan.contains(ChunkPos.asLong(0, 0)));
+        Assertions.assertTrue(chunkSpan.contains(ChunkPos.asLong(1, 0)));
+        Assertions.assertTrue(chunkSpan.contains(ChunkPos.asLong(2, 0)));
+        Assertions.assertTrue(chunkSpan.contains(ChunkPos.asLong(3, 0)));
+        Assertions.assertTrue(chunkSpan.contains(ChunkPos.asLong(3, 1)));
+        Assertions.assertEquals(5, chunkSpan.size());
+    }
+
+    @Test
+    void handlesNegativeCoordinates() {
+        LongSet chunkSpan = ChunkSpan.ofGraph(createGraph(new BlockPos(-1, 0, -40), new BlockPos(-1, 0, 1)));
+        Assertions.assertEquals(4, chunkSpan.size());
+        for (int z = -3; z <= 0; z++) {
+            Assertions.assertTrue(chunkSpan.contains(ChunkPos.asLong(-1, z)));
+        }
+    }
+}
@@ -1,12 +1,30 @@
 package com.jamieswhiteshirt.clothesline.util;
 
+import com.jamieswhiteshirt.clothesline.common.util.BasicNetworkState;
 import com.jamieswhiteshirt.clothesline.common.util.BasicPersistentNetwork;
 import com.jamieswhiteshirt.clothesline.common.util.NBTSerialization;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.nbt.CompressedStreamTools;
 import net.minecraft.nbt.NBTTagCompound;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
 class NBTSerializationTest {
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    int compressedSize(NBTTagCompound compound) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        CompressedStreamTools.writeCompressed(compound, stream);
+        return stream.size();
+    }
+
     @Test
     void persistsPersistentNetworkEquality() {
         BasicPersistentNetwork written = BasicPersistentNetwork.fromAbsolute(NetworkTests.ab.persistentNetwork);
@@ -14,4 +32,27 @@ class NBTSerializationTest {
         BasicPersistentNetwork read = NBTSerialization.readPersistentNetwork(nbtTagCompound);
         Assertions.assertEquals(written, read);
     }
+
+    @Test
+    void persistsLargeNetworkStateEquality() {
+        BasicNetworkState written = NetworkTests.createLargeState(0L, 2000);
+        BasicNetworkState read = NBTSerialization.readNetworkState(NBTSerialization.writeNetworkState(written));
+        Assertions.assertEquals(written, read);
+    }
+
+    @Test
+    void readsVersion0NetworkStates() {
+        BasicNetworkState written = NetworkTests.createLargeState(1L, 200);
+        NBTTagCompound compound = NBTSerialization.writeNetworkStateVersion0(written);
+        Assertions.assertFalse(compound.hasKey("Version"));
+        Assertions.assertEquals(written, NBTSerialization.readNetworkState(compound));
+    }
+
+    @Test
+    void packedEncodingIsSmallerThanVersion0() throws IOException {
+        BasicNetworkState state = NetworkTests.createLargeState(2L, 2000);
+        NBTTagCompound version0 = NBTSerialization.writeNetworkStateVersion0(state);
+        NBTTagCompound version1 = NBTSerialization.writeNetworkState(state);
+        Assertions.assertTrue(compressedSize(version1) < compressedSize(version0));
+    }
 }
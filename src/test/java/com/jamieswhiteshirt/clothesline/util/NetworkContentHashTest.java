@@ -0,0 +1,38 @@
+package com.jamieswhiteshirt.clothesline.util;
+
+import com.jamieswhiteshirt.clothesline.common.util.BasicAttachment;
+import com.jamieswhiteshirt.clothesline.common.util.BasicNetworkState;
+import com.jamieswhiteshirt.clothesline.common.util.NetworkContentHash;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class NetworkContentHashTest {
+    @BeforeAll
+    static void bootstrap() {
+        Bootstrap.register();
+    }
+
+    @Test
+    void ignoresMotion() {
+        BasicNetworkState state = NetworkTests.createLargeState(0L, 200);
+        BasicNetworkState moved = new BasicNetworkState(state.getShift() + 10, 5, state.getTree(), state.getAttachments());
+        Assertions.assertEquals(NetworkContentHash.of(state), NetworkContentHash.of(moved));
+    }
+
+    @Test
+    void changesWithAttachments() {
+        BasicNetworkState state = NetworkTests.createLargeState(0L, 200);
+        List<BasicAttachment> attachments = new ArrayList<>(state.getAttachments());
+        BasicAttachment attachment = attachments.get(0);
+        attachments.set(0, new BasicAttachment(attachment.getKey(), new ItemStack(Items.APPLE)));
+        BasicNetworkState changed = new BasicNetworkState(state.getShift(), state.getMomentum(), state.getTree(), attachments);
+        Assertions.assertNotEquals(NetworkContentHash.of(state), NetworkContentHash.of(changed));
+    }
+}
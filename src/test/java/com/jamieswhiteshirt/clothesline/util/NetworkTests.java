@@ -4,16 +4,19 @@ import com.jamieswhiteshirt.clothesline.api.*;
 import com.jamieswhiteshirt.clothesline.api.util.MutableSortedIntMap;
 import com.jamieswhiteshirt.clothesline.common.impl.Network;
 import com.jamieswhiteshirt.clothesline.common.impl.NetworkState;
+import com.jamieswhiteshirt.clothesline.common.util.BasicAttachment;
+import com.jamieswhiteshirt.clothesline.common.util.BasicNetworkState;
+import com.jamieswhiteshirt.clothesline.common.util.BasicTree;
 import com.jamieswhiteshirt.clothesline.common.util.ChunkSpan;
 import com.jamieswhiteshirt.clothesline.common.util.PathBuilder;
 import com.jamieswhiteshirt.clothesline.internal.PersistentNetwork;
 import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.init.Items;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
 import org.junit.jupiter.api.Assertions;
 
-import java.util.Collections;
-import java.util.UUID;
+import java.util.*;
 
 class NetworkTests {
     static BlockPos posA = new BlockPos(0, 0, 0);
@@ -41,7 +44,7 @@ class NetworkTests {
             Path path = PathBuilder.buildPath(tree);
             LongSet chunkSpan = ChunkSpan.ofPath(path);
             this.attachments = MutableSortedIntMap.empty(AttachmentUnit.UNITS_PER_BLOCK * 2);
-            this.state = new NetworkState(0, 0, 0, 0, tree, path, chunkSpan, attachments);
+            this.state = new NetworkState(0, 0, 0, 0, PackedGraph.fromTree(tree), chunkSpan, attachments);
             this.persistentNetwork = new PersistentNetwork(new UUID(0, 0), state);
             this.network = new Network(0, persistentNetwork);
         }
@@ -49,6 +52,37 @@ class NetworkTests {
 
     static NetworkDataSet ab = new NetworkDataSet(posA, posB);
 
+    static BasicNetworkState createLargeState(long seed, int nodeCount) {
+        Random random = new Random(seed);
+        BlockPos[] positions = new BlockPos[nodeCount];
+        List<List<Integer>> children = new ArrayList<>();
+        positions[0] = new BlockPos(random.nextInt(60000) - 30000, random.nextInt(256), random.nextInt(60000) - 30000);
+        children.add(new ArrayList<>());
+        for (int i = 1; i < nodeCount; i++) {
+            int parent = random.nextInt(i);
+            positions[i] = positions[parent].add(random.nextInt(17) - 8, random.nextInt(9) - 4, random.nextInt(17) - 8);
+            children.get(parent).add(i);
+            children.add(new ArrayList<>());
+        }
+
+        // Children always have higher indices than their parents
+        BasicTree[] trees = new BasicTree[nodeCount];
+        for (int i = nodeCount - 1; i >= 0; i--) {
+            BasicTree.Edge[] edges = new BasicTree.Edge[children.get(i).size()];
+            for (int k = 0; k < edges.length; k++) {
+                int child = children.get(i).get(k);
+                edges[k] = new BasicTree.Edge(1 + random.nextInt(200), trees[child]);
+            }
+            trees[i] = new BasicTree(positions[i], Arrays.asList(edges), random.nextInt(4));
+        }
+
+        List<BasicAttachment> attachments = new ArrayList<>();
+        for (int key = 0; key < nodeCount * 16; key += 1 + random.nextInt(32)) {
+            attachments.add(new BasicAttachment(key, new ItemStack(random.nextBoolean() ? Items.STICK : Items.STRING, 1 + random.nextInt(4))));
+        }
+        return new BasicNetworkState(random.nextInt(), random.nextInt(), trees[0], attachments);
+    }
+
     static void assertNetworksEquivalent(Network expected, Network actual) {
         Assertions.assertEquals(expected.getId(), actual.getId());
         Assertions.assertEquals(expected.getUuid(), actual.getUuid());